@@ -0,0 +1,14 @@
+package com.example.momolearn.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Aktiviert @Scheduled-Methoden (kurze Hintergrundjobs wie Revocation-Polling und
+ * Leaderboard-Snapshots). Lang laufende Jobs wie der Upload-Abgleich nutzen einen
+ * eigenen Thread, damit der gemeinsame Scheduler-Thread frei bleibt.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -1,11 +1,16 @@
 package com.example.momolearn.config;
 
+import java.util.List;
+
 import org.springframework.context.annotation.Configuration;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 import com.example.momolearn.security.AuthInterceptor;
+import com.example.momolearn.security.AuthPrincipalArgumentResolver;
+import com.example.momolearn.security.RateLimitInterceptor;
 
 /**
  * Zentrale Web-Konfiguration für Spring MVC.
@@ -21,9 +26,17 @@ public class WebConfig implements WebMvcConfigurer {
   // Unser benutzerdefinierter Interceptor, der z. B. Authentifizierung/JWT prüft.
   private final AuthInterceptor auth;
 
-  // Spring injiziert den AuthInterceptor (Constructor Injection ist bevorzugt, da immutable/testbar).
-  public WebConfig(AuthInterceptor auth) {
+  // Liefert Controllern den vom Interceptor ermittelten AuthPrincipal als Parameter.
+  private final AuthPrincipalArgumentResolver principals;
+
+  // Ratenbegrenzung pro Nutzer, braucht den AuthPrincipal (läuft daher nach auth).
+  private final RateLimitInterceptor rateLimit;
+
+  // Spring injiziert die Abhängigkeiten (Constructor Injection ist bevorzugt, da immutable/testbar).
+  public WebConfig(AuthInterceptor auth, AuthPrincipalArgumentResolver principals, RateLimitInterceptor rateLimit) {
     this.auth = auth;
+    this.principals = principals;
+    this.rateLimit = rateLimit;
   }
 
   /**
@@ -35,9 +48,13 @@ public class WebConfig implements WebMvcConfigurer {
   public void addCorsMappings(CorsRegistry registry) {
     registry.addMapping("/**")                           // CORS gilt für alle Endpunkte des Backends
         .allowedOrigins("http://localhost:5173")         // nur diese Origin darf zugreifen (Vite/React-Dev-Server)
-        .allowedMethods("GET","POST","PUT","PATCH","DELETE","OPTIONS") // erlaubte HTTP-Methoden
+        .allowedMethods("GET","HEAD","POST","PUT","PATCH","DELETE","OPTIONS") // erlaubte HTTP-Methoden
         .allowedHeaders("*")                             // alle Request-Header erlaubt (z. B. Authorization, Content-Type)
-        .exposedHeaders("Content-Disposition")           // dieser Response-Header ist für JS sichtbar (wichtig für Downloads/Dateinamen)
+        .exposedHeaders("Content-Disposition",           // diese Response-Header sind für JS sichtbar (wichtig für Downloads/Dateinamen)
+            "Location", "Upload-Offset", "Upload-Length", // ... für fortsetzbare Uploads
+            "ETag", "Accept-Ranges", "Content-Range",    // ... und für Range-Downloads (PDF-Viewer)
+            "RateLimit-Limit", "RateLimit-Remaining",    // ... und für die Ratenbegrenzung
+            "RateLimit-Reset", "RateLimit-Policy", "Retry-After")
         .allowCredentials(true)                          // Cookies/Authorization-Header dürfen mitgesendet werden
         .maxAge(3600);                                   // Preflight-Cache-Dauer in Sekunden (reduziert Anzahl OPTIONS-Requests)
   }
@@ -57,5 +74,16 @@ public class WebConfig implements WebMvcConfigurer {
         );
         // Ergebnis: Alle /users/**-Routen werden abgefangen,
         // außer wenn sie explizit über excludePathPatterns ausgenommen sind.
+
+    registry.addInterceptor(rateLimit)                   // danach: Ratenbegrenzung pro angemeldetem Nutzer
+        .addPathPatterns("/users/**");
+  }
+
+  /**
+   * Eigene Argument-Resolver: Controller-Parameter vom Typ AuthPrincipal.
+   */
+  @Override
+  public void addArgumentResolvers(List<HandlerMethodArgumentResolver> resolvers) {
+    resolvers.add(principals);
   }
 }
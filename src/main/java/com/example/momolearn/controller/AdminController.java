@@ -0,0 +1,95 @@
+package com.example.momolearn.controller;
+
+import com.example.momolearn.dto.UserImportReport;
+import com.example.momolearn.service.UserImportService;
+import com.example.momolearn.service.UserStatsService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * REST-Controller für Verwaltungsaufgaben (z. B. Einrichtung eines ganzen Kurses,
+ * Neuaufbau der Statistiken).
+ *
+ * Basis-Route:
+ *   /admin
+ *
+ * Es gibt keine Admin-Rollen; Zugriff nur mit dem Provisioning-Schlüssel im Header
+ * "X-Provisioning-Key" (admin.provisioning-key). Ohne konfigurierten Schlüssel ist
+ * der Endpunkt abgeschaltet (404).
+ */
+@RestController
+@RequestMapping("/admin")
+public class AdminController {
+
+  /** Header mit dem Provisioning-Schlüssel. */
+  public static final String KEY_HEADER = "X-Provisioning-Key";
+
+  private static final String TEXT_CSV = "text/csv";
+
+  private final UserImportService importer;
+  private final UserStatsService userStats;
+  private final byte[] provisioningKey;
+
+  public AdminController(UserImportService importer,
+                         UserStatsService userStats,
+                         @Value("${admin.provisioning-key:}") String provisioningKey) {
+    this.importer = importer;
+    this.userStats = userStats;
+    this.provisioningKey = provisioningKey.getBytes(StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Legt viele Benutzer auf einmal an (z. B. einen Jahrgang).
+   *
+   * POST /admin/users/import
+   * Content-Type: text/csv (Kopfzeile email,name,password) oder application/x-ndjson
+   *
+   * Der Body wird gestreamt und in Batches verarbeitet; vorhandene E-Mails werden
+   * übersprungen, fehlerhafte Zeilen gemeldet, ohne den Import abzubrechen.
+   *
+   * @return Report mit Zählern und Ergebnis pro Zeile
+   */
+  @PostMapping(value = "/users/import", consumes = { TEXT_CSV, MediaType.APPLICATION_NDJSON_VALUE })
+  public UserImportReport importUsers(@RequestHeader(value = KEY_HEADER, required = false) String key,
+                                      @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                      InputStream body) throws IOException {
+    checkKey(key);
+    UserImportService.Format format = MediaType.parseMediaType(contentType).isCompatibleWith(MediaType.APPLICATION_NDJSON)
+        ? UserImportService.Format.NDJSON
+        : UserImportService.Format.CSV;
+    return importer.importUsers(body, format);
+  }
+
+  /**
+   * Baut die Nutzerstatistiken (user_stats) aus allen Antwortversuchen neu auf,
+   * z. B. nach der Einführung der Zähler oder nach einer Reparatur.
+   *
+   * POST /admin/stats/rebuild
+   *
+   * @return Zusammenfassung des Laufs
+   */
+  @PostMapping("/stats/rebuild")
+  public UserStatsService.RebuildReport rebuildStats(@RequestHeader(value = KEY_HEADER, required = false) String key) {
+    checkKey(key);
+    return userStats.rebuild();
+  }
+
+  /** Vergleicht den Schlüssel in konstanter Zeit. */
+  private void checkKey(String key) {
+    if (provisioningKey.length == 0) {
+      throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+    }
+    if (key == null || !MessageDigest.isEqual(provisioningKey, key.getBytes(StandardCharsets.UTF_8))) {
+      throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Ungültiger Provisioning-Schlüssel");
+    }
+  }
+}
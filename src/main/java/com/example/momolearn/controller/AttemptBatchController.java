@@ -0,0 +1,55 @@
+package com.example.momolearn.controller;
+
+import com.example.momolearn.dto.AttemptBatchRequest;
+import com.example.momolearn.dto.AttemptBatchResultDto;
+import com.example.momolearn.security.RateLimitInterceptor;
+import com.example.momolearn.service.GamificationService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.Valid;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * REST-Controller für mehrere Antwort-Versuche auf einmal.
+ *
+ * Basis-Route:
+ *   /users/{userId}/attempts
+ */
+@RestController
+@RequestMapping("/users/{userId}/attempts")
+public class AttemptBatchController {
+
+  // Service, der die Geschäftslogik für Gamification/Attempts bereitstellt
+  private final GamificationService service;
+
+  // Ratenbegrenzung: ein Batch kostet so viele Tokens wie er Versuche enthält
+  private final RateLimitInterceptor rateLimit;
+
+  public AttemptBatchController(GamificationService service, RateLimitInterceptor rateLimit) {
+    this.service = service;
+    this.rateLimit = rateLimit;
+  }
+
+  /**
+   * Übernimmt alle Antworten einer Quizrunde in einem Request.
+   *
+   * POST /users/{userId}/attempts
+   * Body: { "items": [ { "questionId": "...", "chosenIndex": 2, "answeredAt": "2026-10-19T08:15:00Z" }, ... ] }
+   *
+   * Zählt für die Ratenbegrenzung wie ebenso viele einzelne Versuche (429 bei Überschreitung).
+   *
+   * @param userId ID des Benutzers (aus der URL)
+   * @param req    Versuche in Antwortreihenfolge
+   * @return Ergebnis pro Eintrag und Endstand (XP, Level, Streak)
+   */
+  @PostMapping
+  @ResponseStatus(HttpStatus.CREATED) // wie beim einzelnen Versuch
+  public AttemptBatchResultDto attempts(@PathVariable String userId,
+                                        @Valid @RequestBody AttemptBatchRequest req,
+                                        HttpServletRequest request,
+                                        HttpServletResponse response) {
+    rateLimit.chargeUnits(request, response, req.getItems().size());
+    return service.recordAttempts(userId, req.getItems());
+  }
+}
@@ -1,11 +1,11 @@
 package com.example.momolearn.controller;
 
 import java.time.Instant;
-import java.time.temporal.ChronoUnit;
-import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.HttpStatus;
-import org.springframework.security.crypto.bcrypt.BCrypt;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
@@ -19,10 +19,11 @@ import com.example.momolearn.dto.AuthResponse;
 import com.example.momolearn.dto.LoginRequest;
 import com.example.momolearn.dto.PublicUserDto;
 import com.example.momolearn.dto.RegisterRequest;
-import com.example.momolearn.model.SessionToken;
 import com.example.momolearn.model.User;
-import com.example.momolearn.repository.SessionTokenRepository;
 import com.example.momolearn.repository.UserRepository;
+import com.example.momolearn.security.AuthPrincipal;
+import com.example.momolearn.security.PasswordHasher;
+import com.example.momolearn.security.TokenService;
 
 import jakarta.validation.Valid;
 
@@ -34,144 +35,142 @@ import jakarta.validation.Valid;
 @RequestMapping("/auth")
 public class AuthController {
 
-  // Repositories für Benutzer und Session-Tokens (persistente Sitzungen)
+  // Repository für Benutzer und Service für Session-Tokens (opaque oder signiert)
   private final UserRepository users;
-  private final SessionTokenRepository tokens;
+  private final TokenService tokens;
+
+  // BCrypt läuft auf einem eigenen Pool, nicht auf Tomcat-Threads
+  private final PasswordHasher passwords;
+
+  // Datenbankzugriffe nach dem Hash laufen auf Springs Task-Pool, damit die BCrypt-Threads
+  // nur rechnen und nicht auf MongoDB warten
+  private final Executor afterHash;
 
   // Konstruktor-Injektion (empfohlen: immutable Dependencies, bessere Testbarkeit)
-  public AuthController(UserRepository users, SessionTokenRepository tokens) {
+  public AuthController(UserRepository users, TokenService tokens, PasswordHasher passwords,
+                        @Qualifier("applicationTaskExecutor") Executor afterHash) {
     this.users = users;
     this.tokens = tokens;
+    this.passwords = passwords;
+    this.afterHash = afterHash;
   }
 
   /**
    * Registrierung eines neuen Nutzers.
-   * - prüft, ob E-Mail bereits existiert
-   * - hashed das Passwort mit BCrypt
+   * - prüft, ob E-Mail bereits existiert und ob das Passwort in BCrypt passt (max. 72 Bytes)
+   * - hashed das Passwort mit BCrypt (asynchron auf dem Hash-Pool, 503 bei Überlast)
    * - legt den User an und erstellt direkt ein Session-Token (Auto-Login)
    * 
    * @return AuthResponse inkl. frischem Token
    */
   @PostMapping("/register")
   @ResponseStatus(HttpStatus.CREATED) // 201 Created bei erfolgreicher Registrierung
-  public AuthResponse register(@Valid @RequestBody RegisterRequest req) {
+  public CompletableFuture<AuthResponse> register(@Valid @RequestBody RegisterRequest req) {
     // Wenn E-Mail schon vergeben -> 409 CONFLICT
     users.findByEmail(req.getEmail()).ifPresent(u -> {
       throw new ResponseStatusException(HttpStatus.CONFLICT, "E-Mail bereits vergeben");
     });
+    // BCrypt verarbeitet höchstens 72 Bytes -> 400 statt 500 aus dem Hash-Pool
+    if (PasswordHasher.isTooLong(req.getPassword())) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+          "Passwort darf höchstens " + PasswordHasher.MAX_PASSWORD_BYTES + " Bytes (UTF-8) lang sein");
+    }
 
     // Passwort sicher hashen (mit Salt, das BCrypt intern generiert)
-    String hash = BCrypt.hashpw(req.getPassword(), BCrypt.gensalt());
-
-    // Benutzer anlegen (Startwerte für Gamification: xp/level/streak)
-    User u = users.save(User.builder()
-        .name(req.getName().trim())
-        .email(req.getEmail().trim().toLowerCase())
-        .passwordHash(hash)
-        .createdAt(Instant.now())
-        .xp(0).level(1).streak(0)
-        .build());
-
-    // Session-Token (UUID) ausstellen und persistieren
-    String token = issueToken(u.getId());
-
-    // Antwortobjekt für das Frontend (keine sensiblen Daten wie passwordHash!)
-    return AuthResponse.builder()
-        .userId(u.getId())
-        .name(u.getName())
-        .email(u.getEmail())
-        .token(token)
-        .build();
+    return passwords.hash(req.getPassword()).thenApplyAsync(hash -> {
+      // Benutzer anlegen (Startwerte für Gamification: xp/level/streak)
+      User u = users.save(User.builder()
+          .name(req.getName().trim())
+          .email(req.getEmail().trim().toLowerCase())
+          .passwordHash(hash)
+          .createdAt(Instant.now())
+          .xp(0).level(1).streak(0)
+          .build());
+
+      // Session-Token ausstellen (opaque: UUID in der DB, signed: selbsttragend)
+      String token = tokens.issue(u.getId());
+
+      // Antwortobjekt für das Frontend (keine sensiblen Daten wie passwordHash!)
+      return AuthResponse.builder()
+          .userId(u.getId())
+          .name(u.getName())
+          .email(u.getEmail())
+          .token(token)
+          .build();
+    }, afterHash);
   }
 
   /**
    * Login mit E-Mail und Passwort.
    * - sucht User via E-Mail
-   * - verifiziert Passwort mit BCrypt
+   * - verifiziert Passwort mit BCrypt (asynchron auf dem Hash-Pool, 503 bei Überlast)
+   * - speichert einen neuen Hash, falls der alte mit einem anderen Kostenfaktor erzeugt wurde
    * - erstellt ein neues Session-Token
    */
   @PostMapping("/login")
-  public AuthResponse login(@Valid @RequestBody LoginRequest req) {
+  public CompletableFuture<AuthResponse> login(@Valid @RequestBody LoginRequest req) {
     // User lookup (E-Mail normalisiert)
     User u = users.findByEmail(req.getEmail().trim().toLowerCase())
         .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Ungültige Anmeldedaten"));
 
     // Passwortvergleich (konstantzeitnahe Prüfung durch BCrypt)
-    if (u.getPasswordHash() == null || !BCrypt.checkpw(req.getPassword(), u.getPasswordHash())) {
-      throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Ungültige Anmeldedaten");
-    }
-
-    // Bei Erfolg: neues Session-Token ausstellen
-    String token = issueToken(u.getId());
-
-    // Minimale Benutzerinfo + Token zurückgeben
-    return AuthResponse.builder()
-        .userId(u.getId())
-        .name(u.getName())
-        .email(u.getEmail())
-        .token(token)
-        .build();
+    return passwords.verify(req.getPassword(), u.getPasswordHash()).thenApplyAsync(v -> {
+      if (!v.matches()) {
+        throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Ungültige Anmeldedaten");
+      }
+
+      // Hash auf aktuellen Kostenfaktor heben (nur falls inzwischen nicht geändert)
+      if (v.upgradedHash() != null) {
+        users.updatePasswordHash(u.getId(), u.getPasswordHash(), v.upgradedHash());
+      }
+
+      // Bei Erfolg: neues Session-Token ausstellen
+      String token = tokens.issue(u.getId());
+
+      // Minimale Benutzerinfo + Token zurückgeben
+      return AuthResponse.builder()
+          .userId(u.getId())
+          .name(u.getName())
+          .email(u.getEmail())
+          .token(token)
+          .build();
+    }, afterHash);
   }
 
   /**
    * Logout.
    * - liest das Bearer-Token aus dem Authorization-Header
-   * - löscht den zugehörigen Token-Datensatz (Session invalidieren)
+   * - widerruft das Token auf allen Instanzen (opaque: Datensatz löschen, signiert: Widerrufsliste)
    * - gibt 204 No Content zurück
    */
   @PostMapping("/logout")
   @ResponseStatus(HttpStatus.NO_CONTENT)
   public void logout(@RequestHeader(value = "Authorization", required = false) String auth) {
-    String token = parseBearer(auth);
-    if (token != null) tokens.deleteByToken(token);
+    tokens.revoke(AuthPrincipal.parseBearer(auth));
+  }
+
+  /**
+   * Überall abmelden.
+   * - widerruft alle Sessions des Nutzers, zu dem das Token gehört (auch das eigene)
+   * - gibt 204 No Content zurück, 401 bei ungültigem Token
+   */
+  @PostMapping("/logout-all")
+  @ResponseStatus(HttpStatus.NO_CONTENT)
+  public void logoutAll(AuthPrincipal principal) {
+    tokens.revokeAll(principal.userId());
   }
 
   /**
    * Eigene Nutzerdaten abfragen (leichtgewichtige "whoami"-Funktion).
-   * - parst Bearer-Token
-   * - lädt SessionToken und danach den User
+   * - Token wird einmal vom AuthPrincipalArgumentResolver geprüft (401, wenn kein/ungültiger Token)
+   * - lädt danach den User
    * - gibt eine PublicUserDto ohne sensible Felder zurück
    */
   @GetMapping("/me")
-  public PublicUserDto me(@RequestHeader(value = "Authorization", required = false) String auth) {
-    String token = parseBearer(auth);
-
-    // Session prüfen (wirft 401, wenn kein/ungültiger Token)
-    var st = tokens.findByToken(token)
-        .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Kein gültiger Token"));
-
+  public PublicUserDto me(AuthPrincipal principal) {
     // Zugehörigen Benutzer ermitteln; wenn nicht vorhanden -> 401
-    return users.findById(st.getUserId())
+    return users.findById(principal.userId())
         .map(u -> PublicUserDto.builder().id(u.getId()).name(u.getName()).email(u.getEmail()).build())
         .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Benutzer unbekannt"));
   }
-
-  // --- Helpers ---
-
-  /**
-   * Erstellt ein neues Session-Token (UUID), speichert es mit Ablaufdatum (+7 Tage)
-   * und gibt den reinen Token-String zurück.
-   */
-  private String issueToken(String userId) {
-    String tok = UUID.randomUUID().toString(); // zufälliger, eindeutiger Tokenwert
-    tokens.save(SessionToken.builder()
-        .token(tok)
-        .userId(userId)
-        .createdAt(Instant.now())
-        .expiresAt(Instant.now().plus(7, ChronoUnit.DAYS)) // Ablaufzeitpunkt setzen
-        .build());
-    return tok;
-  }
-
-  /**
-   * Extrahiert einen Bearer-Token aus dem Authorization-Header.
-   * Erwartetes Format: "Authorization: Bearer <token>"
-   * Gibt null zurück, wenn Format fehlt/ungültig ist.
-   */
-  private String parseBearer(String header) {
-    if (header == null) return null;
-    String p = header.trim();
-    if (p.toLowerCase().startsWith("bearer ")) return p.substring(7).trim();
-    return null;
-  }
 }
@@ -0,0 +1,50 @@
+package com.example.momolearn.controller;
+
+import com.example.momolearn.dto.LeaderboardDto;
+import com.example.momolearn.service.LeaderboardService;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * REST-Controller für die XP-Ranglisten.
+ *
+ * Basis-Route:
+ *   /users/{userId}/leaderboard
+ */
+@RestController
+@RequestMapping("/users/{userId}/leaderboard")
+public class LeaderboardController {
+
+  // Service mit den Ranglisten im Speicher
+  private final LeaderboardService service;
+
+  public LeaderboardController(LeaderboardService service) {
+    this.service = service;
+  }
+
+  /**
+   * Liefert die besten Plätze einer Rangliste und den Platz des Nutzers.
+   *
+   * GET /users/{userId}/leaderboard?scope=global|course|weekly&courseId=...&limit=10
+   *
+   * @param userId   ID des Nutzers (aus der URL)
+   * @param scope    global (Standard), course (mit courseId) oder weekly (laufende ISO-Woche)
+   * @param courseId Kurs, nur für scope=course
+   * @param limit    Anzahl der Plätze (höchstens leaderboard.max-limit)
+   * @return Rangliste mit eigenem Platz
+   */
+  @GetMapping
+  public LeaderboardDto get(@PathVariable String userId,
+                            @RequestParam(defaultValue = "global") String scope,
+                            @RequestParam(required = false) String courseId,
+                            @RequestParam(defaultValue = "10") int limit) {
+    LeaderboardService.Scope s;
+    try {
+      s = LeaderboardService.Scope.valueOf(scope.toUpperCase());
+    } catch (IllegalArgumentException e) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "scope must be global, course or weekly");
+    }
+    return service.view(userId, s, courseId, limit);
+  }
+}
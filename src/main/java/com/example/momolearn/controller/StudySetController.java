@@ -5,6 +5,7 @@ import com.example.momolearn.service.StudySetService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -42,6 +43,8 @@ public class StudySetController {
    * @param body     JSON-Body mit mindestens:
    *                 - "title": Titel des Sets
    *                 - "uploadId": optional, falls ein Upload referenziert wird
+   *                 - "pageFrom"/"pageTo": optional, nur diesen Seitenbereich verwenden
+   *                 - "section": optional, Nummer eines Abschnitts aus dem Upload-Index
    * @return das erstellte StudySet
    *
    * Gibt bei Erfolg HTTP 201 Created zurück.
@@ -51,7 +54,10 @@ public class StudySetController {
   public StudySet create(@PathVariable String userId,
                          @PathVariable String courseId,
                          @RequestBody Map<String,String> body) {
-    return service.create(userId, courseId, body.get("title"), body.get("uploadId"));
+    return service.create(userId, courseId, body.get("title"), body.get("uploadId"),
+        parseIntOrNull(body.get("pageFrom"), "pageFrom"),
+        parseIntOrNull(body.get("pageTo"), "pageTo"),
+        parseIntOrNull(body.get("section"), "section"));
   }
 
   /**
@@ -100,4 +106,14 @@ public class StudySetController {
     service.delete(userId, courseId, setId);
     return ResponseEntity.noContent().build();
   }
+
+  /** Liest eine optionale Zahl aus dem Request-Body; ungültige Werte ergeben 400. */
+  private static Integer parseIntOrNull(String value, String field) {
+    if (value == null || value.isBlank()) return null;
+    try {
+      return Integer.valueOf(value.trim());
+    } catch (NumberFormatException e) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, field + " must be a number");
+    }
+  }
 }
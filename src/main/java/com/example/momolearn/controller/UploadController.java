@@ -1,12 +1,20 @@
 package com.example.momolearn.controller;
 
 import com.example.momolearn.model.UploadDoc;
+import com.example.momolearn.model.UploadTextIndex;
+import com.example.momolearn.service.MemoryGovernor;
+import com.example.momolearn.service.UploadIndexService;
 import com.example.momolearn.service.UploadService;
 import org.springframework.http.*;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -22,8 +30,16 @@ public class UploadController {
   // Service, der die Logik für Speicherung, Verwaltung und Löschung von Uploads übernimmt
   private final UploadService uploads;
 
-  public UploadController(UploadService uploads) { 
+  // Service für den Struktur-Index (Seiten/Abschnitte) eines Uploads
+  private final UploadIndexService indexes;
+
+  // Globales Speicherbudget für gleichzeitige Uploads/PDF-Verarbeitung
+  private final MemoryGovernor governor;
+
+  public UploadController(UploadService uploads, UploadIndexService indexes, MemoryGovernor governor) { 
     this.uploads = uploads; 
+    this.indexes = indexes;
+    this.governor = governor;
   }
 
   /**
@@ -34,8 +50,9 @@ public class UploadController {
    *
    * Ablauf:
    * 1. Prüft, ob die Datei nicht leer ist und ob es sich um eine PDF handelt.
-   * 2. Übergibt die Datei an den UploadService, der sie speichert.
-   * 3. Gibt als Antwort die ID des gespeicherten Uploads zurück.
+   * 2. Reserviert Speicherbudget in Höhe der Dateigröße (sonst 503 mit Retry-After).
+   * 3. Übergibt die Datei an den UploadService, der sie speichert.
+   * 4. Gibt als Antwort die ID des gespeicherten Uploads zurück.
    *
    * @param userId ID des Nutzers, dem die Datei zugeordnet wird
    * @param file   die hochgeladene PDF-Datei
@@ -51,29 +68,145 @@ public class UploadController {
       return ResponseEntity.badRequest().body(Map.of("error", "Bitte eine PDF-Datei hochladen."));
     }
 
-    // Datei speichern und Upload-Dokument (mit ID) zurückbekommen
-    UploadDoc u = uploads.store(userId, file);
+    // Datei speichern und Upload-Dokument (mit ID) zurückbekommen;
+    // Budget wird erst nach dem Speichern wieder freigegeben
+    UploadDoc u;
+    try (MemoryGovernor.Permit permit = governor.acquire(file.getSize())) {
+      u = uploads.store(userId, file);
+    }
 
     // Rückgabe: HTTP 201 Created mit ID des gespeicherten Uploads
     return ResponseEntity.status(HttpStatus.CREATED).body(Map.of("uploadId", u.getId()));
   }
 
+  /**
+   * Hochladen einer PDF-Datei als roher Request-Body (Streaming).
+   *
+   * Endpoint: POST /users/{userId}/uploads/stream?filename=skript.pdf
+   * Content-Type: application/pdf
+   *
+   * Im Gegensatz zum Multipart-Upload wird die Datei nicht vom Servlet-Container
+   * zwischengespeichert, sondern direkt vom Socket in GridFS geschrieben. SHA-256,
+   * Größe und PDF-Signatur werden dabei geprüft. Da nur ein Chunk-Puffer im Speicher
+   * liegt, ist keine Reservierung beim MemoryGovernor nötig.
+   *
+   * @param userId   ID des Nutzers, dem die Datei zugeordnet wird
+   * @param filename optionaler Dateiname
+   * @param body     Request-Body mit den PDF-Bytes
+   * @return HTTP 201 mit JSON-Body wie: { "uploadId": "<ID>", "sha256": "<Hash>" }
+   */
+  @PostMapping(value = "/stream", consumes = MediaType.APPLICATION_PDF_VALUE)
+  public ResponseEntity<Map<String,String>> uploadStream(@PathVariable String userId,
+                                                         @RequestParam(required = false) String filename,
+                                                         @RequestHeader(value = HttpHeaders.CONTENT_LENGTH, required = false) Long contentLength,
+                                                         InputStream body)
+      throws IOException {
+    long declared = (contentLength != null) ? contentLength : -1;
+    UploadDoc u = uploads.storeStream(userId, body, declared, filename);
+    return ResponseEntity.status(HttpStatus.CREATED).body(Map.of("uploadId", u.getId(), "sha256", u.getSha256()));
+  }
+
+  /**
+   * Inhalt eines hochgeladenen Dokuments herunterladen (z. B. für einen PDF-Viewer).
+   *
+   * Endpoint: GET /users/{userId}/uploads/{uploadId}/content
+   *
+   * - Streaming: die Datei wird blockweise aus dem Speicher-Backend gelesen und gesendet, nie komplett gepuffert
+   * - Range: genau ein Byte-Bereich ("bytes=0-65535", "bytes=-500") → 206 Partial Content;
+   *   mehrere Bereiche werden ignoriert (volle Antwort), ungültige → 416
+   * - ETag: SHA-256 des Inhalts; If-None-Match → 304, If-Range wird beachtet
+   * - Cache-Control: private (nur Browser-Cache), Inhalt eines Uploads ändert sich nie
+   *
+   * @return Dateiinhalt (200) bzw. Ausschnitt (206)
+   */
+  @GetMapping("/{uploadId}/content")
+  public ResponseEntity<StreamingResponseBody> content(@PathVariable String userId,
+                                                       @PathVariable String uploadId,
+                                                       @RequestHeader HttpHeaders requestHeaders) {
+    UploadDoc u = uploads.getForUser(userId, uploadId);
+    long size = u.getSize();
+    String etag = (u.getSha256() != null) ? "\"" + u.getSha256() + "\"" : "W/\"" + u.getId() + "-" + size + "\"";
+
+    HttpHeaders headers = new HttpHeaders();
+    headers.setETag(etag);
+    headers.setCacheControl(CacheControl.maxAge(Duration.ofHours(1)).cachePrivate());
+    headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+    // 1. Bedingte Anfrage: Browser hat die Datei schon
+    List<String> ifNoneMatch = requestHeaders.getIfNoneMatch();
+    if (ifNoneMatch.contains(etag) || ifNoneMatch.contains("*")) {
+      return ResponseEntity.status(HttpStatus.NOT_MODIFIED).headers(headers).build();
+    }
+
+    // 2. Range auswerten (If-Range: nur, wenn der Client noch denselben Stand hat)
+    long start = 0;
+    long end = size - 1;
+    boolean partial = false;
+    String range = requestHeaders.getFirst(HttpHeaders.RANGE);
+    String ifRange = requestHeaders.getFirst(HttpHeaders.IF_RANGE);
+    if (range != null && size > 0 && (ifRange == null || ifRange.equals(etag))) {
+      List<HttpRange> ranges;
+      try {
+        ranges = HttpRange.parseRanges(range);
+      } catch (IllegalArgumentException e) {
+        ranges = List.of();
+      }
+      if (ranges.size() == 1) {
+        HttpRange r = ranges.get(0);
+        try {
+          start = r.getRangeStart(size);
+          end = r.getRangeEnd(size);
+        } catch (IllegalArgumentException e) {
+          headers.set(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+          return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE).headers(headers).build();
+        }
+        partial = true;
+        headers.set(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+      }
+    }
+
+    long length = (size > 0) ? end - start + 1 : 0;
+    headers.setContentType(MediaType.parseMediaType(u.getContentType() != null ? u.getContentType() : "application/pdf"));
+    headers.setContentLength(length);
+    headers.setContentDisposition(ContentDisposition.inline().filename(u.getFilename(), StandardCharsets.UTF_8).build());
+
+    final long from = start;
+    StreamingResponseBody body = out -> uploads.copyTo(u, from, length, out);
+    return ResponseEntity.status(partial ? HttpStatus.PARTIAL_CONTENT : HttpStatus.OK).headers(headers).body(body);
+  }
+
+  /**
+   * Struktur-Index eines hochgeladenen PDFs abrufen.
+   *
+   * Endpoint: GET /users/{userId}/uploads/{uploadId}/index
+   *
+   * Liefert Seitengrenzen und erkannte Abschnitte (Überschriften). Der Index wird
+   * beim ersten Aufruf erstellt und danach gespeichert. Die Abschnitts-Nummer
+   * ("index") kann beim Anlegen eines StudySets als "section" übergeben werden.
+   *
+   * @return Index mit Seiten und Abschnitten
+   */
+  @GetMapping("/{uploadId}/index")
+  public UploadTextIndex index(@PathVariable String userId, @PathVariable String uploadId) {
+    return indexes.getForUser(userId, uploadId);
+  }
+
   /**
    * Löschen eines hochgeladenen Dokuments.
    *
    * Endpoint: DELETE /users/{userId}/uploads/{uploadId}
    *
    * Ablauf:
-   * 1. Optional könnte geprüft werden, ob das Dokument wirklich dem Nutzer gehört
-   *    (Ownership-Check kann im Service implementiert sein).
-   * 2. Dokument wird durch den UploadService gelöscht.
+   * 1. Prüft, ob das Dokument dem Nutzer gehört (404/403).
+   * 2. Dokument wird durch den UploadService gelöscht (inkl. Index; die GridFS-Datei
+   *    erst, wenn kein anderer Upload mehr auf sie verweist).
    *
    * Rückgabe: HTTP 204 No Content
    */
   @DeleteMapping("/{uploadId}")
   @ResponseStatus(HttpStatus.NO_CONTENT)
   public void delete(@PathVariable String userId, @PathVariable String uploadId) {
-    // Löscht den Upload anhand der ID
-    uploads.delete(uploadId);
+    // Ownership prüfen, dann Upload anhand der ID löschen
+    uploads.delete(uploads.getForUser(userId, uploadId).getId());
   }
 }
@@ -0,0 +1,117 @@
+package com.example.momolearn.controller;
+
+import com.example.momolearn.model.UploadSession;
+import com.example.momolearn.service.ResumableUploadService;
+import org.springframework.http.*;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * REST-Controller für fortsetzbare Uploads großer PDFs (angelehnt an das tus-Protokoll).
+ *
+ * Basisroute: /users/{userId}/uploads/sessions
+ *
+ * Ablauf für den Client:
+ * 1. POST mit Header "Upload-Length" → Session anlegen (Location-Header)
+ * 2. PATCH mit Header "Upload-Offset" und Bytes als Body (application/offset+octet-stream)
+ * 3. Nach Abbruch: HEAD/GET liefert den gespeicherten "Upload-Offset", ab dort weitersenden
+ * 4. Das PATCH mit dem letzten Byte liefert 201 mit der ID des fertigen Uploads
+ */
+@RestController
+@RequestMapping("/users/{userId}/uploads/sessions")
+public class UploadSessionController {
+
+  static final String UPLOAD_OFFSET = "Upload-Offset";
+  static final String UPLOAD_LENGTH = "Upload-Length";
+  static final String OFFSET_OCTET_STREAM = "application/offset+octet-stream";
+
+  // Service mit der Logik für Sessions und Chunk-Speicherung
+  private final ResumableUploadService resumable;
+
+  public UploadSessionController(ResumableUploadService resumable) {
+    this.resumable = resumable;
+  }
+
+  /**
+   * Neue Upload-Session anlegen.
+   *
+   * Endpoint: POST /users/{userId}/uploads/sessions?filename=skript.pdf
+   * Header:   Upload-Length: <Gesamtgröße in Bytes>
+   *
+   * @return HTTP 201 mit Location-Header und JSON-Status der Session
+   */
+  @PostMapping
+  public ResponseEntity<Map<String,Object>> create(@PathVariable String userId,
+                                                   @RequestHeader(UPLOAD_LENGTH) long length,
+                                                   @RequestParam(required = false) String filename) {
+    UploadSession s = resumable.create(userId, length, filename);
+    return ResponseEntity.created(URI.create("/users/" + userId + "/uploads/sessions/" + s.getId()))
+        .header(UPLOAD_OFFSET, "0")
+        .body(status(s));
+  }
+
+  /**
+   * Aktuellen Stand einer Session abfragen (GET mit JSON-Body, HEAD nur mit Headern).
+   *
+   * Endpoint: HEAD|GET /users/{userId}/uploads/sessions/{sessionId}
+   *
+   * @return Header "Upload-Offset" und "Upload-Length"
+   */
+  @GetMapping("/{sessionId}")
+  public ResponseEntity<Map<String,Object>> status(@PathVariable String userId, @PathVariable String sessionId) {
+    UploadSession s = resumable.get(userId, sessionId);
+    return ResponseEntity.ok()
+        .header(UPLOAD_OFFSET, Long.toString(s.getOffset()))
+        .header(UPLOAD_LENGTH, Long.toString(s.getLength()))
+        .cacheControl(CacheControl.noStore())
+        .body(status(s));
+  }
+
+  /**
+   * Bytes ab dem aktuellen Offset senden.
+   *
+   * Endpoint: PATCH /users/{userId}/uploads/sessions/{sessionId}
+   * Header:   Upload-Offset: <Offset, ab dem der Body beginnt>
+   *
+   * @return HTTP 204 mit neuem "Upload-Offset", bzw. HTTP 201 mit { "uploadId": "<ID>" }
+   *         nach dem letzten Byte; 409, wenn der Offset nicht passt
+   */
+  @PatchMapping(value = "/{sessionId}", consumes = OFFSET_OCTET_STREAM)
+  public ResponseEntity<Map<String,Object>> append(@PathVariable String userId,
+                                                   @PathVariable String sessionId,
+                                                   @RequestHeader(UPLOAD_OFFSET) long offset,
+                                                   InputStream body) throws IOException {
+    ResumableUploadService.AppendResult r = resumable.append(userId, sessionId, offset, body);
+    if (r.upload() == null) {
+      return ResponseEntity.noContent().header(UPLOAD_OFFSET, Long.toString(r.offset())).build();
+    }
+    return ResponseEntity.status(HttpStatus.CREATED)
+        .header(UPLOAD_OFFSET, Long.toString(r.offset()))
+        .body(Map.of("uploadId", r.upload().getId()));
+  }
+
+  /**
+   * Upload abbrechen und bereits gesendete Daten verwerfen.
+   *
+   * Endpoint: DELETE /users/{userId}/uploads/sessions/{sessionId}
+   */
+  @DeleteMapping("/{sessionId}")
+  @ResponseStatus(HttpStatus.NO_CONTENT)
+  public void abort(@PathVariable String userId, @PathVariable String sessionId) {
+    resumable.abort(userId, sessionId);
+  }
+
+  private static Map<String,Object> status(UploadSession s) {
+    Map<String,Object> m = new LinkedHashMap<>();
+    m.put("sessionId", s.getId());
+    m.put("offset", s.getOffset());
+    m.put("length", s.getLength());
+    m.put("expiresAt", s.getExpiresAt());
+    return m;
+  }
+}
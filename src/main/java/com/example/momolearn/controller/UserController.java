@@ -2,6 +2,8 @@ package com.example.momolearn.controller;
 
 import com.example.momolearn.model.User;
 import com.example.momolearn.repository.UserRepository;
+import com.example.momolearn.service.LeaderboardService;
+import com.example.momolearn.service.UploadService;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
 
@@ -20,8 +22,16 @@ public class UserController {
   // Repository für Datenbankoperationen auf User-Entities
   private final UserRepository users;
 
-  public UserController(UserRepository users) {
+  // Service für die Uploads des Benutzers (werden beim Löschen mit entfernt)
+  private final UploadService uploads;
+
+  // Ranglisten im Speicher (gelöschte Benutzer werden ausgetragen)
+  private final LeaderboardService leaderboard;
+
+  public UserController(UserRepository users, UploadService uploads, LeaderboardService leaderboard) {
     this.users = users;
+    this.uploads = uploads;
+    this.leaderboard = leaderboard;
   }
 
   /**
@@ -98,7 +108,7 @@ public class UserController {
   }
 
   /**
-   * Löscht einen Benutzer anhand der ID.
+   * Löscht einen Benutzer anhand der ID, zusammen mit seinen Uploads.
    *
    * DELETE /users/{userId}
    *
@@ -107,6 +117,8 @@ public class UserController {
   @DeleteMapping("/{userId}")
   @ResponseStatus(HttpStatus.NO_CONTENT)
   public void delete(@PathVariable String userId) {
+    uploads.deleteAllForUser(userId);
     users.deleteById(userId);
+    leaderboard.removeUser(userId);
   }
 }
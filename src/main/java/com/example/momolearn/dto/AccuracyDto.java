@@ -0,0 +1,25 @@
+package com.example.momolearn.dto;
+
+import lombok.*;
+
+/**
+ * DTO für die Trefferquote in einem Kurs bzw. StudySet.
+ *
+ * Teil von {@link UserStatsDto} (GET /users/{userId}/stats).
+ */
+@Getter
+@Setter
+@NoArgsConstructor       // Standard-Konstruktor
+@AllArgsConstructor      // Konstruktor mit allen Feldern
+@Builder                 // Builder-Pattern für einfachen, sauberen Objektaufbau
+public class AccuracyDto {
+
+  /** Anzahl der Antwortversuche. */
+  private long answers;
+
+  /** Davon richtig beantwortet. */
+  private long correctAnswers;
+
+  /** Anteil richtiger Antworten (0.0–1.0). */
+  private double accuracy;
+}
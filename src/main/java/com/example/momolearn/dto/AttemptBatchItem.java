@@ -0,0 +1,32 @@
+package com.example.momolearn.dto;
+
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Ein Antwort-Versuch innerhalb eines Batches (siehe {@link AttemptBatchRequest}).
+ *
+ * Bewusst ohne Bean-Validation: ungültige Einträge werden einzeln als INVALID
+ * gemeldet, statt den ganzen Batch abzulehnen.
+ */
+@Getter
+@Setter
+@NoArgsConstructor       // Erzeugt einen parameterlosen Konstruktor
+@AllArgsConstructor      // Erzeugt einen Konstruktor mit allen Feldern
+@Builder                 // Erlaubt den Builder-Pattern-Aufbau für dieses Objekt
+public class AttemptBatchItem {
+
+  /** ID der beantworteten Frage. */
+  private String questionId;
+
+  /** Gewählter Antwortindex (0..3). */
+  private int chosenIndex;
+
+  /**
+   * Zeitpunkt der Antwort auf dem Client (optional, Standard: Eingang beim Server).
+   * Wird auf [jetzt − attempts.batch.max-age, jetzt] begrenzt und nur als Zeitpunkt des
+   * Versuchs gespeichert; Streak und Wochenrangliste zählen nach Serverzeit.
+   */
+  private Instant answeredAt;
+}
@@ -0,0 +1,43 @@
+package com.example.momolearn.dto;
+
+import lombok.*;
+
+/**
+ * Ergebnis eines einzelnen Versuchs aus einem Batch.
+ *
+ * Endpunkt: POST /users/{userId}/attempts
+ */
+@Getter
+@Setter
+@NoArgsConstructor       // Erzeugt einen parameterlosen Konstruktor
+@AllArgsConstructor      // Erzeugt einen Konstruktor mit allen Feldern
+@Builder                 // Erlaubt den Builder-Pattern-Aufbau für dieses Objekt
+public class AttemptBatchItemResult {
+
+  /** Position im Request (0-basiert). */
+  private int index;
+
+  /** ID der Frage aus dem Request. */
+  private String questionId;
+
+  /** RECORDED, QUESTION_NOT_FOUND oder INVALID (Eintrag fehlerhaft, nicht gezählt). */
+  private String status;
+
+  /** Fehlerbeschreibung (bei QUESTION_NOT_FOUND/INVALID). */
+  private String error;
+
+  /** Ob die Antwort richtig war (nur bei RECORDED). */
+  private boolean correct;
+
+  /** XP für diesen Versuch. */
+  private int xpAwarded;
+
+  /** XP des Nutzers nach diesem Versuch. */
+  private int newUserXp;
+
+  /** Level des Nutzers nach diesem Versuch. */
+  private int newUserLevel;
+
+  /** Streak des Nutzers nach diesem Versuch. */
+  private int streak;
+}
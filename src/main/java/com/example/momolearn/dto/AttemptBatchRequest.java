@@ -0,0 +1,22 @@
+package com.example.momolearn.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * DTO für mehrere Antwort-Versuche auf einmal (z. B. eine abgeschlossene Quizrunde).
+ *
+ * Wird vom Client an das Backend geschickt bei:
+ *   POST /users/{userId}/attempts
+ */
+@Getter
+@Setter
+public class AttemptBatchRequest {
+
+  /** Versuche in der Reihenfolge, in der sie beantwortet wurden. */
+  @NotEmpty
+  private List<AttemptBatchItem> items;
+}
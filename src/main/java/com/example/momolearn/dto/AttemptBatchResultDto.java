@@ -0,0 +1,39 @@
+package com.example.momolearn.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+/**
+ * Ergebnis eines Batches von Antwort-Versuchen inkl. Ergebnis pro Eintrag.
+ *
+ * Endpunkt: POST /users/{userId}/attempts
+ */
+@Getter
+@Setter
+@NoArgsConstructor       // Erzeugt einen parameterlosen Konstruktor
+@AllArgsConstructor      // Erzeugt einen Konstruktor mit allen Feldern
+@Builder                 // Erlaubt den Builder-Pattern-Aufbau für dieses Objekt
+public class AttemptBatchResultDto {
+
+  /** Gezählte Versuche. */
+  private int recorded;
+
+  /** Nicht gezählte Versuche (unbekannte Frage oder fehlerhafter Eintrag). */
+  private int rejected;
+
+  /** Summe der vergebenen XP. */
+  private int xpAwarded;
+
+  /** XP des Nutzers nach dem Batch. */
+  private int newUserXp;
+
+  /** Level des Nutzers nach dem Batch. */
+  private int newUserLevel;
+
+  /** Streak des Nutzers nach dem Batch. */
+  private int streak;
+
+  /** Ergebnis pro Eintrag, in Request-Reihenfolge. */
+  private List<AttemptBatchItemResult> results;
+}
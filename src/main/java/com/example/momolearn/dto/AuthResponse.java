@@ -29,7 +29,7 @@ public class AuthResponse {
   private String email;
 
   /** 
-   * Session- oder Authentifizierungstoken (opaque Bearer-Token),
+   * Session- oder Authentifizierungstoken (Bearer-Token, opaque oder signiert),
    * das vom Client für weitere Requests im "Authorization"-Header genutzt wird.
    */
   private String token;
@@ -0,0 +1,38 @@
+package com.example.momolearn.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+/**
+ * DTO für eine Rangliste.
+ *
+ * Wird als Antwort auf
+ *   GET /users/{userId}/leaderboard?scope=global|course|weekly
+ * zurückgegeben.
+ */
+@Getter
+@Setter
+@NoArgsConstructor       // Standard-Konstruktor
+@AllArgsConstructor      // Konstruktor mit allen Feldern
+@Builder                 // Builder-Pattern für einfachen, sauberen Objektaufbau
+public class LeaderboardDto {
+
+  /** Art der Rangliste: global, course oder weekly. */
+  private String scope;
+
+  /** Kurs (nur bei scope=course). */
+  private String courseId;
+
+  /** ISO-Woche, z. B. "2026-W42" (nur bei scope=weekly). */
+  private String week;
+
+  /** Anzahl der Nutzer auf der Rangliste. */
+  private int size;
+
+  /** Die besten Plätze. */
+  private List<LeaderboardEntryDto> top;
+
+  /** Platz des anfragenden Nutzers (null, wenn er noch keine XP auf dieser Rangliste hat). */
+  private LeaderboardEntryDto me;
+}
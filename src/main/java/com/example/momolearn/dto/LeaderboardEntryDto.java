@@ -0,0 +1,28 @@
+package com.example.momolearn.dto;
+
+import lombok.*;
+
+/**
+ * DTO für einen Platz auf einer Rangliste.
+ *
+ * Teil von {@link LeaderboardDto} (GET /users/{userId}/leaderboard).
+ */
+@Getter
+@Setter
+@NoArgsConstructor       // Standard-Konstruktor
+@AllArgsConstructor      // Konstruktor mit allen Feldern
+@Builder                 // Builder-Pattern für einfachen, sauberen Objektaufbau
+public class LeaderboardEntryDto {
+
+  /** Rang (1 = bester; gleiche Punktzahl ergibt gleichen Rang). */
+  private int rank;
+
+  /** ID des Nutzers. */
+  private String userId;
+
+  /** Anzeigename des Nutzers. */
+  private String name;
+
+  /** XP auf dieser Rangliste (gesamt, im Kurs bzw. in der Woche). */
+  private int xp;
+}
@@ -0,0 +1,33 @@
+package com.example.momolearn.dto;
+
+import java.util.List;
+
+import lombok.*;
+
+/**
+ * Zusammenfassung eines Massenimports von Benutzern inkl. Ergebnis pro Zeile.
+ *
+ * Endpunkt: POST /admin/users/import
+ */
+@Getter
+@Setter
+@NoArgsConstructor       // Erzeugt einen parameterlosen Konstruktor
+@AllArgsConstructor      // Erzeugt einen Konstruktor mit allen Feldern
+@Builder                 // Erlaubt den Builder-Pattern-Aufbau für dieses Objekt
+public class UserImportReport {
+
+  /** Neu angelegte Benutzer. */
+  private int created;
+
+  /** Zeilen mit bereits vergebener E-Mail. */
+  private int existing;
+
+  /** Fehlerhafte Zeilen. */
+  private int invalid;
+
+  /** Zeilen, die beim Speichern fehlschlugen. */
+  private int failed;
+
+  /** Ergebnis pro Zeile, in Dateireihenfolge. */
+  private List<UserImportResult> results;
+}
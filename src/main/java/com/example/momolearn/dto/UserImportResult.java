@@ -0,0 +1,31 @@
+package com.example.momolearn.dto;
+
+import lombok.*;
+
+/**
+ * Ergebnis einer einzelnen Zeile beim Massenimport von Benutzern.
+ *
+ * Endpunkt: POST /admin/users/import
+ */
+@Getter
+@Setter
+@NoArgsConstructor       // Erzeugt einen parameterlosen Konstruktor
+@AllArgsConstructor      // Erzeugt einen Konstruktor mit allen Feldern
+@Builder                 // Erlaubt den Builder-Pattern-Aufbau für dieses Objekt
+public class UserImportResult {
+
+  /** Zeilennummer in der hochgeladenen Datei (1-basiert, inkl. Kopfzeile bei CSV). */
+  private int line;
+
+  /** E-Mail aus der Zeile (normalisiert), falls lesbar. */
+  private String email;
+
+  /** CREATED, EXISTS (E-Mail schon vergeben), INVALID (Zeile fehlerhaft) oder FAILED (DB-Fehler). */
+  private String status;
+
+  /** ID des angelegten Benutzers (nur bei CREATED). */
+  private String userId;
+
+  /** Fehlerbeschreibung (bei INVALID/FAILED). */
+  private String error;
+}
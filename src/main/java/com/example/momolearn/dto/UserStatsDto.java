@@ -2,6 +2,8 @@ package com.example.momolearn.dto;
 
 import lombok.*;
 
+import java.util.Map;
+
 /**
  * DTO (Data Transfer Object) für die Gamification-Statistiken eines Benutzers.
  *
@@ -37,4 +39,24 @@ public class UserStatsDto {
    * Gesamtanzahl korrekt beantworteter Fragen.
    */
   private long correctAnswers;
+
+  /**
+   * Gesamtanzahl aller Antwortversuche.
+   */
+  private long totalAnswers;
+
+  /**
+   * Anteil richtiger Antworten (0.0–1.0).
+   */
+  private double accuracy;
+
+  /**
+   * Trefferquote pro Kurs (Schlüssel: courseId).
+   */
+  private Map<String, AccuracyDto> courses;
+
+  /**
+   * Trefferquote pro StudySet (Schlüssel: studySetId).
+   */
+  private Map<String, AccuracyDto> studySets;
 }
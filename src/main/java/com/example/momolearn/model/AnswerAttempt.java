@@ -2,6 +2,7 @@ package com.example.momolearn.model;
 
 import lombok.*;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.Instant;
@@ -12,6 +13,7 @@ import java.time.Instant;
  * Wird in der Collection "answer_attempts" gespeichert.
  */
 @Document("answer_attempts")
+@CompoundIndex(name = "user_createdAt", def = "{ 'userId': 1, 'createdAt': -1 }") // Verlauf pro Nutzer
 @Getter
 @Setter
 @NoArgsConstructor       // Parameterloser Konstruktor
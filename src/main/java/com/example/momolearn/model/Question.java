@@ -26,6 +26,13 @@ public class Question {
   /** Referenz auf das StudySet, zu dem diese Frage gehört. */
   private String studySetId;
 
+  /**
+   * Kurs des StudySets (denormalisiert), damit ein Antwortversuch ohne zusätzliche
+   * Abfrage dem Kurs zugeordnet werden kann. Bei älteren Fragen ggf. leer,
+   * wird vom {@link com.example.momolearn.service.UserStatsService}-Neuaufbau nachgetragen.
+   */
+  private String courseId;
+
   /** 
    * Der eigentliche Fragentext (z. B. "Was ist die Hauptstadt von Frankreich?").
    */
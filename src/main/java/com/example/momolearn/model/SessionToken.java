@@ -17,6 +17,11 @@ import lombok.Setter;
  *
  * Diese Tokens werden beim Login oder bei der Registrierung erstellt
  * und für authentifizierte API-Aufrufe als Bearer-Token genutzt.
+ *
+ * Der Token selbst wird nicht gespeichert, nur ein kurzer Hash davon als _id
+ * (SessionTokenCache.keyOf). Dadurch braucht die Collection keinen zusätzlichen
+ * Unique-Index, und ein DB-Auszug verrät keine gültigen Tokens.
+ * Abgelaufene Sessions löscht MongoDB per TTL-Index auf {@link #expiresAt}.
  */
 @Document("session_tokens")
 @Getter
@@ -26,17 +31,10 @@ import lombok.Setter;
 @Builder                 // Builder-Pattern für bequemen Objektaufbau
 public class SessionToken {
 
-  /** Eindeutige ID des Tokens (wird von MongoDB generiert). */
+  /** Session-Schlüssel: Base64url der ersten 16 Bytes von SHA-256(Token). */
   @Id
   private String id;
 
-  /** 
-   * Der eigentliche Token-String, der an den Client ausgegeben wird.
-   * Ist eindeutig und in der Datenbank unique indiziert.
-   */
-  @Indexed(unique = true)
-  private String token;
-
   /** 
    * ID des Benutzers, zu dem dieser Token gehört.
    * Indexed für schnelle Suche nach allen Tokens eines Nutzers.
@@ -47,6 +45,7 @@ public class SessionToken {
   /** Zeitpunkt, wann der Token erstellt wurde. */
   private Instant createdAt;
 
-  /** Ablaufdatum des Tokens (z. B. 7 Tage nach Erstellung). */
+  /** Ablaufdatum des Tokens (z. B. 7 Tage nach Erstellung); danach löscht der TTL-Index. */
+  @Indexed(expireAfter = "0s")
   private Instant expiresAt;
 }
@@ -43,6 +43,18 @@ public class StudySet {
    */
   private String uploadId;
 
+  /**
+   * Optionaler Seitenbereich im Upload (1-basiert, inklusive).
+   * Ist er gesetzt, wird bei der Generierung nur dieser Bereich gelesen.
+   */
+  private Integer pageFrom;
+
+  /** Letzte Seite des Bereichs (inklusive), siehe pageFrom. */
+  private Integer pageTo;
+
+  /** Titel des Abschnitts aus dem Upload-Index, falls das Set auf einen Abschnitt zeigt. */
+  private String sectionTitle;
+
   /**
    * Status des Sets:
    *  - PENDING: Die KI-Generierung läuft noch.
@@ -0,0 +1,48 @@
+package com.example.momolearn.model;
+
+import java.time.Instant;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * MongoDB-Dokument, das einen widerrufenen Session-Token an alle Instanzen meldet.
+ *
+ * Jede Instanz hält gültige Tokens kurzzeitig im Speicher (SessionTokenCache).
+ * Beim Logout wird hier ein Eintrag angelegt; alle Instanzen fragen neue Einträge
+ * regelmäßig ab und entfernen den Token aus ihrem Cache.
+ * Signierte Tokens werden über ihre jti widerrufen (RevocationFilter).
+ * Einträge werden per TTL-Index gelöscht, sobald kein Cache-Eintrag bzw. kein
+ * gültiges signiertes Token mehr davon betroffen sein kann.
+ */
+@Document("token_revocations")
+@Getter
+@Setter
+@NoArgsConstructor       // Standard-Konstruktor
+@AllArgsConstructor      // Konstruktor mit allen Feldern
+@Builder                 // Builder-Pattern für bequemen Objektaufbau
+public class TokenRevocation {
+
+  /** Eindeutige ID des Eintrags (wird von MongoDB generiert). */
+  @Id
+  private String id;
+
+  /** Session-Schlüssel (opaque), jti eines signierten Tokens oder "user:<userId>" (alle Tokens des Nutzers). */
+  @Indexed
+  private String token;
+
+  /** Zeitpunkt des Widerrufs; danach wird beim Abgleich gesucht. */
+  @Indexed
+  private Instant revokedAt;
+
+  /** Ab hier wird der Eintrag nicht mehr gebraucht (TTL-Index). */
+  @Indexed(expireAfter = "0s")
+  private Instant expiresAt;
+}
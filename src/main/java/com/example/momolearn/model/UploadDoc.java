@@ -38,8 +38,17 @@ public class UploadDoc {
   /** Größe der Datei in Bytes. */
   private long size;
 
+  /** SHA-256 des Inhalts (Hex), beim Upload inline berechnet; bei Alt-Uploads null. */
+  private String sha256;
+
+  /**
+   * Speicher-Backend des Inhalts ("gridfs" oder "filesystem").
+   * Fehlt bei Uploads aus der Zeit vor den Backends, diese liegen in GridFS.
+   */
+  private String storage;
+
   /**
-   * ID des gespeicherten Inhalts in GridFS (MongoDB-Dateispeicher).
+   * ID des gespeicherten Inhalts im Backend (GridFS: ObjectId, Dateisystem: SHA-256).
    * Dient zur Verknüpfung der Metadaten mit der eigentlichen Datei.
    */
   private String storageId;
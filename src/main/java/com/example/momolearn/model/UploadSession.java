@@ -0,0 +1,73 @@
+package com.example.momolearn.model;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * MongoDB-Dokument für einen laufenden, fortsetzbaren Upload (ähnlich tus).
+ *
+ * Der Client sendet die Datei in beliebig großen Stücken an fortlaufenden Offsets.
+ * Vollständige GridFS-Chunks werden sofort in "fs.chunks" geschrieben (unter der
+ * bereits reservierten files_id); nur der Rest, der noch keinen ganzen Chunk füllt,
+ * liegt hier im Feld {@link #tail}. Nach dem letzten Byte wird der Eintrag in
+ * "fs.files" angelegt und ein normales UploadDoc erzeugt.
+ *
+ * Ein PATCH beansprucht die Session vor dem ersten Chunk über {@link #lockToken}; so
+ * schreiben nie zwei Requests gleichzeitig an dieselben Chunk-Nummern.
+ *
+ * Nicht abgeschlossene Sessions verfallen per TTL-Index auf {@link #expiresAt}.
+ */
+@Document("upload_sessions")
+@Getter
+@Setter
+@NoArgsConstructor       // Standard-Konstruktor
+@AllArgsConstructor      // Konstruktor mit allen Feldern
+@Builder                 // Builder-Pattern für einfache Objekterstellung
+public class UploadSession {
+
+  /** Eindeutige ID der Session (MongoDB generiert). */
+  @Id
+  private String id;
+
+  /** ID des Benutzers, dem der Upload gehört. */
+  @Indexed
+  private String userId;
+
+  /** Dateiname des späteren Uploads. */
+  private String filename;
+
+  /** Angekündigte Gesamtgröße in Bytes (Upload-Length). */
+  private long length;
+
+  /** Anzahl der bereits angenommenen Bytes (Upload-Offset). */
+  private long offset;
+
+  /** Reservierte GridFS-Datei-ID (Hex), unter der die Chunks gespeichert werden. */
+  private String filesId;
+
+  /** GridFS-Chunkgröße in Bytes. */
+  private int chunkSize;
+
+  /** Nummer des nächsten zu schreibenden GridFS-Chunks. */
+  private int nextChunk;
+
+  /** Angenommene Bytes, die noch keinen vollständigen Chunk ergeben. */
+  private byte[] tail;
+
+  /** Token des PATCH, der gerade schreibt (null = frei). */
+  private String lockToken;
+
+  /** Ablauf der Beanspruchung; danach gilt sie als verwaist (z. B. abgestürzte Instanz). */
+  private Instant lockedUntil;
+
+  /** Zeitpunkt, wann die Session angelegt wurde. */
+  private Instant createdAt;
+
+  /** Ablaufzeitpunkt; wird bei jedem PATCH verlängert. */
+  @Indexed(expireAfter = "0s")
+  private Instant expiresAt;
+}
@@ -0,0 +1,101 @@
+package com.example.momolearn.model;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * MongoDB-Dokument mit dem Struktur-Index eines hochgeladenen PDFs.
+ *
+ * Wird in der Collection "upload_indexes" gespeichert, genau ein Dokument pro UploadDoc
+ * (die ID ist die ID des Uploads). Der Index enthält:
+ *  - Seitengrenzen als Zeichen-Offsets im bereinigten Gesamttext
+ *  - erkannte Überschriften (per Schriftgrößen-Heuristik) als Abschnitte
+ *
+ * Damit können StudySets gezielt auf "Kapitel 3" oder "Seiten 40–55" zeigen,
+ * ohne dass bei jeder Generierung das ganze Dokument verarbeitet wird.
+ */
+@Document("upload_indexes")
+@Getter
+@Setter
+@NoArgsConstructor       // Standard-Konstruktor
+@AllArgsConstructor      // Konstruktor mit allen Feldern
+@Builder                 // Builder-Pattern für einfache Objekterstellung
+public class UploadTextIndex {
+
+  /** ID des zugehörigen UploadDoc. */
+  @Id
+  private String id;
+
+  /** Inhalts-Hash des PDFs; erlaubt die Wiederverwendung des Index für identische Uploads. */
+  @Indexed(sparse = true)
+  private String sha256;
+
+  /** Anzahl der Seiten im Dokument. */
+  private int pageCount;
+
+  /** Länge des bereinigten Gesamttexts in Zeichen. */
+  private int textLength;
+
+  /** Zeichenbereich jeder Seite im bereinigten Gesamttext. */
+  private List<PageSpan> pages;
+
+  /** Erkannte Abschnitte (Überschriften) in Dokumentreihenfolge. */
+  private List<Section> sections;
+
+  /** Zeitpunkt, wann der Index erstellt wurde. */
+  private Instant builtAt;
+
+  /** Zeichenbereich einer Seite. */
+  @Getter
+  @Setter
+  @NoArgsConstructor
+  @AllArgsConstructor
+  public static class PageSpan {
+
+    /** Seitennummer (1-basiert). */
+    private int page;
+
+    /** Start-Offset (inklusive) im bereinigten Text. */
+    private int start;
+
+    /** End-Offset (exklusive) im bereinigten Text. */
+    private int end;
+  }
+
+  /**
+   * Ein Abschnitt beginnt bei einer Überschrift und reicht bis zur nächsten
+   * Überschrift gleicher oder höherer Ebene.
+   */
+  @Getter
+  @Setter
+  @NoArgsConstructor
+  @AllArgsConstructor
+  public static class Section {
+
+    /** Laufende Nummer des Abschnitts (0-basiert), wird bei der Set-Erstellung referenziert. */
+    private int index;
+
+    /** Text der Überschrift. */
+    private String title;
+
+    /** Ebene der Überschrift (1 = größte Schrift). */
+    private int level;
+
+    /** Erste Seite des Abschnitts. */
+    private int fromPage;
+
+    /** Letzte Seite des Abschnitts. */
+    private int toPage;
+
+    /** Start-Offset (inklusive) im bereinigten Text. */
+    private int start;
+
+    /** End-Offset (exklusive) im bereinigten Text. */
+    private int end;
+  }
+}
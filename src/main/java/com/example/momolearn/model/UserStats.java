@@ -0,0 +1,54 @@
+package com.example.momolearn.model;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Laufend mitgezählte Antwort-Statistiken eines Nutzers.
+ *
+ * Wird in der Collection "user_stats" gespeichert; die ID ist die ID des Nutzers.
+ * Jeder Antwortversuch erhöht die Zähler per $inc, sodass GET /users/{userId}/stats
+ * nicht mehr über answer_attempts zählen muss. Der {@code UserStatsService} kann die
+ * Zähler jederzeit aus answer_attempts neu aufbauen.
+ */
+@Document("user_stats")
+@Getter
+@Setter
+@NoArgsConstructor       // Parameterloser Konstruktor
+@AllArgsConstructor      // Konstruktor mit allen Feldern
+@Builder                 // Builder-Pattern für einfaches Erstellen von Objekten
+public class UserStats {
+
+  /** ID des Nutzers. */
+  @Id
+  private String id;
+
+  /** Anzahl aller Antwortversuche. */
+  private long total;
+
+  /** Anzahl richtiger Antworten. */
+  private long correct;
+
+  /** Zähler pro Kurs (Schlüssel: courseId). */
+  private Map<String, Counter> courses;
+
+  /** Zähler pro StudySet (Schlüssel: studySetId). */
+  private Map<String, Counter> sets;
+
+  /** Zeitpunkt der letzten Änderung. */
+  private Instant updatedAt;
+
+  /** Versuche und davon richtige für einen Kurs bzw. ein Set. */
+  @Getter
+  @Setter
+  @NoArgsConstructor
+  @AllArgsConstructor
+  public static class Counter {
+    private long total;
+    private long correct;
+  }
+}
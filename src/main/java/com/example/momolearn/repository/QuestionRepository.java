@@ -2,9 +2,11 @@ package com.example.momolearn.repository;
 
 import com.example.momolearn.model.Question;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 
 import java.util.List;
 import java.util.Collection;
+import java.util.Optional;
 
 /**
  * Repository-Interface für die MongoDB-Collection "questions".
@@ -36,4 +38,22 @@ public interface QuestionRepository extends MongoRepository<Question, String> {
      * @param setIds Liste mit IDs mehrerer StudySets
      */
     void deleteAllByStudySetIdIn(Collection<String> setIds);
+
+    /**
+     * Lädt nur, was für die Auswertung eines Versuchs nötig ist.
+     *
+     * @param id ID der Frage
+     * @return Frage mit gefüllten Feldern id, correctIndex, studySetId und courseId
+     */
+    @Query(value = "{ '_id': ?0 }", fields = "{ 'correctIndex': 1, 'studySetId': 1, 'courseId': 1 }")
+    Optional<Question> findCorrectIndexById(String id);
+
+    /**
+     * Wie {@link #findCorrectIndexById}, aber für viele Fragen in einer Abfrage (Batch von Versuchen).
+     *
+     * @param ids IDs der Fragen
+     * @return gefundene Fragen mit gefüllten Feldern id, correctIndex, studySetId und courseId
+     */
+    @Query(value = "{ '_id': { '$in': ?0 } }", fields = "{ 'correctIndex': 1, 'studySetId': 1, 'courseId': 1 }")
+    List<Question> findAnswerKeysByIdIn(Collection<String> ids);
 }
@@ -1,6 +1,6 @@
 package com.example.momolearn.repository;
 
-import java.util.Optional;
+import java.util.List;
 
 import org.springframework.data.mongodb.repository.MongoRepository;
 
@@ -11,21 +11,15 @@ import com.example.momolearn.model.SessionToken;
  *
  * Ermöglicht Standard-CRUD-Operationen und spezielle Abfragen für Session-Tokens,
  * die bei Authentifizierung und Autorisierung genutzt werden.
+ * Gesucht wird über den Session-Schlüssel (ID), siehe SessionTokenCache.keyOf.
  */
 public interface SessionTokenRepository extends MongoRepository<SessionToken, String> {
 
   /**
-   * Sucht einen Session-Token anhand des Token-Strings.
+   * Liefert alle Sessions eines Nutzers, neueste zuerst.
    *
-   * @param token Der eindeutige Token-String (z. B. Bearer-Token)
-   * @return Optional mit dem gefundenen SessionToken, falls vorhanden
+   * @param userId ID des Benutzers
+   * @return Sessions (nur ID und createdAt sind relevant)
    */
-  Optional<SessionToken> findByToken(String token);
-
-  /**
-   * Löscht einen Session-Token anhand des Token-Strings.
-   *
-   * @param token Der eindeutige Token-String
-   */
-  void deleteByToken(String token);
+  List<SessionToken> findByUserIdOrderByCreatedAtDesc(String userId);
 }
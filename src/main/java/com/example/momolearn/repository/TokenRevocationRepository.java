@@ -0,0 +1,38 @@
+package com.example.momolearn.repository;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import com.example.momolearn.model.TokenRevocation;
+
+/**
+ * Repository-Interface für die MongoDB-Collection "token_revocations".
+ */
+public interface TokenRevocationRepository extends MongoRepository<TokenRevocation, String> {
+
+  /**
+   * Liefert alle Widerrufe ab einem Zeitpunkt, älteste zuerst.
+   *
+   * @param since Zeitpunkt des letzten Abgleichs (exklusiv)
+   * @return neue Widerrufe
+   */
+  List<TokenRevocation> findByRevokedAtAfterOrderByRevokedAtAsc(Instant since);
+
+  /**
+   * Liefert alle noch nicht abgelaufenen Widerrufe (Neuaufbau des Bloom-Filters).
+   *
+   * @param now aktueller Zeitpunkt
+   * @return Widerrufe mit expiresAt nach {@code now}
+   */
+  List<TokenRevocation> findByExpiresAtAfter(Instant now);
+
+  /**
+   * Prüft, ob ein Token bzw. eine jti widerrufen wurde (exakte Bestätigung).
+   *
+   * @param token Token-String bzw. jti
+   * @return true, falls ein Widerruf existiert
+   */
+  boolean existsByToken(String token);
+}
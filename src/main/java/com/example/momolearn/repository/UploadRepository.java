@@ -3,19 +3,28 @@ package com.example.momolearn.repository;
 import com.example.momolearn.model.UploadDoc;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
+import java.util.List;
+
 /**
  * Repository-Interface für die MongoDB-Collection "uploads".
  *
  * Stellt Standard-CRUD-Operationen für Upload-Dokumente zur Verfügung.
- * 
- * Da keine zusätzlichen Methoden definiert sind, können die
- * generischen Methoden von MongoRepository verwendet werden:
+ *
+ * Neben den generischen Methoden von MongoRepository:
  * - save()
  * - findById()
  * - findAll()
  * - deleteById()
  * - count()
+ * gibt es eine Suche nach allen Uploads eines Benutzers.
  */
 public interface UploadRepository extends MongoRepository<UploadDoc, String> {
-    // Keine zusätzlichen Methoden erforderlich – MongoRepository stellt alles Nötige bereit.
+
+    /**
+     * Findet alle Uploads eines Benutzers.
+     *
+     * @param userId ID des Benutzers
+     * @return Liste der Uploads
+     */
+    List<UploadDoc> findByUserId(String userId);
 }
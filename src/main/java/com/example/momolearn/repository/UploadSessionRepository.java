@@ -0,0 +1,10 @@
+package com.example.momolearn.repository;
+
+import com.example.momolearn.model.UploadSession;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+/**
+ * Repository-Interface für die MongoDB-Collection "upload_sessions" (fortsetzbare Uploads).
+ */
+public interface UploadSessionRepository extends MongoRepository<UploadSession, String> {
+}
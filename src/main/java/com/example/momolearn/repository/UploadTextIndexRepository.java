@@ -0,0 +1,18 @@
+package com.example.momolearn.repository;
+
+import com.example.momolearn.model.UploadTextIndex;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import java.util.Optional;
+
+/**
+ * Repository-Interface für die MongoDB-Collection "upload_indexes".
+ *
+ * Die ID eines Index entspricht der ID des Uploads, daher reichen
+ * meist die Standard-Methoden (findById, save, deleteById) von MongoRepository.
+ */
+public interface UploadTextIndexRepository extends MongoRepository<UploadTextIndex, String> {
+
+  /** Index eines inhaltsgleichen Uploads (gleicher SHA-256), falls schon einer existiert. */
+  Optional<UploadTextIndex> findFirstBySha256(String sha256);
+}
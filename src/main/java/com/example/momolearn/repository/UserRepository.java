@@ -2,6 +2,10 @@ package com.example.momolearn.repository;
 
 import com.example.momolearn.model.User;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.Update;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -23,4 +27,27 @@ public interface UserRepository extends MongoRepository<User, String> {
    * - Login (Benutzer anhand E-Mail laden)
    */
   Optional<User> findByEmail(String email);
+
+  /**
+   * Ersetzt den Passwort-Hash, aber nur, wenn noch der alte gespeichert ist
+   * (Rehash beim Login; überschreibt keine parallele Passwortänderung und keine anderen Felder).
+   *
+   * @param id      ID des Benutzers
+   * @param oldHash bisher gespeicherter Hash
+   * @param newHash neuer Hash
+   * @return Anzahl geänderter Dokumente (0 oder 1)
+   */
+  @Query("{ '_id': ?0, 'passwordHash': ?1 }")
+  @Update("{ '$set': { 'passwordHash': ?2 } }")
+  long updatePasswordHash(String id, String oldHash, String newHash);
+
+  /**
+   * Sucht alle Benutzer zu einer Menge von E-Mail-Adressen mit einer $in-Abfrage
+   * (Massenimport). Geladen wird nur die E-Mail.
+   *
+   * @param emails normalisierte E-Mail-Adressen
+   * @return vorhandene Benutzer (nur id und email gefüllt)
+   */
+  @Query(value = "{ 'email': { '$in': ?0 } }", fields = "{ 'email': 1 }")
+  List<User> findEmailsIn(Collection<String> emails);
 }
@@ -1,15 +1,13 @@
 package com.example.momolearn.security;
 
-import java.time.Instant;
-import java.util.Optional;
+import java.util.Map;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
 import org.springframework.web.servlet.HandlerInterceptor;
-
-import com.example.momolearn.model.SessionToken;
-import com.example.momolearn.repository.SessionTokenRepository;
+import org.springframework.web.servlet.HandlerMapping;
 
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
@@ -22,13 +20,16 @@ import jakarta.servlet.http.HttpServletResponse;
  * 2. Ob der Token nicht abgelaufen ist.
  * 3. Ob der Nutzer nur auf seine eigenen Ressourcen zugreift
  *    (Ownership-Check für /users/{userId}/...-Routen).
+ *
+ * Das Ergebnis wird als {@link AuthPrincipal} am Request abgelegt.
  */
 @Component
 public class AuthInterceptor implements HandlerInterceptor {
 
-  private final SessionTokenRepository tokens;
+  // Prüft signierte Tokens rein auf der CPU, opaque Tokens über den In-Memory-Cache
+  private final TokenService tokens;
 
-  public AuthInterceptor(SessionTokenRepository tokens) {
+  public AuthInterceptor(TokenService tokens) {
     this.tokens = tokens;
   }
 
@@ -39,28 +40,33 @@ public class AuthInterceptor implements HandlerInterceptor {
       return true;
     }
 
-    // ✅ 2) Authentifizierung prüfen
-    String auth = request.getHeader("Authorization");
-    String token = parseBearer(auth);
+    // Schon geprüft (z. B. erneuter Durchlauf beim asynchronen Dispatch)
+    AuthPrincipal principal = (AuthPrincipal) request.getAttribute(AuthPrincipal.ATTRIBUTE);
+    if (principal == null) {
+      // ✅ 2) Authentifizierung prüfen
+      String token = AuthPrincipal.parseBearer(request.getHeader(HttpHeaders.AUTHORIZATION));
 
-    // Wenn kein Bearer-Token im Header, sofort 401 (Unauthorized)
-    if (token == null) {
-      response.sendError(HttpStatus.UNAUTHORIZED.value(), "Authorization Bearer Token fehlt");
-      return false;
-    }
+      // Wenn kein Bearer-Token im Header, sofort 401 (Unauthorized)
+      if (token == null) {
+        response.sendError(HttpStatus.UNAUTHORIZED.value(), "Authorization Bearer Token fehlt");
+        return false;
+      }
 
-    // Token in der DB suchen
-    Optional<SessionToken> opt = tokens.findByToken(token);
-    if (opt.isEmpty() || isExpired(opt.get())) {
-      response.sendError(HttpStatus.UNAUTHORIZED.value(), "Token ungültig/abgelaufen");
-      return false;
+      // Token prüfen (Signatur bzw. Cache, bei Miss DB); null = unbekannt, abgelaufen oder widerrufen
+      principal = tokens.resolve(token);
+      if (principal == null) {
+        response.sendError(HttpStatus.UNAUTHORIZED.value(), "Token ungültig/abgelaufen");
+        return false;
+      }
+      // Für Controller ablegen (AuthPrincipalArgumentResolver), damit niemand erneut prüfen muss
+      request.setAttribute(AuthPrincipal.ATTRIBUTE, principal);
     }
 
-    // ✅ 3) Ownership-Check: 
-    // Prüft, ob in der URL ein userId-Segment ist (z. B. /users/{userId}/...)
-    // und ob diese ID mit der ID aus dem Token übereinstimmt.
-    String pathUserId = extractUserIdFromPath(request.getRequestURI());
-    if (pathUserId != null && !pathUserId.equals(opt.get().getUserId())) {
+    // ✅ 3) Ownership-Check:
+    // {userId} aus dem gematchten URI-Template (z. B. /users/{userId}/...) muss
+    // mit der ID aus dem Token übereinstimmen.
+    String pathUserId = pathUserId(request);
+    if (pathUserId != null && !pathUserId.equals(principal.userId())) {
       response.sendError(HttpStatus.FORBIDDEN.value(), "Zugriff auf fremde Ressourcen verboten");
       return false;
     }
@@ -70,36 +76,11 @@ public class AuthInterceptor implements HandlerInterceptor {
   }
 
   /**
-   * Prüft, ob der Token abgelaufen ist.
+   * Liest die userId aus den URI-Template-Variablen, die Spring beim Mapping schon ermittelt hat.
    */
-  private boolean isExpired(SessionToken st) {
-    return st.getExpiresAt() != null && st.getExpiresAt().isBefore(Instant.now());
-  }
-
-  /**
-   * Extrahiert den Token-String aus dem "Authorization"-Header.
-   * Erwartetes Format: "Bearer <token>"
-   */
-  private String parseBearer(String header) {
-    if (header == null) return null;
-    String p = header.trim();
-    if (p.toLowerCase().startsWith("bearer ")) return p.substring(7).trim();
-    return null;
-  }
-
-  /**
-   * Liest aus der URL den userId-Teil, wenn sie wie /users/{userId}/... aufgebaut ist.
-   * Beispiel:
-   *   /api/users/123/courses -> gibt "123" zurück
-   */
-  private String extractUserIdFromPath(String uri) {
-    if (uri == null) return null;
-    String[] parts = uri.split("/");
-    for (int i = 0; i < parts.length; i++) {
-      if ("users".equals(parts[i]) && i + 1 < parts.length) {
-        return parts[i + 1];
-      }
-    }
-    return null;
+  @SuppressWarnings("unchecked")
+  private static String pathUserId(HttpServletRequest request) {
+    Object vars = request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+    return (vars instanceof Map<?, ?> m) ? ((Map<String, String>) m).get("userId") : null;
   }
 }
@@ -0,0 +1,38 @@
+package com.example.momolearn.security;
+
+import java.time.Instant;
+
+/**
+ * Angemeldeter Nutzer eines Requests.
+ *
+ * Wird einmal pro Request vom AuthInterceptor ermittelt und als Request-Attribut
+ * abgelegt; Controller bekommen ihn als Parameter (AuthPrincipalArgumentResolver),
+ * statt Header und Token selbst noch einmal zu prüfen.
+ *
+ * @param userId    ID des Benutzers
+ * @param signed    true bei signiertem Token, false bei opaque Session
+ * @param expiresAt Ablauf des Tokens
+ */
+public record AuthPrincipal(String userId, boolean signed, Instant expiresAt) {
+
+  /** Name des Request-Attributs. */
+  public static final String ATTRIBUTE = AuthPrincipal.class.getName();
+
+  /**
+   * Extrahiert den Token aus einem "Authorization: Bearer <token>"-Header
+   * (Schema ohne Groß-/Kleinschreibung, ohne Zwischenstrings für den Vergleich).
+   *
+   * @return Token oder null, wenn der Header fehlt oder ein anderes Schema hat
+   */
+  public static String parseBearer(String header) {
+    if (header == null) return null;
+    int start = 0;
+    int end = header.length();
+    while (start < end && header.charAt(start) <= ' ') start++;
+    if (!header.regionMatches(true, start, "Bearer ", 0, 7)) return null;
+    start += 7;
+    while (start < end && header.charAt(start) <= ' ') start++;
+    while (end > start && header.charAt(end - 1) <= ' ') end--;
+    return (start == end) ? null : header.substring(start, end);
+  }
+}
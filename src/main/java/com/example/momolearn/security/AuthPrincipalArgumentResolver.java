@@ -0,0 +1,46 @@
+package com.example.momolearn.security;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Stellt Controller-Parametern vom Typ {@link AuthPrincipal} den angemeldeten Nutzer bereit.
+ *
+ * Auf /users/**-Routen hat der AuthInterceptor den Principal bereits abgelegt. Auf Routen
+ * ohne Interceptor (z. B. /auth/me) wird das Token hier einmal geprüft und ebenfalls am
+ * Request abgelegt. Ohne gültiges Token: 401.
+ */
+@Component
+public class AuthPrincipalArgumentResolver implements HandlerMethodArgumentResolver {
+
+  private final TokenService tokens;
+
+  public AuthPrincipalArgumentResolver(TokenService tokens) {
+    this.tokens = tokens;
+  }
+
+  @Override
+  public boolean supportsParameter(MethodParameter parameter) {
+    return AuthPrincipal.class.equals(parameter.getParameterType());
+  }
+
+  @Override
+  public Object resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+                                NativeWebRequest request, WebDataBinderFactory binderFactory) {
+    Object cached = request.getAttribute(AuthPrincipal.ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+    if (cached instanceof AuthPrincipal p) return p;
+
+    AuthPrincipal p = tokens.resolve(AuthPrincipal.parseBearer(request.getHeader(HttpHeaders.AUTHORIZATION)));
+    if (p == null) throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Kein gültiger Token");
+    request.setAttribute(AuthPrincipal.ATTRIBUTE, p, RequestAttributes.SCOPE_REQUEST);
+    return p;
+  }
+}
@@ -0,0 +1,211 @@
+package com.example.momolearn.security;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCrypt;
+import org.springframework.stereotype.Service;
+
+import com.example.momolearn.service.ServiceOverloadedException;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * BCrypt-Hashing auf einem eigenen, begrenzten Thread-Pool.
+ *
+ * Hashen kostet bewusst viel CPU (ca. {@code auth.bcrypt.target-ms} pro Aufruf). Damit ein
+ * Login-Ansturm nicht alle Tomcat-Threads blockiert, laufen Hash und Prüfung hier; der
+ * Request-Thread wird sofort frei (Controller geben CompletableFuture zurück).
+ * Ist auch die Warteschlange voll, wird mit 503 + Retry-After abgelehnt statt alles zu verlangsamen.
+ *
+ * Der Kostenfaktor wird beim Start so kalibriert, dass ein Hash auf dieser Maschine etwa
+ * die Zielzeit braucht (oder fest über {@code auth.bcrypt.cost} vorgegeben). Hashes mit
+ * anderem Kostenfaktor werden beim nächsten erfolgreichen Login neu berechnet.
+ */
+@Service
+public class PasswordHasher {
+
+  private static final Logger log = LoggerFactory.getLogger(PasswordHasher.class);
+
+  // Grenzen, die BCrypt erlaubt bzw. die noch sinnvoll sind
+  private static final int MIN_COST = 10;
+  private static final int MAX_COST = 16;
+
+  /** BCrypt verarbeitet höchstens 72 Bytes; längere Passwörter lehnt {@link BCrypt#hashpw} ab. */
+  public static final int MAX_PASSWORD_BYTES = 72;
+
+  /** Ergebnis einer Prüfung; {@code upgradedHash} ist gesetzt, wenn neu gehasht wurde. */
+  public record Verification(boolean matches, String upgradedHash) {
+  }
+
+  private final ThreadPoolExecutor executor;
+  private final int threads;
+  private final long retryAfterSeconds;
+  private final int cost;
+
+  /**
+   * Konfiguration (application.properties):
+   * - auth.bcrypt.threads: Hash-Threads (0 = Anzahl CPU-Kerne)
+   * - auth.bcrypt.queue-capacity: wartende Aufträge, darüber 503
+   * - auth.bcrypt.cost: fester Kostenfaktor (0 = beim Start kalibrieren)
+   * - auth.bcrypt.target-ms: Zielzeit pro Hash für die Kalibrierung
+   * - auth.bcrypt.retry-after-seconds: Retry-After bei Überlast
+   */
+  public PasswordHasher(@Value("${auth.bcrypt.threads:0}") int threads,
+                        @Value("${auth.bcrypt.queue-capacity:200}") int queueCapacity,
+                        @Value("${auth.bcrypt.cost:0}") int cost,
+                        @Value("${auth.bcrypt.target-ms:250}") long targetMs,
+                        @Value("${auth.bcrypt.retry-after-seconds:2}") long retryAfterSeconds) {
+    int n = (threads > 0) ? threads : Runtime.getRuntime().availableProcessors();
+    this.threads = n;
+    AtomicInteger seq = new AtomicInteger();
+    this.executor = new ThreadPoolExecutor(n, n, 0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+        r -> {
+          Thread t = new Thread(r, "bcrypt-" + seq.incrementAndGet());
+          t.setDaemon(true);
+          return t;
+        },
+        new ThreadPoolExecutor.AbortPolicy());
+    this.retryAfterSeconds = retryAfterSeconds;
+    this.cost = (cost > 0) ? Math.min(MAX_COST, Math.max(MIN_COST, cost)) : calibrate(targetMs);
+    log.info("Password hasher: threads={}, queue={}, bcrypt cost={}", n, queueCapacity, this.cost);
+  }
+
+  /** Aktueller Kostenfaktor für neue Hashes. */
+  public int getCost() {
+    return cost;
+  }
+
+  /** Ob das Passwort (UTF-8) länger ist, als BCrypt verarbeiten kann. */
+  public static boolean isTooLong(String raw) {
+    return raw != null && raw.getBytes(StandardCharsets.UTF_8).length > MAX_PASSWORD_BYTES;
+  }
+
+  /**
+   * Hasht ein Passwort mit dem aktuellen Kostenfaktor.
+   *
+   * @param raw Klartext-Passwort
+   * @return Future mit dem BCrypt-Hash; schlägt mit ServiceOverloadedException fehl, wenn die Warteschlange voll ist
+   */
+  public CompletableFuture<String> hash(String raw) {
+    return submit(() -> BCrypt.hashpw(raw, BCrypt.gensalt(cost)));
+  }
+
+  /**
+   * Prüft ein Passwort gegen einen gespeicherten Hash. Passt es und wurde der Hash mit
+   * einem anderen Kostenfaktor erzeugt, wird im selben Auftrag ein neuer Hash berechnet.
+   *
+   * @param raw    Klartext-Passwort
+   * @param stored gespeicherter BCrypt-Hash (null = kein Passwort gesetzt)
+   * @return Future mit dem Prüfergebnis
+   */
+  public CompletableFuture<Verification> verify(String raw, String stored) {
+    if (stored == null) return CompletableFuture.completedFuture(new Verification(false, null));
+    return submit(() -> {
+      boolean ok;
+      try {
+        ok = BCrypt.checkpw(raw, stored);
+      } catch (IllegalArgumentException e) {
+        ok = false; // kein gültiger BCrypt-Hash
+      }
+      if (!ok) return new Verification(false, null);
+      String upgraded = (costOf(stored) != cost) ? BCrypt.hashpw(raw, BCrypt.gensalt(cost)) : null;
+      return new Verification(true, upgraded);
+    });
+  }
+
+  /**
+   * Hasht viele Passwörter parallel (Massenimport). Es sind höchstens so viele Aufträge
+   * gleichzeitig unterwegs, wie der Pool Threads hat; die Warteschlange bleibt so für
+   * Logins frei. Blockiert, bis alle Hashes berechnet sind.
+   *
+   * Fehler betreffen nur ihre Zeile (z. B. Passwort über {@value #MAX_PASSWORD_BYTES} Bytes
+   * oder voller Pool): dort steht null, die übrigen Hashes werden trotzdem geliefert.
+   *
+   * @param raws Klartext-Passwörter
+   * @return Hashes in derselben Reihenfolge, null für fehlgeschlagene Einträge
+   */
+  public List<String> hashAll(List<String> raws) {
+    Semaphore window = new Semaphore(threads);
+    List<CompletableFuture<String>> futures = new ArrayList<>(raws.size());
+    try {
+      for (String raw : raws) {
+        window.acquire();
+        CompletableFuture<String> f = submit(() -> BCrypt.hashpw(raw, BCrypt.gensalt(cost)));
+        f.whenComplete((r, e) -> window.release());
+        futures.add(f);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while hashing passwords", e);
+    }
+
+    List<String> hashes = new ArrayList<>(futures.size());
+    for (int i = 0; i < futures.size(); i++) {
+      try {
+        hashes.add(futures.get(i).join());
+      } catch (CompletionException e) {
+        Throwable cause = (e.getCause() != null) ? e.getCause() : e;
+        log.warn("Hashing password {} of {} failed: {}", i + 1, futures.size(), cause.getMessage());
+        hashes.add(null);
+      }
+    }
+    return hashes;
+  }
+
+  @PreDestroy
+  void shutdown() {
+    executor.shutdownNow();
+  }
+
+  private <T> CompletableFuture<T> submit(Supplier<T> task) {
+    try {
+      return CompletableFuture.supplyAsync(task, executor);
+    } catch (RejectedExecutionException e) {
+      return CompletableFuture.failedFuture(
+          new ServiceOverloadedException("Zu viele Anmeldungen gleichzeitig, bitte kurz warten", retryAfterSeconds));
+    }
+  }
+
+  /** Kostenfaktor aus einem Hash der Form $2a$10$... (-1, wenn nicht lesbar). */
+  private static int costOf(String hash) {
+    try {
+      return Integer.parseInt(hash.substring(4, 6));
+    } catch (RuntimeException e) {
+      return -1;
+    }
+  }
+
+  /**
+   * Misst einen Hash mit Mindestkosten und verdoppelt (Kosten + 1), solange die Zielzeit
+   * nicht überschritten wird. Die erste Messung wärmt die JVM auf und wird verworfen.
+   */
+  private static int calibrate(long targetMs) {
+    BCrypt.hashpw("calibration", BCrypt.gensalt(MIN_COST));
+    long start = System.nanoTime();
+    BCrypt.hashpw("calibration", BCrypt.gensalt(MIN_COST));
+    double ms = (System.nanoTime() - start) / 1_000_000.0;
+
+    int c = MIN_COST;
+    while (c < MAX_COST && ms * 2 <= targetMs) {
+      ms *= 2;
+      c++;
+    }
+    log.info("BCrypt calibrated: cost={} (~{} ms per hash, target {} ms)", c, Math.round(ms), targetMs);
+    return c;
+  }
+}
@@ -0,0 +1,33 @@
+package com.example.momolearn.security;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * 429 Too Many Requests mit "Retry-After"-Header.
+ *
+ * Wird geworfen, wenn die Ratenbegrenzung erst im Controller greift (z. B. bei einem Batch,
+ * dessen Kosten erst nach dem Lesen des Bodys feststehen).
+ */
+public class RateLimitExceededException extends ResponseStatusException {
+
+  private final long retryAfterSeconds;
+
+  public RateLimitExceededException(String reason, long retryAfterSeconds) {
+    super(HttpStatus.TOO_MANY_REQUESTS, reason);
+    this.retryAfterSeconds = Math.max(1, retryAfterSeconds);
+  }
+
+  /** Wartezeit in Sekunden, die im Retry-After-Header zurückgegeben wird. */
+  public long getRetryAfterSeconds() {
+    return retryAfterSeconds;
+  }
+
+  @Override
+  public HttpHeaders getHeaders() {
+    HttpHeaders headers = new HttpHeaders();
+    headers.set(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+    return headers;
+  }
+}
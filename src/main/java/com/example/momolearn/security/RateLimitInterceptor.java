@@ -0,0 +1,109 @@
+package com.example.momolearn.security;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import com.example.momolearn.security.RateLimiter.Decision;
+import com.example.momolearn.security.RateLimiter.RouteClass;
+
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Interceptor für die Ratenbegrenzung pro Nutzer (läuft nach dem AuthInterceptor).
+ *
+ * Die Routenklasse ergibt sich aus dem gematchten URI-Template und der HTTP-Methode.
+ * Jede Antwort trägt die Header RateLimit-Limit, RateLimit-Remaining, RateLimit-Reset und
+ * RateLimit-Policy; bei Überschreitung gibt es 429 Too Many Requests mit Retry-After.
+ * Requests mit mehreren Einheiten (Batch-Versuche) kosten über {@link #chargeUnits}
+ * ein Token pro Einheit.
+ */
+@Component
+public class RateLimitInterceptor implements HandlerInterceptor {
+
+  private final RateLimiter limiter;
+
+  public RateLimitInterceptor(RateLimiter limiter) {
+    this.limiter = limiter;
+  }
+
+  @Override
+  public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
+    // Preflight und erneute Durchläufe beim asynchronen Dispatch nicht zählen
+    if (!limiter.isEnabled() || HttpMethod.OPTIONS.matches(request.getMethod())
+        || request.getDispatcherType() != DispatcherType.REQUEST) {
+      return true;
+    }
+    AuthPrincipal principal = (AuthPrincipal) request.getAttribute(AuthPrincipal.ATTRIBUTE);
+    if (principal == null) return true; // nicht authentifiziert → hat der AuthInterceptor bereits abgelehnt
+
+    Decision d = limiter.acquire(principal.userId(), classify(request));
+    writeHeaders(response, d);
+    if (!d.allowed()) {
+      response.sendError(HttpStatus.TOO_MANY_REQUESTS.value(), "Zu viele Anfragen, bitte später erneut versuchen");
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Belastet einen Request, der mehrere Einheiten auf einmal verarbeitet (z. B. einen Batch
+   * aus n Versuchen), mit insgesamt {@code units} Tokens. Ein Token hat {@link #preHandle}
+   * schon abgezogen; hier kommt der Rest dazu (zusammen höchstens die Bucket-Kapazität).
+   *
+   * @param request  laufender Request (liefert Nutzer und Routenklasse)
+   * @param response für die RateLimit-Header
+   * @param units    Anzahl Einheiten im Request
+   * @throws RateLimitExceededException 429 mit Retry-After, wenn der Bucket nicht reicht
+   */
+  public void chargeUnits(HttpServletRequest request, HttpServletResponse response, int units) {
+    if (!limiter.isEnabled()) return;
+    AuthPrincipal principal = (AuthPrincipal) request.getAttribute(AuthPrincipal.ATTRIBUTE);
+    if (principal == null) return;
+    RouteClass rc = classify(request);
+    int extra = Math.min(units, limiter.limit(rc)) - 1;
+    if (extra <= 0) return;
+
+    Decision d = limiter.acquire(principal.userId(), rc, extra);
+    writeHeaders(response, d);
+    if (!d.allowed()) {
+      throw new RateLimitExceededException("Zu viele Anfragen, bitte später erneut versuchen", d.retryAfterSeconds());
+    }
+  }
+
+  private static void writeHeaders(HttpServletResponse response, Decision d) {
+    response.setHeader("RateLimit-Limit", Integer.toString(d.limit()));
+    response.setHeader("RateLimit-Remaining", Integer.toString(d.remaining()));
+    response.setHeader("RateLimit-Reset", Long.toString(d.resetSeconds()));
+    response.setHeader("RateLimit-Policy", d.limit() + ";w=" + d.windowSeconds());
+    if (!d.allowed()) response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(d.retryAfterSeconds()));
+  }
+
+  /**
+   * Ordnet den Request anhand des URI-Templates einer Routenklasse zu.
+   *
+   * Als Upload zählt nur das Anlegen (Multipart-POST, POST /stream, POST /sessions);
+   * die Chunks einer Upload-Session (PATCH/HEAD) gehören zu einem schon gezählten
+   * Upload und laufen unter READ, sonst würden resumable Uploads am Upload-Limit scheitern.
+   */
+  private static RouteClass classify(HttpServletRequest request) {
+    Object attr = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+    String pattern = (attr instanceof String p) ? p : request.getRequestURI();
+    String method = request.getMethod();
+    if (HttpMethod.GET.matches(method) || HttpMethod.HEAD.matches(method)) return RouteClass.READ;
+
+    if (pattern.endsWith("/generate")) return RouteClass.GENERATION;
+    if (pattern.endsWith("/attempts")) return RouteClass.ATTEMPTS;
+    if (HttpMethod.POST.matches(method)
+        && (pattern.endsWith("/uploads") || pattern.endsWith("/uploads/stream")
+            || pattern.endsWith("/uploads/sessions"))) {
+      return RouteClass.UPLOADS;
+    }
+    return RouteClass.READ;
+  }
+}
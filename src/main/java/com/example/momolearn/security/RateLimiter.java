@@ -0,0 +1,243 @@
+package com.example.momolearn.security;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-Memory-Ratenbegrenzung pro Nutzer und Routenklasse (Token-Bucket als GCRA).
+ *
+ * Statt Tokens zu zählen, speichert GCRA pro Bucket nur einen Zeitstempel, die
+ * "theoretische Ankunftszeit" (TAT): jeder Request schiebt sie um das Intervall
+ * {@code window / limit} nach vorn; liegt sie mehr als {@code window} in der Zukunft,
+ * ist der Bucket leer. Das Verhalten entspricht einem Token-Bucket mit Kapazität
+ * {@code limit}, der gleichmäßig über {@code window} aufgefüllt wird.
+ *
+ * Speicher: eine offene Hashtabelle aus long-Arrays (64-Bit-Hash der userId plus ein TAT
+ * pro Routenklasse), also 8 + 8 * 4 = 40 Bytes pro aktivem Nutzer ohne Objekte pro Eintrag.
+ * Die Tabelle ist in Segmente mit eigener Sperre geteilt. Einträge, deren Buckets wieder
+ * voll sind, sind gleichwertig zu "nicht vorhanden" und werden beim Wachsen verworfen.
+ */
+@Component
+public class RateLimiter {
+
+  /** Routenklassen mit eigenem Limit. */
+  public enum RouteClass {
+    /** Lesende und sonstige günstige Requests. */
+    READ,
+    /** Antworten auf Fragen (POST .../attempts). */
+    ATTEMPTS,
+    /** Anlegen von Uploads (POST .../uploads, .../uploads/stream, .../uploads/sessions). */
+    UPLOADS,
+    /** KI-Generierung (POST .../generate). */
+    GENERATION
+  }
+
+  /**
+   * Ergebnis einer Prüfung.
+   *
+   * @param allowed           ob der Request durchgelassen wird
+   * @param limit             Bucket-Kapazität (RateLimit-Limit)
+   * @param remaining         verbleibende Requests (RateLimit-Remaining)
+   * @param resetSeconds      Sekunden, bis der Bucket wieder voll ist (RateLimit-Reset)
+   * @param retryAfterSeconds Wartezeit bei Ablehnung (Retry-After), sonst 0
+   * @param windowSeconds     Fenster der Policy (RateLimit-Policy)
+   */
+  public record Decision(boolean allowed, int limit, int remaining, long resetSeconds,
+                         long retryAfterSeconds, long windowSeconds) {
+  }
+
+  private static final int CLASSES = RouteClass.values().length;
+  private static final int SEGMENTS = 64;
+  private static final int INITIAL_CAPACITY = 256;
+
+  private final boolean enabled;
+  private final int[] limits = new int[CLASSES];
+  private final long[] intervalNanos = new long[CLASSES];
+  private final long[] windowNanos = new long[CLASSES];
+  private final Segment[] segments = new Segment[SEGMENTS];
+
+  // Bezugspunkt für die Zeit, damit TAT 0 immer "Bucket voll" bedeutet
+  private final long origin = System.nanoTime() - 1;
+
+  /**
+   * Konfiguration (application.properties), je Klasse read|attempts|uploads|generation:
+   * - ratelimit.enabled: Begrenzung an/aus
+   * - ratelimit.&lt;klasse&gt;.limit: Requests pro Fenster (zugleich maximale Burst-Größe)
+   * - ratelimit.&lt;klasse&gt;.window: Fenster
+   */
+  public RateLimiter(@Value("${ratelimit.enabled:true}") boolean enabled,
+                     @Value("${ratelimit.read.limit:600}") int readLimit,
+                     @Value("${ratelimit.read.window:PT1M}") Duration readWindow,
+                     @Value("${ratelimit.attempts.limit:120}") int attemptsLimit,
+                     @Value("${ratelimit.attempts.window:PT1M}") Duration attemptsWindow,
+                     @Value("${ratelimit.uploads.limit:30}") int uploadsLimit,
+                     @Value("${ratelimit.uploads.window:PT1H}") Duration uploadsWindow,
+                     @Value("${ratelimit.generation.limit:10}") int generationLimit,
+                     @Value("${ratelimit.generation.window:PT1H}") Duration generationWindow) {
+    this.enabled = enabled;
+    configure(RouteClass.READ, readLimit, readWindow);
+    configure(RouteClass.ATTEMPTS, attemptsLimit, attemptsWindow);
+    configure(RouteClass.UPLOADS, uploadsLimit, uploadsWindow);
+    configure(RouteClass.GENERATION, generationLimit, generationWindow);
+    for (int i = 0; i < SEGMENTS; i++) segments[i] = new Segment();
+  }
+
+  /** Ob die Begrenzung aktiv ist. */
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /** Bucket-Kapazität einer Routenklasse. */
+  public int limit(RouteClass rc) {
+    return limits[rc.ordinal()];
+  }
+
+  /**
+   * Verbraucht ein Token aus dem Bucket des Nutzers für diese Routenklasse.
+   *
+   * @param userId ID des Benutzers
+   * @param rc     Routenklasse
+   * @return Entscheidung inkl. Header-Werten
+   */
+  public Decision acquire(String userId, RouteClass rc) {
+    return acquire(userId, rc, 1);
+  }
+
+  /**
+   * Verbraucht {@code cost} Tokens auf einmal (alle oder keines), z. B. für einen Batch aus
+   * mehreren Versuchen. Kosten über der Kapazität werden auf die Kapazität begrenzt.
+   *
+   * @param userId ID des Benutzers
+   * @param rc     Routenklasse
+   * @param cost   Anzahl Tokens (mindestens 1)
+   * @return Entscheidung inkl. Header-Werten
+   */
+  public Decision acquire(String userId, RouteClass rc, int cost) {
+    return acquire(userId, rc, cost, System.nanoTime() - origin);
+  }
+
+  /** Wie {@link #acquire(String, RouteClass, int)} zu einem festen Zeitpunkt (ns seit Start, für Tests). */
+  Decision acquire(String userId, RouteClass rc, int cost, long now) {
+    int c = rc.ordinal();
+    long key = hash(userId);
+    Segment seg = segments[(int) (key >>> 58)]; // obere 6 Bit → Segment
+
+    long interval = intervalNanos[c];
+    long window = windowNanos[c];
+    long step = interval * Math.max(1, Math.min(cost, limits[c]));
+    long tat;
+    boolean allowed;
+    synchronized (seg) {
+      int slot = seg.slotFor(key, now);
+      long base = Math.max(seg.tats[slot * CLASSES + c], now);
+      long next = base + step;
+      allowed = next - now <= window;
+      if (allowed) seg.tats[slot * CLASSES + c] = next;
+      tat = allowed ? next : base;
+    }
+
+    long ahead = tat - now; // so weit ist der Bucket "verbraucht"
+    int remaining = (int) Math.max(0, (window - ahead) / interval);
+    long retryAfter = allowed ? 0 : ceilSeconds(tat + step - window - now);
+    return new Decision(allowed, limits[c], remaining, ceilSeconds(ahead), retryAfter, window / 1_000_000_000L);
+  }
+
+  /** Summe der Tabellengrößen aller Segmente (für Tests). */
+  int capacity() {
+    int sum = 0;
+    for (Segment seg : segments) {
+      synchronized (seg) {
+        sum += seg.keys.length;
+      }
+    }
+    return sum;
+  }
+
+  private void configure(RouteClass rc, int limit, Duration window) {
+    int c = rc.ordinal();
+    limits[c] = Math.max(1, limit);
+    windowNanos[c] = Math.max(1_000_000L, window.toNanos());
+    intervalNanos[c] = Math.max(1L, windowNanos[c] / limits[c]);
+  }
+
+  private static long ceilSeconds(long nanos) {
+    return (nanos <= 0) ? 0 : (nanos + 999_999_999L) / 1_000_000_000L;
+  }
+
+  /** 64-Bit-Hash der userId (FNV-1a, durchmischt); nie 0, da 0 "leerer Slot" bedeutet. */
+  private static long hash(String s) {
+    long h = 0xCBF29CE484222325L;
+    for (int i = 0; i < s.length(); i++) {
+      h ^= s.charAt(i);
+      h *= 0x100000001B3L;
+    }
+    h ^= h >>> 33;
+    h *= 0xFF51AFD7ED558CCDL;
+    h ^= h >>> 33;
+    return (h == 0) ? 1 : h;
+  }
+
+  /** Offene Hashtabelle (lineares Sondieren) für einen Teil der Nutzer. */
+  private static final class Segment {
+    private long[] keys = new long[INITIAL_CAPACITY];
+    private long[] tats = new long[INITIAL_CAPACITY * CLASSES];
+    private int size;
+
+    /** Liefert den Slot für den Schlüssel und legt ihn bei Bedarf an (TATs 0 = Bucket voll). */
+    int slotFor(long key, long now) {
+      int mask = keys.length - 1;
+      int i = (int) key & mask;
+      while (keys[i] != 0) {
+        if (keys[i] == key) return i;
+        i = (i + 1) & mask;
+      }
+      if ((size + 1) * 2 > keys.length) {
+        rebuild(now);
+        return slotFor(key, now);
+      }
+      keys[i] = key;
+      for (int c = 0; c < CLASSES; c++) tats[i * CLASSES + c] = 0;
+      size++;
+      return i;
+    }
+
+    /**
+     * Baut die Tabelle neu auf: Einträge, deren Buckets alle wieder voll sind, fallen weg;
+     * nur wenn danach noch mehr als ein Viertel belegt ist, wird verdoppelt.
+     */
+    private void rebuild(long now) {
+      int live = 0;
+      for (int i = 0; i < keys.length; i++) {
+        if (keys[i] != 0 && isActive(tats, i, now)) live++;
+      }
+      int capacity = keys.length;
+      if ((live + 1) * 4 > capacity) capacity *= 2;
+      else if (capacity > INITIAL_CAPACITY && (live + 1) * 16 < capacity) capacity /= 2;
+
+      long[] oldKeys = keys;
+      long[] oldTats = tats;
+      keys = new long[capacity];
+      tats = new long[capacity * CLASSES];
+      size = 0;
+      int mask = capacity - 1;
+      for (int i = 0; i < oldKeys.length; i++) {
+        if (oldKeys[i] == 0 || !isActive(oldTats, i, now)) continue;
+        int j = (int) oldKeys[i] & mask;
+        while (keys[j] != 0) j = (j + 1) & mask;
+        keys[j] = oldKeys[i];
+        System.arraycopy(oldTats, i * CLASSES, tats, j * CLASSES, CLASSES);
+        size++;
+      }
+    }
+
+    /** Ein Eintrag ist aktiv, solange mindestens einer seiner Buckets nicht voll ist. */
+    private static boolean isActive(long[] tats, int slot, long now) {
+      for (int c = 0; c < CLASSES; c++) {
+        if (tats[slot * CLASSES + c] > now) return true;
+      }
+      return false;
+    }
+  }
+}
@@ -0,0 +1,248 @@
+package com.example.momolearn.security;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.example.momolearn.model.TokenRevocation;
+import com.example.momolearn.repository.TokenRevocationRepository;
+
+/**
+ * Widerrufsliste für signierte Tokens als Bloom-Filter mit exakter Bestätigung.
+ *
+ * Der Filter liegt komplett im Speicher (wenige Bits pro Eintrag). "Nicht enthalten"
+ * ist sicher, der Normalfall kostet also keinen DB-Zugriff. Meldet der Filter einen
+ * Treffer, wird in "token_revocations" nachgeschaut, ob die jti wirklich widerrufen ist
+ * (falsch-positive Treffer, ca. {@code auth.signed.revocation.fpp}); das Ergebnis wird gemerkt.
+ *
+ * Neue Widerrufe anderer Instanzen werden regelmäßig abgeholt. Da ein Bloom-Filter nichts
+ * löschen kann, wird er periodisch aus den noch nicht abgelaufenen Widerrufen neu aufgebaut.
+ *
+ * "Überall abmelden" widerruft alle bis dahin ausgestellten Tokens eines Nutzers auf einmal:
+ * gespeichert wird nur ein Eintrag {@code user:<userId>} mit Zeitpunkt, geprüft gegen iat.
+ * Diese Einträge sind wenige und liegen exakt in einer Map.
+ */
+@Component
+public class RevocationFilter {
+
+  private static final Logger log = LoggerFactory.getLogger(RevocationFilter.class);
+
+  // Überlappung beim Abgleich, damit Uhrenabweichungen zwischen Instanzen nichts verschlucken
+  private static final Duration POLL_OVERLAP = Duration.ofSeconds(5);
+
+  // Obergrenze für gemerkte Bestätigungen (danach wird der Merker geleert)
+  private static final int MAX_CONFIRMED = 10_000;
+
+  // Präfix für nutzerweite Widerrufe in "token_revocations"
+  private static final String USER_PREFIX = "user:";
+
+  /** Bitfeld des Bloom-Filters; wird beim Neuaufbau komplett ersetzt. */
+  private static final class Bloom {
+    private final AtomicLongArray bits;
+    private final long size;
+    private final int hashes;
+
+    Bloom(long expected, double fpp) {
+      long n = Math.max(1, expected);
+      long m = (long) Math.ceil(-n * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+      this.size = Math.max(64, m);
+      this.hashes = Math.max(1, (int) Math.round((double) size / n * Math.log(2)));
+      this.bits = new AtomicLongArray((int) ((size + 63) / 64));
+    }
+
+    void add(String key) {
+      long h1 = hash(key, 0x9E3779B97F4A7C15L);
+      long h2 = hash(key, 0xC2B2AE3D27D4EB4FL);
+      for (int i = 0; i < hashes; i++) {
+        long bit = Math.floorMod(h1 + i * h2, size);
+        int word = (int) (bit >>> 6);
+        long mask = 1L << bit;
+        bits.getAndUpdate(word, w -> w | mask);
+      }
+    }
+
+    boolean mightContain(String key) {
+      long h1 = hash(key, 0x9E3779B97F4A7C15L);
+      long h2 = hash(key, 0xC2B2AE3D27D4EB4FL);
+      for (int i = 0; i < hashes; i++) {
+        long bit = Math.floorMod(h1 + i * h2, size);
+        if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) return false;
+      }
+      return true;
+    }
+
+    /** 64-Bit-Hash (FNV-1a mit Seed, danach durchmischt). */
+    private static long hash(String key, long seed) {
+      long h = 0xCBF29CE484222325L ^ seed;
+      for (int i = 0; i < key.length(); i++) {
+        h ^= key.charAt(i);
+        h *= 0x100000001B3L;
+      }
+      h ^= h >>> 33;
+      h *= 0xFF51AFD7ED558CCDL;
+      h ^= h >>> 33;
+      return h | 1; // ungerade, damit h1 + i*h2 alle Positionen durchläuft
+    }
+  }
+
+  private final TokenRevocationRepository revocations;
+  private final SignedTokenCodec codec;
+  private final long expected;
+  private final double fpp;
+
+  private volatile Bloom bloom;
+  private volatile Instant lastRevocation = Instant.now();
+  private final Map<String, Boolean> confirmed = new ConcurrentHashMap<>();
+
+  // userId → alle bis hier ausgestellten Tokens sind ungültig
+  private volatile Map<String, Instant> userCutoffs = new ConcurrentHashMap<>();
+
+  /**
+   * Konfiguration (application.properties):
+   * - auth.signed.revocation.expected: erwartete Anzahl gleichzeitig gültiger Widerrufe
+   * - auth.signed.revocation.fpp: gewünschte Falsch-positiv-Rate des Filters
+   */
+  public RevocationFilter(TokenRevocationRepository revocations,
+                          SignedTokenCodec codec,
+                          @Value("${auth.signed.revocation.expected:100000}") long expected,
+                          @Value("${auth.signed.revocation.fpp:0.01}") double fpp) {
+    this.revocations = revocations;
+    this.codec = codec;
+    this.expected = expected;
+    this.fpp = fpp;
+    this.bloom = new Bloom(expected, fpp);
+  }
+
+  /**
+   * Prüft, ob ein signiertes Token widerrufen wurde.
+   *
+   * @param jti ID des Tokens
+   * @return true, falls widerrufen
+   */
+  public boolean isRevoked(String jti) {
+    if (!bloom.mightContain(jti)) return false;
+    Boolean known = confirmed.get(jti);
+    if (known != null) return known;
+    boolean revoked = revocations.existsByToken(jti);
+    if (confirmed.size() >= MAX_CONFIRMED) confirmed.clear();
+    confirmed.put(jti, revoked);
+    return revoked;
+  }
+
+  /**
+   * Prüft, ob alle bis zu {@code issuedAt} ausgestellten Tokens des Nutzers widerrufen wurden.
+   *
+   * @param userId   ID des Benutzers
+   * @param issuedAt Ausstellungszeitpunkt des Tokens (iat, sekundengenau)
+   * @return true, falls das Token nicht nach dem letzten "überall abmelden" ausgestellt wurde
+   */
+  public boolean isRevokedForUser(String userId, Instant issuedAt) {
+    Instant cutoff = userCutoffs.get(userId);
+    // iat ist auf Sekunden abgeschnitten → im selben Sekundenbruchteil ausgestellte Tokens gelten auch als widerrufen
+    return cutoff != null && issuedAt.getEpochSecond() <= cutoff.getEpochSecond();
+  }
+
+  /**
+   * Widerruft alle bisher ausgestellten signierten Tokens eines Nutzers.
+   *
+   * @param userId   ID des Benutzers
+   * @param lifetime Gültigkeitsdauer von Tokens; danach ist kein betroffenes Token mehr gültig
+   */
+  public void revokeUser(String userId, Duration lifetime) {
+    Instant now = Instant.now();
+    revocations.save(TokenRevocation.builder()
+        .token(USER_PREFIX + userId)
+        .revokedAt(now)
+        .expiresAt(now.plus(lifetime))
+        .build());
+    userCutoffs.merge(userId, now, (a, b) -> a.isAfter(b) ? a : b);
+  }
+
+  /**
+   * Widerruft ein signiertes Token auf allen Instanzen.
+   *
+   * @param jti       ID des Tokens
+   * @param expiresAt Ablauf des Tokens; danach wird der Widerruf nicht mehr gebraucht
+   */
+  public void revoke(String jti, Instant expiresAt) {
+    Instant now = Instant.now();
+    revocations.save(TokenRevocation.builder()
+        .token(jti)
+        .revokedAt(now)
+        .expiresAt(expiresAt)
+        .build());
+    bloom.add(jti);
+    confirmed.put(jti, Boolean.TRUE);
+  }
+
+  /** Holt neue Widerrufe anderer Instanzen ab. */
+  @Scheduled(initialDelayString = "${auth.token-cache.revocation-poll:PT2S}",
+             fixedDelayString = "${auth.token-cache.revocation-poll:PT2S}")
+  public void pollRevocations() {
+    if (!codec.isEnabled()) return;
+    try {
+      Instant since = lastRevocation;
+      for (TokenRevocation r : revocations.findByRevokedAtAfterOrderByRevokedAtAsc(since.minus(POLL_OVERLAP))) {
+        addLocal(r);
+        if (r.getRevokedAt().isAfter(since)) since = r.getRevokedAt();
+      }
+      lastRevocation = since;
+    } catch (RuntimeException e) {
+      log.warn("Revocation filter poll failed: {}", e.getMessage());
+    }
+  }
+
+  /**
+   * Baut den Filter aus allen noch nicht abgelaufenen Widerrufen neu auf (auch beim Start),
+   * damit abgelaufene Einträge die Falsch-positiv-Rate nicht dauerhaft erhöhen.
+   */
+  @Scheduled(initialDelay = 0, fixedDelayString = "${auth.signed.revocation.rebuild-interval:PT1H}")
+  public void rebuild() {
+    if (!codec.isEnabled()) return;
+    try {
+      Instant start = Instant.now();
+      List<TokenRevocation> live = revocations.findByExpiresAtAfter(start);
+      Bloom fresh = new Bloom(Math.max(expected, live.size() * 2L), fpp);
+      Map<String, Instant> cutoffs = new ConcurrentHashMap<>();
+      for (TokenRevocation r : live) {
+        if (r.getToken() == null) continue;
+        if (r.getToken().startsWith(USER_PREFIX)) {
+          cutoffs.merge(r.getToken().substring(USER_PREFIX.length()), r.getRevokedAt(), (a, b) -> a.isAfter(b) ? a : b);
+        } else {
+          fresh.add(r.getToken());
+        }
+      }
+      bloom = fresh;
+      userCutoffs = cutoffs;
+      confirmed.clear();
+
+      // Widerrufe, die während des Ladens dazukamen, nicht verlieren
+      for (TokenRevocation r : revocations.findByRevokedAtAfterOrderByRevokedAtAsc(start.minus(POLL_OVERLAP))) {
+        addLocal(r);
+      }
+      log.info("Revocation filter rebuilt: entries={}", live.size());
+    } catch (RuntimeException e) {
+      log.warn("Revocation filter rebuild failed: {}", e.getMessage());
+    }
+  }
+
+  private void addLocal(TokenRevocation r) {
+    String key = r.getToken();
+    if (key == null) return;
+    if (key.startsWith(USER_PREFIX)) {
+      userCutoffs.merge(key.substring(USER_PREFIX.length()), r.getRevokedAt(), (a, b) -> a.isAfter(b) ? a : b);
+      return;
+    }
+    bloom.add(key);
+    confirmed.remove(key); // evtl. gemerktes "nicht widerrufen" verwerfen
+  }
+}
@@ -0,0 +1,215 @@
+package com.example.momolearn.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.example.momolearn.model.SessionToken;
+import com.example.momolearn.model.TokenRevocation;
+import com.example.momolearn.repository.SessionTokenRepository;
+import com.example.momolearn.repository.TokenRevocationRepository;
+
+/**
+ * In-Memory-Cache für Session-Tokens, damit nicht jeder Request MongoDB fragen muss.
+ *
+ * - Gültige Tokens werden bis zu {@code auth.token-cache.ttl} gemerkt, höchstens aber bis
+ *   zu ihrem eigenen Ablaufdatum (SessionToken.expiresAt).
+ * - Unbekannte Tokens werden kurz negativ gecacht ({@code auth.token-cache.negative-ttl}),
+ *   damit wiederholte Anfragen mit falschem Token nicht jedes Mal in der DB landen.
+ * - Die Größe ist begrenzt; ist der Cache voll, werden abgelaufene und danach beliebige
+ *   Einträge verdrängt (sie werden beim nächsten Zugriff einfach neu geladen).
+ * - Logout ({@link #invalidate}) entfernt den Token lokal und schreibt einen Eintrag in
+ *   "token_revocations", den alle Instanzen per {@link #pollRevocations} abholen.
+ *
+ * Gecacht und widerrufen wird über den Session-Schlüssel ({@link #keyOf}), nicht über den
+ * Token selbst; so kann auch ohne Kenntnis des Tokens (z. B. Verdrängung der ältesten
+ * Session eines Nutzers) widerrufen werden.
+ *
+ * Verpasst eine Instanz einen Widerruf (z. B. DB kurz weg), ist der Token dort spätestens
+ * nach der TTL wieder ungültig.
+ */
+@Component
+public class SessionTokenCache {
+
+  private static final Logger log = LoggerFactory.getLogger(SessionTokenCache.class);
+
+  // Überlappung beim Abgleich, damit Uhrenabweichungen zwischen Instanzen nichts verschlucken
+  private static final Duration POLL_OVERLAP = Duration.ofSeconds(5);
+
+  /** Cache-Eintrag; principal == null bedeutet "Token unbekannt/widerrufen". */
+  private record Entry(AuthPrincipal principal, long validUntilMillis) {
+  }
+
+  private final SessionTokenRepository tokens;
+  private final TokenRevocationRepository revocations;
+  private final boolean enabled;
+  private final int maxEntries;
+  private final long ttlMillis;
+  private final long negativeTtlMillis;
+
+  private final ConcurrentHashMap<String, Entry> cache = new ConcurrentHashMap<>();
+  private final AtomicBoolean evicting = new AtomicBoolean();
+
+  // Zeitpunkt des jüngsten bereits verarbeiteten Widerrufs
+  private volatile Instant lastRevocation = Instant.now();
+
+  /**
+   * Konfiguration (application.properties):
+   * - auth.token-cache.enabled: Cache an/aus (aus = jede Prüfung fragt die DB)
+   * - auth.token-cache.max-entries: maximale Anzahl gecachter Tokens
+   * - auth.token-cache.ttl: maximale Lebensdauer eines positiven Eintrags
+   * - auth.token-cache.negative-ttl: Lebensdauer eines negativen Eintrags
+   */
+  public SessionTokenCache(SessionTokenRepository tokens,
+                           TokenRevocationRepository revocations,
+                           @Value("${auth.token-cache.enabled:true}") boolean enabled,
+                           @Value("${auth.token-cache.max-entries:100000}") int maxEntries,
+                           @Value("${auth.token-cache.ttl:PT5M}") Duration ttl,
+                           @Value("${auth.token-cache.negative-ttl:PT30S}") Duration negativeTtl) {
+    this.tokens = tokens;
+    this.revocations = revocations;
+    this.enabled = enabled;
+    this.maxEntries = Math.max(1, maxEntries);
+    this.ttlMillis = ttl.toMillis();
+    this.negativeTtlMillis = negativeTtl.toMillis();
+  }
+
+  /**
+   * Prüft einen Token.
+   *
+   * @param token Bearer-Token
+   * @return Principal des Tokens oder null, wenn er unbekannt oder abgelaufen ist
+   */
+  public AuthPrincipal resolve(String token) {
+    long now = System.currentTimeMillis();
+    String key = keyOf(token);
+    if (!enabled) {
+      return load(key, now).principal();
+    }
+
+    // Treffer: der gecachte Principal wird direkt weitergegeben (keine Allokation)
+    Entry e = cache.get(key);
+    if (e != null && e.validUntilMillis() > now) return e.principal();
+
+    Entry fresh = load(key, now);
+    // Nicht über einen parallel gesetzten Eintrag (z. B. Widerruf während des Ladens) schreiben
+    Entry winner = (e == null) ? cache.putIfAbsent(key, fresh)
+        : (cache.replace(key, e, fresh) ? null : cache.get(key));
+    if (winner == null && e == null && cache.size() > maxEntries) evict(now);
+    return (winner != null) ? winner.principal() : fresh.principal();
+  }
+
+  /**
+   * Macht Sessions auf allen Instanzen ungültig (Logout, Verdrängung, "überall abmelden").
+   * Die Sessions selbst muss der Aufrufer aus "session_tokens" löschen.
+   *
+   * @param keys Session-Schlüssel ({@link #keyOf}); alle Widerrufe werden in einem Insert geschrieben
+   */
+  public void invalidate(Collection<String> keys) {
+    if (keys.isEmpty()) return;
+    long now = System.currentTimeMillis();
+    Instant revokedAt = Instant.ofEpochMilli(now);
+    List<TokenRevocation> batch = new ArrayList<>(keys.size());
+    for (String key : keys) {
+      tombstone(key, now);
+      batch.add(TokenRevocation.builder()
+          .token(key)
+          .revokedAt(revokedAt)
+          // so lange kann ein positiver Eintrag auf einer anderen Instanz noch leben
+          .expiresAt(revokedAt.plusMillis(ttlMillis).plus(POLL_OVERLAP))
+          .build());
+    }
+    revocations.saveAll(batch);
+  }
+
+  /**
+   * Session-Schlüssel eines Tokens: die ersten 16 Bytes von SHA-256, Base64url (22 Zeichen).
+   * Dient als _id in "session_tokens"; der Token selbst wird nicht gespeichert.
+   */
+  public static String keyOf(String token) {
+    try {
+      byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+      return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(hash, 16));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 nicht verfügbar", e);
+    }
+  }
+
+  /**
+   * Holt neue Widerrufe anderer Instanzen ab und entfernt die Tokens aus dem lokalen Cache.
+   */
+  @Scheduled(initialDelayString = "${auth.token-cache.revocation-poll:PT2S}",
+             fixedDelayString = "${auth.token-cache.revocation-poll:PT2S}")
+  public void pollRevocations() {
+    if (!enabled) return;
+    try {
+      Instant since = lastRevocation;
+      List<TokenRevocation> news = revocations.findByRevokedAtAfterOrderByRevokedAtAsc(since.minus(POLL_OVERLAP));
+      long now = System.currentTimeMillis();
+      for (TokenRevocation r : news) {
+        tombstone(r.getToken(), now);
+        if (r.getRevokedAt().isAfter(since)) since = r.getRevokedAt();
+      }
+      lastRevocation = since;
+    } catch (RuntimeException e) {
+      // Nächster Durchlauf versucht es erneut; spätestens die TTL begrenzt veraltete Einträge
+      log.warn("Token revocation poll failed: {}", e.getMessage());
+    }
+  }
+
+  /** Lädt eine Session aus der DB und baut den passenden Cache-Eintrag. */
+  private Entry load(String key, long now) {
+    SessionToken st = tokens.findById(key).orElse(null);
+    if (st == null || !isValid(st, now)) {
+      return new Entry(null, now + negativeTtlMillis);
+    }
+    long until = now + ttlMillis;
+    if (st.getExpiresAt() != null) until = Math.min(until, st.getExpiresAt().toEpochMilli());
+    return new Entry(new AuthPrincipal(st.getUserId(), false, st.getExpiresAt()), until);
+  }
+
+  /**
+   * Ersetzt den Eintrag durch einen negativen. Ein gerade laufendes Laden desselben
+   * Tokens kann den Widerruf so nicht mehr mit einem alten DB-Stand überschreiben.
+   */
+  private void tombstone(String key, long now) {
+    if (key != null) cache.put(key, new Entry(null, now + Math.max(negativeTtlMillis, 1000)));
+  }
+
+  /** Verdrängt zuerst abgelaufene, dann beliebige Einträge, bis wieder Platz ist (ein Thread zur Zeit). */
+  private void evict(long now) {
+    if (!evicting.compareAndSet(false, true)) return;
+    try {
+      int target = maxEntries - maxEntries / 10;
+      cache.values().removeIf(e -> e.validUntilMillis() <= now);
+      Iterator<Map.Entry<String, Entry>> it = cache.entrySet().iterator();
+      while (cache.size() > target && it.hasNext()) {
+        it.next();
+        it.remove();
+      }
+    } finally {
+      evicting.set(false);
+    }
+  }
+
+  private static boolean isValid(SessionToken st, long now) {
+    return st.getExpiresAt() == null || st.getExpiresAt().toEpochMilli() > now;
+  }
+}
@@ -0,0 +1,85 @@
+package com.example.momolearn.security;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.stereotype.Component;
+
+import com.example.momolearn.model.SessionToken;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.WriteModel;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Einmalige Umstellung alter Sessions beim Start.
+ *
+ * Früher lag der Token im Klartext im Feld "token" (Unique-Index, ObjectId als _id).
+ * Jetzt ist die _id der Session-Schlüssel (SessionTokenCache.keyOf). Alte Einträge werden
+ * umgeschrieben, abgelaufene gleich gelöscht; der alte Index fällt weg. Angemeldete
+ * Nutzer bleiben angemeldet. Läuft vor dem Start des Webservers und ist idempotent.
+ */
+@Component
+public class SessionTokenMigration {
+
+  private static final Logger log = LoggerFactory.getLogger(SessionTokenMigration.class);
+
+  private static final int BATCH_SIZE = 1000;
+
+  private final MongoTemplate mongo;
+
+  public SessionTokenMigration(MongoTemplate mongo) {
+    this.mongo = mongo;
+  }
+
+  @PostConstruct
+  void migrate() {
+    // Zuerst den alten Unique-Index entfernen: neue Einträge haben kein Feld "token"
+    for (IndexInfo idx : mongo.indexOps(SessionToken.class).getIndexInfo()) {
+      if (idx.isIndexForFields(List.of("token"))) {
+        mongo.indexOps(SessionToken.class).dropIndex(idx.getName());
+        log.info("Dropped legacy session token index {}", idx.getName());
+      }
+    }
+
+    MongoCollection<Document> coll = mongo.getCollection(mongo.getCollectionName(SessionToken.class));
+    long expired = coll.deleteMany(Filters.and(
+        Filters.exists("token"), Filters.lt("expiresAt", Date.from(Instant.now())))).getDeletedCount();
+
+    long migrated = 0;
+    while (true) {
+      List<Document> batch = coll.find(Filters.exists("token")).limit(BATCH_SIZE).into(new ArrayList<>());
+      if (batch.isEmpty()) break;
+
+      List<WriteModel<Document>> writes = new ArrayList<>(batch.size());
+      List<Object> oldIds = new ArrayList<>(batch.size());
+      for (Document d : batch) {
+        String key = SessionTokenCache.keyOf(d.getString("token"));
+        Document migratedDoc = new Document("_id", key)
+            .append("userId", d.get("userId"))
+            .append("createdAt", d.get("createdAt"))
+            .append("expiresAt", d.get("expiresAt"));
+        // Upsert, damit ein abgebrochener Lauf gefahrlos wiederholt werden kann
+        writes.add(new ReplaceOneModel<>(Filters.eq("_id", key), migratedDoc, new ReplaceOptions().upsert(true)));
+        oldIds.add(d.get("_id"));
+      }
+      coll.bulkWrite(writes);
+      coll.deleteMany(Filters.in("_id", oldIds));
+      migrated += batch.size();
+    }
+
+    if (expired > 0 || migrated > 0) {
+      log.info("Session token migration: migrated={}, expiredDeleted={}", migrated, expired);
+    }
+  }
+}
@@ -0,0 +1,171 @@
+package com.example.momolearn.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Erzeugt und prüft selbsttragende, per HMAC-SHA256 signierte Tokens.
+ *
+ * Format: {@code v1.<kid>.<payload>.<signatur>} (Base64url ohne Padding), Payload ist
+ * {@code userId|iat|exp|jti} mit Zeitstempeln in Epoch-Sekunden. Geprüft wird rein auf
+ * der CPU: Signatur und Ablauf, ohne DB-Zugriff. Widerrufene Tokens (Logout) erkennt
+ * erst der {@link RevocationFilter} anhand der jti.
+ *
+ * Schlüsselrotation: Es können mehrere Schlüssel konfiguriert werden
+ * ({@code auth.signed.keys=kid1:base64,kid2:base64}); signiert wird mit
+ * {@code auth.signed.active-kid}, geprüft mit dem Schlüssel aus dem Token.
+ * Ein alter Schlüssel bleibt so lange eingetragen, bis seine Tokens abgelaufen sind.
+ */
+@Component
+public class SignedTokenCodec {
+
+  private static final Logger log = LoggerFactory.getLogger(SignedTokenCodec.class);
+
+  /** Präfix signierter Tokens; opaque Tokens (UUIDs) beginnen nie so. */
+  public static final String PREFIX = "v1.";
+
+  private static final String ALGORITHM = "HmacSHA256";
+  private static final Base64.Encoder B64 = Base64.getUrlEncoder().withoutPadding();
+  private static final Base64.Decoder B64D = Base64.getUrlDecoder();
+
+  /** Geprüfter Inhalt eines Tokens. */
+  public record Claims(String userId, Instant issuedAt, Instant expiresAt, String jti) {
+  }
+
+  /** Schlüssel mit eigenem Mac pro Thread (Mac ist nicht thread-safe, init ist teuer). */
+  private static final class SigningKey {
+    private final ThreadLocal<Mac> mac;
+
+    SigningKey(byte[] secret) {
+      SecretKeySpec spec = new SecretKeySpec(secret, ALGORITHM);
+      this.mac = ThreadLocal.withInitial(() -> {
+        try {
+          Mac m = Mac.getInstance(ALGORITHM);
+          m.init(spec);
+          return m;
+        } catch (GeneralSecurityException e) {
+          throw new IllegalStateException("HMAC-SHA256 nicht verfügbar", e);
+        }
+      });
+    }
+
+    byte[] sign(byte[] data) {
+      return mac.get().doFinal(data);
+    }
+  }
+
+  private final SecureRandom random = new SecureRandom();
+  private final Map<String, SigningKey> keys = new LinkedHashMap<>();
+  private final String activeKid;
+  private final boolean enabled;
+
+  /**
+   * Konfiguration (application.properties):
+   * - auth.token-format: "signed" stellt signierte Tokens aus (sonst opaque)
+   * - auth.signed.keys: Schlüsselliste "kid:base64,..." (aus ENV, nicht einchecken!)
+   * - auth.signed.active-kid: Schlüssel zum Signieren (leer = erster der Liste)
+   *
+   * Ist das Format "signed", aber kein Schlüssel konfiguriert, wird ein zufälliger Schlüssel
+   * erzeugt. Das reicht für eine einzelne Instanz; Tokens überleben dann keinen Neustart.
+   */
+  public SignedTokenCodec(@Value("${auth.token-format:opaque}") String format,
+                          @Value("${auth.signed.keys:}") String keyList,
+                          @Value("${auth.signed.active-kid:}") String activeKid) {
+    for (String entry : keyList.split(",")) {
+      if (entry.isBlank()) continue;
+      int colon = entry.indexOf(':');
+      if (colon <= 0) throw new IllegalStateException("auth.signed.keys: erwartet kid:base64, war: " + entry.trim());
+      String kid = entry.substring(0, colon).trim();
+      if (kid.contains(".")) throw new IllegalStateException("auth.signed.keys: kid darf keinen Punkt enthalten: " + kid);
+      byte[] secret = Base64.getDecoder().decode(entry.substring(colon + 1).trim());
+      if (secret.length < 32) throw new IllegalStateException("auth.signed.keys: Schlüssel " + kid + " ist kürzer als 256 Bit");
+      keys.put(kid, new SigningKey(secret));
+    }
+
+    if (keys.isEmpty() && "signed".equalsIgnoreCase(format)) {
+      byte[] secret = new byte[32];
+      random.nextBytes(secret);
+      keys.put("local", new SigningKey(secret));
+      log.warn("auth.token-format=signed without auth.signed.keys: using a random key, tokens are valid on this instance only");
+    }
+
+    this.enabled = !keys.isEmpty();
+    this.activeKid = activeKid.isBlank() ? keys.keySet().stream().findFirst().orElse(null) : activeKid.trim();
+    if (enabled && !keys.containsKey(this.activeKid)) {
+      throw new IllegalStateException("auth.signed.active-kid " + this.activeKid + " ist nicht in auth.signed.keys");
+    }
+  }
+
+  /** true, wenn Schlüssel vorhanden sind und signierte Tokens akzeptiert werden. */
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /** true, wenn der String wie ein signiertes Token aussieht (unabhängig von der Gültigkeit). */
+  public static boolean isSigned(String token) {
+    return token != null && token.startsWith(PREFIX);
+  }
+
+  /**
+   * Stellt ein signiertes Token aus.
+   *
+   * @param userId    ID des Benutzers
+   * @param expiresAt Ablaufzeitpunkt
+   * @return Token-String
+   */
+  public String issue(String userId, Instant expiresAt) {
+    if (!enabled) throw new IllegalStateException("Keine Signaturschlüssel konfiguriert");
+    byte[] jti = new byte[16];
+    random.nextBytes(jti);
+    String payload = userId + "|" + Instant.now().getEpochSecond() + "|" + expiresAt.getEpochSecond()
+        + "|" + B64.encodeToString(jti);
+    String head = PREFIX + activeKid + "." + B64.encodeToString(payload.getBytes(StandardCharsets.UTF_8));
+    byte[] sig = keys.get(activeKid).sign(head.getBytes(StandardCharsets.US_ASCII));
+    return head + "." + B64.encodeToString(sig);
+  }
+
+  /**
+   * Prüft Signatur und Ablauf eines Tokens (ohne Widerrufsprüfung).
+   *
+   * @param token Token-String
+   * @return Claims oder null, wenn das Token ungültig, manipuliert oder abgelaufen ist
+   */
+  public Claims verify(String token) {
+    if (!enabled || !isSigned(token)) return null;
+    int kidEnd = token.indexOf('.', PREFIX.length());
+    int sigStart = token.lastIndexOf('.');
+    if (kidEnd < 0 || sigStart <= kidEnd) return null;
+
+    SigningKey key = keys.get(token.substring(PREFIX.length(), kidEnd));
+    if (key == null) return null; // unbekannter oder ausgemusterter Schlüssel
+
+    try {
+      byte[] expected = key.sign(token.substring(0, sigStart).getBytes(StandardCharsets.US_ASCII));
+      // konstante Laufzeit, damit die Signatur nicht byteweise erraten werden kann
+      if (!MessageDigest.isEqual(expected, B64D.decode(token.substring(sigStart + 1)))) return null;
+
+      String[] p = new String(B64D.decode(token.substring(kidEnd + 1, sigStart)), StandardCharsets.UTF_8).split("\\|");
+      if (p.length != 4) return null;
+      Instant exp = Instant.ofEpochSecond(Long.parseLong(p[2]));
+      if (!exp.isAfter(Instant.now())) return null;
+      return new Claims(p[0], Instant.ofEpochSecond(Long.parseLong(p[1])), exp, p[3]);
+    } catch (IllegalArgumentException e) {
+      // kaputtes Base64 oder keine Zahl
+      return null;
+    }
+  }
+}
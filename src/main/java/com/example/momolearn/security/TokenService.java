@@ -0,0 +1,142 @@
+package com.example.momolearn.security;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.example.momolearn.model.SessionToken;
+import com.example.momolearn.repository.SessionTokenRepository;
+
+/**
+ * Ausstellen, Prüfen und Widerrufen von Bearer-Tokens.
+ *
+ * Zwei Formate werden unterstützt ({@code auth.token-format}):
+ * - opaque: zufällige UUID, gespeichert in "session_tokens", geprüft über den SessionTokenCache
+ * - signed: selbsttragendes HMAC-Token (SignedTokenCodec), geprüft ohne DB-Zugriff;
+ *   Logout landet im RevocationFilter
+ *
+ * Geprüft werden immer beide Formate, damit ein Wechsel des Formats niemanden abmeldet.
+ *
+ * Pro Nutzer sind höchstens {@code auth.sessions.max-per-user} opaque Sessions aktiv;
+ * beim Login darüber hinaus wird die älteste verdrängt.
+ */
+@Service
+public class TokenService {
+
+  private final SessionTokenRepository tokens;
+  private final SessionTokenCache tokenCache;
+  private final SignedTokenCodec codec;
+  private final RevocationFilter revocationFilter;
+  private final boolean issueSigned;
+  private final Duration lifetime;
+  private final int maxSessionsPerUser;
+
+  /**
+   * Konfiguration (application.properties):
+   * - auth.token-format: opaque (Standard) oder signed
+   * - auth.token-lifetime: Gültigkeitsdauer neuer Tokens
+   * - auth.sessions.max-per-user: maximale Anzahl aktiver opaque Sessions pro Nutzer (0 = unbegrenzt)
+   */
+  public TokenService(SessionTokenRepository tokens,
+                      SessionTokenCache tokenCache,
+                      SignedTokenCodec codec,
+                      RevocationFilter revocationFilter,
+                      @Value("${auth.token-format:opaque}") String format,
+                      @Value("${auth.token-lifetime:P7D}") Duration lifetime,
+                      @Value("${auth.sessions.max-per-user:10}") int maxSessionsPerUser) {
+    this.tokens = tokens;
+    this.tokenCache = tokenCache;
+    this.codec = codec;
+    this.revocationFilter = revocationFilter;
+    this.issueSigned = "signed".equalsIgnoreCase(format);
+    this.lifetime = lifetime;
+    this.maxSessionsPerUser = maxSessionsPerUser;
+  }
+
+  /**
+   * Stellt ein neues Token für einen Benutzer aus.
+   *
+   * @param userId ID des Benutzers
+   * @return Token-String für den Authorization-Header
+   */
+  public String issue(String userId) {
+    Instant now = Instant.now();
+    if (issueSigned) {
+      return codec.issue(userId, now.plus(lifetime));
+    }
+    String tok = UUID.randomUUID().toString(); // zufälliger, eindeutiger Tokenwert
+    tokens.insert(SessionToken.builder()
+        .id(SessionTokenCache.keyOf(tok)) // gespeichert wird nur der Hash
+        .userId(userId)
+        .createdAt(now)
+        .expiresAt(now.plus(lifetime)) // Ablaufzeitpunkt setzen
+        .build());
+    enforceSessionLimit(userId);
+    return tok;
+  }
+
+  /**
+   * Prüft ein Token.
+   *
+   * @param token Bearer-Token (beliebiges Format)
+   * @return Principal oder null, wenn das Token ungültig, abgelaufen oder widerrufen ist
+   */
+  public AuthPrincipal resolve(String token) {
+    if (token == null || token.isEmpty()) return null;
+    if (SignedTokenCodec.isSigned(token)) {
+      SignedTokenCodec.Claims c = codec.verify(token);
+      if (c == null || revocationFilter.isRevokedForUser(c.userId(), c.issuedAt())
+          || revocationFilter.isRevoked(c.jti())) return null;
+      return new AuthPrincipal(c.userId(), true, c.expiresAt());
+    }
+    return tokenCache.resolve(token);
+  }
+
+  /**
+   * Widerruft ein Token (Logout) auf allen Instanzen.
+   *
+   * @param token Bearer-Token (beliebiges Format)
+   */
+  public void revoke(String token) {
+    if (token == null || token.isEmpty()) return;
+    if (SignedTokenCodec.isSigned(token)) {
+      SignedTokenCodec.Claims c = codec.verify(token);
+      // ungültige/abgelaufene Tokens müssen nicht widerrufen werden
+      if (c != null) revocationFilter.revoke(c.jti(), c.expiresAt());
+      return;
+    }
+    String key = SessionTokenCache.keyOf(token);
+    tokens.deleteById(key);
+    tokenCache.invalidate(List.of(key));
+  }
+
+  /**
+   * Meldet einen Nutzer überall ab: löscht alle opaque Sessions in einem Aufruf, verteilt die
+   * Widerrufe gesammelt an alle Instanzen und erklärt alle bisher signierten Tokens für ungültig.
+   *
+   * @param userId ID des Benutzers
+   */
+  public void revokeAll(String userId) {
+    List<String> keys = tokens.findByUserIdOrderByCreatedAtDesc(userId).stream().map(SessionToken::getId).toList();
+    if (!keys.isEmpty()) {
+      tokens.deleteAllById(keys);
+      tokenCache.invalidate(keys);
+    }
+    if (codec.isEnabled()) revocationFilter.revokeUser(userId, lifetime);
+  }
+
+  /** Verdrängt die ältesten Sessions, wenn der Nutzer mehr als erlaubt hat. */
+  private void enforceSessionLimit(String userId) {
+    if (maxSessionsPerUser <= 0) return;
+    List<SessionToken> sessions = tokens.findByUserIdOrderByCreatedAtDesc(userId);
+    if (sessions.size() <= maxSessionsPerUser) return;
+    List<String> evicted = sessions.subList(maxSessionsPerUser, sessions.size()).stream()
+        .map(SessionToken::getId).toList();
+    tokens.deleteAllById(evicted);
+    tokenCache.invalidate(evicted);
+  }
+}
@@ -78,6 +78,14 @@ public class AiQuestionGenerator {
         cleanBase, this.model, this.timeoutMs, this.clipChars, this.maxTokens);
   }
 
+  /**
+   * Maximale Anzahl Zeichen des Lehrtexts, die an die KI geschickt werden.
+   * Mehr Text muss bei der PDF-Extraktion gar nicht erst gelesen werden.
+   */
+  public int getClipChars() {
+    return clipChars;
+  }
+
   /**
    * Generiert automatisch so viele Fragen, wie sinnvoll sind.
    * Die KI entscheidet selbst, wie viele Fragen sie aus dem gegebenen Text extrahiert.
@@ -0,0 +1,283 @@
+package com.example.momolearn.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import com.example.momolearn.model.AnswerAttempt;
+import com.example.momolearn.repository.AnswerAttemptRepository;
+import com.mongodb.bulk.BulkWriteError;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Schreibpuffer für Antwort-Versuche (write-behind).
+ *
+ * Ohne Puffer (Standard) wird jeder Versuch sofort eingefügt. Mit
+ * {@code attempts.write-behind.enabled=true} landen Versuche in einer begrenzten Warteschlange;
+ * ein Hintergrund-Thread schreibt sie als ungeordnete Bulk-Inserts, sobald
+ * {@code batch-size} Versuche beisammen sind oder {@code flush-interval-ms} seit dem ersten
+ * wartenden Versuch vergangen sind.
+ *
+ * Preis dafür: Der Request ist beantwortet, bevor der Versuch in der Datenbank steht.
+ * Stirbt der Prozess hart (kill -9, OOM), gehen die noch gepufferten Versuche verloren;
+ * beim normalen Herunterfahren wird der Puffer noch geleert. XP, Level und Streak des
+ * Nutzers sind davon nicht betroffen, die werden weiterhin direkt geschrieben.
+ *
+ * Gegendruck: Aufrufer reservieren Plätze mit {@link #reserve}, <b>bevor</b> sie den Nutzer
+ * ändern. Ist der Puffer voll, wartet die Reservierung höchstens {@code offer-timeout-ms}
+ * und wird dann mit 503 + Retry-After abgelehnt – der Nutzer ist dann noch unverändert.
+ * Das spätere {@link Reservation#submit} kann nicht mehr am vollen Puffer scheitern.
+ */
+@Service
+public class AttemptWriteBuffer {
+
+  private static final Logger log = LoggerFactory.getLogger(AttemptWriteBuffer.class);
+
+  // Fehlercode von MongoDB für doppelte Schlüssel
+  private static final int DUPLICATE_KEY = 11000;
+
+  // Wiederholungen eines fehlgeschlagenen Batches, danach wird er verworfen (und geloggt)
+  private static final int MAX_RETRIES = 3;
+
+  private final AnswerAttemptRepository attempts;
+  private final MongoTemplate mongo;
+  private final boolean enabled;
+  private final int capacity;
+  private final int batchSize;
+  private final long flushIntervalMs;
+  private final long offerTimeoutMs;
+  private final long retryAfterSeconds;
+  private final long shutdownTimeoutMs;
+
+  // Freie Plätze; belegt von Reservierungen und wartenden Versuchen, frei sobald der Flusher sie übernimmt
+  private final Semaphore slots;
+  private final BlockingQueue<AnswerAttempt> queue;
+  private final Thread flusher;
+
+  // Einreihen (read) vs. Herunterfahren (write): nach dem Stopp landet nichts mehr in der Warteschlange
+  private final ReadWriteLock stopLock = new ReentrantReadWriteLock();
+  private volatile boolean stopping;
+
+  /**
+   * Konfiguration (application.properties):
+   * - attempts.write-behind.enabled: Puffer einschalten (sonst synchrones Insert)
+   * - attempts.write-behind.capacity: maximale Anzahl gepufferter Versuche
+   * - attempts.write-behind.batch-size: Versuche pro Bulk-Insert
+   * - attempts.write-behind.flush-interval-ms: maximale Verweildauer im Puffer
+   * - attempts.write-behind.offer-timeout-ms: Wartezeit bei vollem Puffer, danach 503
+   * - attempts.write-behind.retry-after-seconds: Retry-After bei vollem Puffer
+   * - attempts.write-behind.shutdown-timeout-ms: Zeit zum Leeren beim Herunterfahren
+   */
+  public AttemptWriteBuffer(AnswerAttemptRepository attempts,
+                            MongoTemplate mongo,
+                            @Value("${attempts.write-behind.enabled:false}") boolean enabled,
+                            @Value("${attempts.write-behind.capacity:10000}") int capacity,
+                            @Value("${attempts.write-behind.batch-size:500}") int batchSize,
+                            @Value("${attempts.write-behind.flush-interval-ms:200}") long flushIntervalMs,
+                            @Value("${attempts.write-behind.offer-timeout-ms:100}") long offerTimeoutMs,
+                            @Value("${attempts.write-behind.retry-after-seconds:1}") long retryAfterSeconds,
+                            @Value("${attempts.write-behind.shutdown-timeout-ms:10000}") long shutdownTimeoutMs) {
+    this.attempts = attempts;
+    this.mongo = mongo;
+    this.enabled = enabled;
+    this.batchSize = Math.max(1, batchSize);
+    this.capacity = Math.max(this.batchSize, capacity);
+    this.flushIntervalMs = Math.max(1, flushIntervalMs);
+    this.offerTimeoutMs = Math.max(0, offerTimeoutMs);
+    this.retryAfterSeconds = retryAfterSeconds;
+    this.shutdownTimeoutMs = shutdownTimeoutMs;
+
+    if (enabled) {
+      this.slots = new Semaphore(this.capacity);
+      this.queue = new ArrayBlockingQueue<>(this.capacity);
+      this.flusher = new Thread(this::run, "attempt-flusher");
+      this.flusher.setDaemon(true);
+      this.flusher.start();
+      log.info("Attempt write-behind: capacity={}, batch={}, interval={}ms",
+          this.capacity, this.batchSize, this.flushIntervalMs);
+    } else {
+      this.slots = null;
+      this.queue = null;
+      this.flusher = null;
+    }
+  }
+
+  /**
+   * Reservierte Plätze im Puffer. Mit try-with-resources verwenden: {@link #close} gibt
+   * nicht genutzte Plätze zurück (z. B. wenn der Request vor dem Speichern scheitert).
+   */
+  public final class Reservation implements AutoCloseable {
+
+    // reservierte, noch nicht belegte Plätze (0 = direkt schreiben)
+    private int permits;
+
+    private Reservation(int permits) {
+      this.permits = permits;
+    }
+
+    /**
+     * Speichert die Versuche – gepuffert in den reservierten Plätzen oder direkt mit
+     * einem insertMany (Puffer aus, beim Herunterfahren oder Batch größer als der Puffer).
+     *
+     * @param batch neue Versuche (ohne ID), höchstens so viele wie reserviert
+     */
+    public void submit(List<AnswerAttempt> batch) {
+      if (batch.isEmpty()) return;
+      if (permits < batch.size()) {
+        attempts.insert(batch);
+        return;
+      }
+      stopLock.readLock().lock();
+      try {
+        if (stopping) {
+          attempts.insert(batch);
+          return;
+        }
+        for (AnswerAttempt a : batch) {
+          // ID schon hier vergeben, damit ein wiederholter Bulk-Insert keine Duplikate erzeugt
+          a.setId(new ObjectId().toHexString());
+          queue.add(a); // kann nicht scheitern: jeder Platz ist durch eine Reservierung gedeckt
+          permits--;
+        }
+      } finally {
+        stopLock.readLock().unlock();
+      }
+    }
+
+    @Override
+    public void close() {
+      if (permits > 0) slots.release(permits);
+      permits = 0;
+    }
+  }
+
+  /**
+   * Reserviert Plätze für {@code n} Versuche. Muss vor jeder Änderung am Nutzer passieren,
+   * damit ein voller Puffer den Request ablehnt, solange noch nichts geschrieben ist.
+   *
+   * @param n Anzahl der Versuche, die gespeichert werden sollen
+   * @return Reservierung (ohne Puffer oder bei n &gt; capacity: direktes Schreiben)
+   * @throws ServiceOverloadedException wenn die Plätze nicht rechtzeitig frei werden
+   */
+  public Reservation reserve(int n) {
+    if (!enabled || stopping || n <= 0 || n > capacity) return new Reservation(0);
+    boolean acquired;
+    try {
+      acquired = slots.tryAcquire(n, offerTimeoutMs, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      acquired = false;
+    }
+    if (!acquired) {
+      throw new ServiceOverloadedException("Too many answers at once, please retry", retryAfterSeconds);
+    }
+    return new Reservation(n);
+  }
+
+  /** Schreibt beim Herunterfahren alles noch Gepufferte. */
+  @PreDestroy
+  void shutdown() {
+    if (!enabled) return;
+    stopLock.writeLock().lock();
+    try {
+      stopping = true;
+    } finally {
+      stopLock.writeLock().unlock();
+    }
+    flusher.interrupt();
+    try {
+      flusher.join(shutdownTimeoutMs);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    // Rest direkt schreiben; danach kommt nichts mehr dazu (stopping unter Schreibsperre gesetzt)
+    List<AnswerAttempt> rest = new ArrayList<>();
+    queue.drainTo(rest);
+    for (int i = 0; i < rest.size(); i += batchSize) {
+      write(rest.subList(i, Math.min(rest.size(), i + batchSize)));
+    }
+    if (!rest.isEmpty()) log.info("Flushed {} buffered attempts on shutdown", rest.size());
+  }
+
+  /** Schleife des Hintergrund-Threads: sammeln bis Batch voll oder Intervall abgelaufen, dann schreiben. */
+  private void run() {
+    List<AnswerAttempt> batch = new ArrayList<>(batchSize);
+    while (!stopping) {
+      try {
+        AnswerAttempt first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+        if (first == null) continue;
+        batch.add(first);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        while (batch.size() < batchSize) {
+          queue.drainTo(batch, batchSize - batch.size());
+          if (batch.size() >= batchSize) break;
+          long left = deadline - System.nanoTime();
+          if (left <= 0) break;
+          AnswerAttempt next = queue.poll(left, TimeUnit.NANOSECONDS);
+          if (next == null) break;
+          batch.add(next);
+        }
+      } catch (InterruptedException e) {
+        // Herunterfahren: gesammelten Batch noch schreiben, Rest übernimmt shutdown()
+      }
+      if (!batch.isEmpty()) {
+        // Übernommene Versuche geben ihre Plätze frei (Speicher bleibt durch batch-size begrenzt)
+        slots.release(batch.size());
+        write(batch);
+        batch.clear();
+      }
+    }
+  }
+
+  /**
+   * Schreibt einen Batch ungeordnet. Doppelte IDs (aus einem schon teilweise geschriebenen
+   * Versuch) gelten als erledigt; andere Fehler werden einige Male wiederholt.
+   */
+  private void write(List<AnswerAttempt> batch) {
+    List<AnswerAttempt> pending = batch;
+    for (int attempt = 1; !pending.isEmpty(); attempt++) {
+      try {
+        mongo.bulkOps(BulkMode.UNORDERED, AnswerAttempt.class).insert(pending).execute();
+        return;
+      } catch (BulkOperationException e) {
+        List<AnswerAttempt> failed = new ArrayList<>();
+        for (BulkWriteError err : e.getErrors()) {
+          if (err.getCode() != DUPLICATE_KEY) failed.add(pending.get(err.getIndex()));
+        }
+        pending = failed;
+        if (pending.isEmpty()) return;
+        if (attempt >= MAX_RETRIES) break;
+        log.warn("Bulk insert of attempts partly failed, retrying {} of them", pending.size());
+      } catch (RuntimeException e) {
+        if (attempt >= MAX_RETRIES) break;
+        log.warn("Bulk insert of {} attempts failed, retrying: {}", pending.size(), e.getMessage());
+      }
+      backoff(attempt);
+    }
+    log.error("Dropping {} attempts after {} failed writes", pending.size(), MAX_RETRIES);
+  }
+
+  private void backoff(int attempt) {
+    try {
+      Thread.sleep(100L * attempt);
+    } catch (InterruptedException e) {
+      // beim Herunterfahren ohne Pause weiter versuchen
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,219 @@
+package com.example.momolearn.service;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
+import org.apache.pdfbox.io.RandomAccessBufferedFileInputStream;
+import org.apache.pdfbox.io.RandomAccessRead;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Date;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Speicher-Backend auf einem lokalen bzw. eingehängten Dateisystem.
+ *
+ * Hält die Bytes aus der Datenbank heraus: nur der Referenzzähler liegt in MongoDB
+ * (Collection "blob_refs", _id = SHA-256).
+ *
+ * - Inhaltsadressiert: storageId ist der SHA-256, Pfad {root}/ab/cd/abcd…
+ *   (zwei Verzeichnisebenen aus dem Hash, damit kein Verzeichnis zu groß wird)
+ * - Schreiben: erst in {root}/.tmp, nach fsync atomar an den Zielpfad umbenannt;
+ *   halbe Dateien sind unter dem Zielpfad nie sichtbar
+ * - Lesen: FileChannel mit Positionierung; Downloads über transferTo in den Antwortstrom
+ *   (kein Zero-Copy: das Ziel ist ein gekapselter Servlet-Stream, kein Socket-Channel)
+ *
+ * Speichern und Freigeben desselben Inhalts werden über Lock-Streifen serialisiert.
+ * Das gilt pro Prozess – mehrere Instanzen auf demselben Verzeichnis sind nicht vorgesehen.
+ */
+@Component
+public class FileSystemUploadStorage implements UploadStorage {
+
+  /** Name dieses Backends (UploadDoc.storage). */
+  public static final String NAME = "filesystem";
+
+  private static final String REFS_COLLECTION = "blob_refs";
+  private static final Pattern SHA256_HEX = Pattern.compile("[0-9a-f]{64}");
+  private static final int LOCK_STRIPES = 64;
+  private static final long TRANSFER_STEP = 8L * 1024 * 1024;
+
+  private final MongoTemplate mongo;
+  private final Path root;
+  private final Object[] locks = new Object[LOCK_STRIPES];
+
+  /**
+   * @param root Wurzelverzeichnis (uploads.storage.fs.root)
+   */
+  public FileSystemUploadStorage(MongoTemplate mongo,
+                                 @Value("${uploads.storage.fs.root:./data/uploads}") Path root) {
+    this.mongo = mongo;
+    this.root = root.toAbsolutePath().normalize();
+    for (int i = 0; i < LOCK_STRIPES; i++) locks[i] = new Object();
+  }
+
+  @Override
+  public String name() {
+    return NAME;
+  }
+
+  @Override
+  public String store(UploadInputStream in, String filename, String contentType) throws IOException {
+    Path tmpDir = root.resolve(".tmp");
+    Files.createDirectories(tmpDir);
+    Path tmp = tmpDir.resolve(UUID.randomUUID().toString());
+
+    // 1. In Temp-Datei schreiben (Hash/Größe/Signatur prüft der UploadInputStream)
+    try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+      ReadableByteChannel src = Channels.newChannel(in);
+      long pos = 0;
+      long n;
+      while ((n = out.transferFrom(src, pos, TRANSFER_STEP)) > 0) {
+        pos += n;
+      }
+      out.force(true);
+    } catch (IOException | RuntimeException e) {
+      Files.deleteIfExists(tmp);
+      throw e;
+    }
+
+    // 2. Referenz zählen und Datei atomar an ihren Platz bringen
+    String sha256 = in.getSha256Hex();
+    synchronized (lockFor(sha256)) {
+      refs().updateOne(Filters.eq("_id", sha256),
+          Updates.combine(Updates.inc("refCount", 1),
+              Updates.setOnInsert("size", in.getSize()),
+              Updates.setOnInsert("createdAt", new Date())),
+          new UpdateOptions().upsert(true));
+      try {
+        Path target = pathFor(sha256);
+        if (Files.exists(target)) {
+          Files.delete(tmp); // Inhalt gibt es schon
+        } else {
+          Files.createDirectories(target.getParent());
+          Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+        }
+      } catch (IOException e) {
+        refs().updateOne(Filters.eq("_id", sha256), Updates.inc("refCount", -1));
+        Files.deleteIfExists(tmp);
+        throw e;
+      }
+    }
+    return sha256;
+  }
+
+  @Override
+  public String retain(String sha256) {
+    if (!SHA256_HEX.matcher(sha256).matches()) return null;
+    synchronized (lockFor(sha256)) {
+      if (!Files.exists(pathFor(sha256))) return null;
+      Document hit = refs().findOneAndUpdate(
+          Filters.and(Filters.eq("_id", sha256), Filters.gt("refCount", 0)),
+          Updates.inc("refCount", 1));
+      return (hit != null) ? sha256 : null;
+    }
+  }
+
+  @Override
+  public InputStream open(String storageId, long offset) throws IOException {
+    FileChannel ch = openChannel(storageId);
+    if (offset > ch.size()) {
+      ch.close();
+      throw new IOException("Offset " + offset + " liegt hinter dem Dateiende");
+    }
+    ch.position(offset);
+    return Channels.newInputStream(ch);
+  }
+
+  /** Gepuffertes Lesen direkt aus der Datei. */
+  @Override
+  public RandomAccessRead openRandomAccess(String storageId) throws IOException {
+    Path path = checkedPath(storageId);
+    if (!Files.exists(path)) throw new FileNotFoundException("Datei nicht gefunden: " + storageId);
+    return new RandomAccessBufferedFileInputStream(path.toFile());
+  }
+
+  /**
+   * Überträgt den Ausschnitt per FileChannel.transferTo in den Ausgabestrom.
+   *
+   * Das ist kein Zero-Copy (sendfile): Ziel ist ein per Channels.newChannel gekapselter
+   * Servlet-OutputStream, dafür kopiert das JDK intern über einen Heap-Puffer. Gegenüber
+   * dem Default aus {@link UploadStorage} entfallen nur der eigene Puffer, der
+   * InputStream mit Positionierung und die Leseschleife hier.
+   */
+  @Override
+  public void copyTo(String storageId, long offset, long length, OutputStream out) throws IOException {
+    try (FileChannel ch = openChannel(storageId)) {
+      WritableByteChannel target = Channels.newChannel(out);
+      long pos = offset;
+      long end = Math.min(ch.size(), offset + length);
+      while (pos < end) {
+        long n = ch.transferTo(pos, Math.min(TRANSFER_STEP, end - pos), target);
+        if (n <= 0) break;
+        pos += n;
+      }
+    }
+  }
+
+  @Override
+  public void release(String storageId) throws IOException {
+    Path path = checkedPath(storageId);
+    synchronized (lockFor(storageId)) {
+      Document after = refs().findOneAndUpdate(
+          Filters.and(Filters.eq("_id", storageId), Filters.gt("refCount", 0)),
+          Updates.inc("refCount", -1),
+          new FindOneAndUpdateOptions().returnDocument(ReturnDocument.AFTER));
+      if (after == null || after.getInteger("refCount", 0) <= 0) {
+        refs().deleteOne(Filters.and(Filters.eq("_id", storageId), Filters.lte("refCount", 0)));
+        Files.deleteIfExists(path);
+      }
+    }
+  }
+
+  private FileChannel openChannel(String storageId) throws IOException {
+    try {
+      return FileChannel.open(checkedPath(storageId), StandardOpenOption.READ);
+    } catch (NoSuchFileException e) {
+      throw new FileNotFoundException("Datei nicht gefunden: " + storageId);
+    }
+  }
+
+  /** Pfad zur storageId; prüft das Format, damit keine Pfade außerhalb von root entstehen. */
+  private Path checkedPath(String storageId) throws FileNotFoundException {
+    if (storageId == null || !SHA256_HEX.matcher(storageId).matches()) {
+      throw new FileNotFoundException("Invalid storage id: " + storageId);
+    }
+    return pathFor(storageId);
+  }
+
+  private Path pathFor(String sha256) {
+    return root.resolve(sha256.substring(0, 2)).resolve(sha256.substring(2, 4)).resolve(sha256);
+  }
+
+  private Object lockFor(String sha256) {
+    return locks[(sha256.hashCode() & 0x7fffffff) % LOCK_STRIPES];
+  }
+
+  private MongoCollection<Document> refs() {
+    return mongo.getCollection(REFS_COLLECTION);
+  }
+}
@@ -1,35 +1,98 @@
 package com.example.momolearn.service;
 
+import java.time.Duration;
 import java.time.Instant;
-import java.time.LocalDate;
-import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
 
+import com.example.momolearn.dto.AccuracyDto;
+import com.example.momolearn.dto.AttemptBatchItem;
+import com.example.momolearn.dto.AttemptBatchItemResult;
+import com.example.momolearn.dto.AttemptBatchResultDto;
 import com.example.momolearn.dto.AttemptResultDto;
 import com.example.momolearn.dto.UserStatsDto;
 import com.example.momolearn.model.AnswerAttempt;
 import com.example.momolearn.model.Question;
 import com.example.momolearn.model.User;
-import com.example.momolearn.repository.AnswerAttemptRepository;
+import com.example.momolearn.model.UserStats;
 import com.example.momolearn.repository.QuestionRepository;
-import com.example.momolearn.repository.UserRepository;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.Updates;
 
 @Service
 public class GamificationService {
 
-  private final UserRepository users;
+  // Grund-XP für eine richtige Antwort
+  private static final int BASE_XP = 10;
+
+  // Maximaler Bonus je Tages-Streak
+  private static final int MAX_STREAK_BONUS = 5;
+
+  // Levelaufstieg: alle 100 XP (lineare Levelkurve, so auch in der Update-Pipeline)
+  private static final int XP_PER_LEVEL = 100;
+
+  private static final long DAY_MILLIS = 86_400_000L;
+
+  // Versuche beim Schreiben eines Batches, wenn der Nutzer parallel verändert wurde
+  private static final int MAX_CAS_RETRIES = 3;
+
   private final QuestionRepository questions;
-  private final AnswerAttemptRepository attempts;
+  private final MongoTemplate mongo;
+  private final AttemptWriteBuffer attemptWriter;
+  private final UserStatsService userStats;
+  private final LeaderboardService leaderboard;
+  // user_stats-$inc läuft auf Springs Task-Pool, parallel zum Insert der Versuche
+  private final Executor afterUpdate;
+  private final int maxBatchItems;
+  private final Duration maxBatchAge;
 
-  public GamificationService(UserRepository users,
-                             QuestionRepository questions,
-                             AnswerAttemptRepository attempts) {
-    this.users = users;
+  /**
+   * Konfiguration (application.properties):
+   * - attempts.batch.max-items: maximale Versuche pro Batch (POST /users/{userId}/attempts)
+   * - attempts.batch.max-age: so weit darf answeredAt eines Versuchs zurückliegen
+   */
+  public GamificationService(QuestionRepository questions,
+                             MongoTemplate mongo,
+                             AttemptWriteBuffer attemptWriter,
+                             UserStatsService userStats,
+                             LeaderboardService leaderboard,
+                             @Qualifier("applicationTaskExecutor") Executor afterUpdate,
+                             @Value("${attempts.batch.max-items:100}") int maxBatchItems,
+                             @Value("${attempts.batch.max-age:PT24H}") Duration maxBatchAge) {
     this.questions = questions;
-    this.attempts = attempts;
+    this.mongo = mongo;
+    this.attemptWriter = attemptWriter;
+    this.userStats = userStats;
+    this.leaderboard = leaderboard;
+    this.afterUpdate = afterUpdate;
+    this.maxBatchItems = Math.max(1, maxBatchItems);
+    this.maxBatchAge = maxBatchAge;
   }
 
   /**
@@ -39,121 +102,410 @@ public class GamificationService {
    * - Speichert den Versuch in der Datenbank
    * - Aktualisiert die Nutzerstatistiken
    *
+   * Streak, XP, Level und lastAnswerAt werden in einem einzigen findAndModify mit
+   * Update-Pipeline auf dem Server berechnet. Gleichzeitige Antworten (z. B. zwei Tabs)
+   * können sich so nicht mehr gegenseitig überschreiben, und der User muss vorher
+   * nicht geladen werden. Danach laufen Insert des Versuchs und $inc der Statistiken
+   * gleichzeitig (beide hängen nur vom Ergebnis des Nutzer-Updates ab).
+   *
    * @param userId       ID des Nutzers
    * @param questionId   ID der Frage
    * @param chosenIndex  Gewählter Antwortindex (0..3)
    * @return Ergebnis mit Informationen für das Frontend
    */
   public AttemptResultDto recordAttempt(String userId, String questionId, int chosenIndex) {
-    // --- 1) Nutzer prüfen ---
-    User u = users.findById(userId)
-        .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
-
-    // --- 2) Frage prüfen ---
-    Question q = questions.findById(questionId)
-        .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Question not found"));
-
-    // --- 3) Validierung des Antwort-Index ---
+    // --- 1) Validierung des Antwort-Index (ohne DB) ---
     if (chosenIndex < 0 || chosenIndex > 3) {
       throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "chosenIndex must be 0..3");
     }
 
-    // --- 4) Korrektheit prüfen ---
+    // --- 2) Frage prüfen (nur correctIndex laden) ---
+    Question q = questions.findCorrectIndexById(questionId)
+        .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Question not found"));
+
+    // --- 3) Korrektheit prüfen ---
     boolean correct = (chosenIndex == q.getCorrectIndex());
 
-    // --- 5) Streak-Logik (basierend auf UTC-Datum) ---
-    Instant now = Instant.now();
-    LocalDate today = LocalDate.now(ZoneOffset.UTC);
-    LocalDate lastDay = (u.getLastAnswerAt() == null)
-        ? null
-        : u.getLastAnswerAt().atOffset(ZoneOffset.UTC).toLocalDate();
-
-    int newStreak;
-    if (lastDay == null) {
-      // Erster Versuch → Streak startet bei 1
-      newStreak = 1;
-    } else if (lastDay.isEqual(today)) {
-      // Schon heute aktiv → Streak bleibt gleich
-      newStreak = u.getStreak();
-    } else if (lastDay.plusDays(1).isEqual(today)) {
-      // Gestern aktiv → Streak +1
-      newStreak = u.getStreak() + 1;
-    } else {
-      // Pause → Streak-Reset
-      newStreak = 1;
+    // --- 4) Platz im Schreibpuffer reservieren, bevor der Nutzer geändert wird
+    //        (voller Puffer → 503, ohne dass XP schon vergeben sind) ---
+    try (AttemptWriteBuffer.Reservation slot = attemptWriter.reserve(1)) {
+
+      // --- 5) Nutzer atomar aktualisieren (Streak, XP, Level, lastAnswerAt) ---
+      Instant now = Instant.now();
+      Document after = applyAttempt(userId, correct, now);
+      if (after == null) {
+        throw new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found");
+      }
+      int streak = ((Number) after.get("streak")).intValue();
+      int xpAwarded = xpFor(correct, streak);
+
+      // --- 6+7) Versuch speichern (sofort oder gepuffert) und gleichzeitig Zähler in user_stats erhöhen ---
+      saveAttempts(slot, List.of(AnswerAttempt.builder()
+          .userId(userId)
+          .questionId(questionId)
+          .chosenIndex(chosenIndex)
+          .correct(correct)
+          .scoredXp(xpAwarded)
+          .createdAt(now)
+          .build()),
+          userId, List.of(new UserStatsService.Answer(q.getStudySetId(), q.getCourseId(), correct)), now);
+
+      // --- 8) Ranglisten aktualisieren (nur im Speicher) ---
+      int newXp = ((Number) after.get("xp")).intValue();
+      int newLevel = ((Number) after.get("level")).intValue();
+      leaderboard.onXp(userId, q.getCourseId(), xpAwarded, totalXp(newLevel, newXp), now);
+
+      // --- 9) Ergebnis zurückgeben ---
+      return AttemptResultDto.builder()
+          .correct(correct)
+          .xpAwarded(xpAwarded)
+          .newUserXp(newXp)
+          .newUserLevel(newLevel)
+          .streak(streak)
+          .build();
+    }
+  }
+
+  /**
+   * Verarbeitet mehrere Antwortversuche auf einmal (z. B. eine abgeschlossene Quizrunde).
+   *
+   * Statt pro Versuch Frage laden, Nutzer aktualisieren und Versuch speichern:
+   * 1. alle Fragen mit einer Abfrage laden (nur correctIndex, Set, Kurs)
+   * 2. Nutzer einmal lesen und Streak/XP/Level in Request-Reihenfolge im Speicher
+   *    fortschreiben ({@link Progress#answer}, gleiche Regeln wie die Update-Pipeline)
+   * 3. Nutzer einmal schreiben – nur wenn er seit dem Lesen unverändert ist (Compare-and-Set);
+   *    sonst neu lesen und erneut rechnen (höchstens {@value #MAX_CAS_RETRIES}-mal, dann 409)
+   * 4. alle Versuche mit einem Insert speichern, gleichzeitig Statistiken mit einem $inc
+   *
+   * Der Platz im Schreibpuffer wird vorab für alle Einträge reserviert; ist er voll, gibt es
+   * 503, bevor der Nutzer geändert wurde.
+   *
+   * Ungültige Einträge und unbekannte Fragen werden einzeln gemeldet und nicht gezählt.
+   * Streak, XP und lastAnswerAt richten sich nach der Serverzeit; answeredAt wird nur als
+   * createdAt des Versuchs gespeichert, begrenzt auf [jetzt − attempts.batch.max-age, jetzt].
+   *
+   * @param userId ID des Nutzers
+   * @param items  Versuche in Antwortreihenfolge
+   * @return Ergebnis pro Eintrag plus Endstand des Nutzers
+   */
+  public AttemptBatchResultDto recordAttempts(String userId, List<AttemptBatchItem> items) {
+    if (items.size() > maxBatchItems) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At most " + maxBatchItems + " attempts per batch");
+    }
+    if (!ObjectId.isValid(userId)) {
+      throw new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found");
+    }
+    Instant now = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+    Instant oldest = now.minus(maxBatchAge);
+
+    // --- 1) Alle Fragen mit einer Abfrage laden ---
+    Set<String> ids = new HashSet<>();
+    for (AttemptBatchItem it : items) {
+      if (it != null && it.getQuestionId() != null) ids.add(it.getQuestionId());
     }
+    Map<String, Question> byId = new HashMap<>();
+    for (Question q : questions.findAnswerKeysByIdIn(ids)) byId.put(q.getId(), q);
 
-    // --- 6) XP- und Level-Berechnung ---
-    int base = correct ? 10 : 0;                    // Grund-XP für richtige Antwort
-    int bonus = correct ? Math.min(newStreak, 5) : 0; // Bonus je Tages-Streak (max +5)
-    int xpAwarded = base + bonus;
+    MongoCollection<Document> userColl = mongo.getCollection(mongo.getCollectionName(User.class));
+    Bson byUser = Filters.eq("_id", new ObjectId(userId));
 
-    int accumulatedXp = u.getXp() + xpAwarded;
-    int newLevel = u.getLevel();
+    // Platz für alle Versuche im Schreibpuffer reservieren, bevor der Nutzer geändert wird;
+    // ein voller Puffer lehnt den ganzen Batch ab, solange noch nichts gezählt ist
+    try (AttemptWriteBuffer.Reservation slot = attemptWriter.reserve(items.size())) {
+      for (int round = 1; ; round++) {
+        // --- 2) Nutzer lesen und alle Versuche im Speicher auswerten ---
+        Document u = userColl.find(byUser)
+            .projection(Projections.include("xp", "level", "streak", "lastAnswerAt"))
+            .first();
+        if (u == null) {
+          throw new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found");
+        }
+        Progress p = Progress.of(u);
 
-    // Levelaufstieg: alle 100 XP
-    while (accumulatedXp >= xpNeededForNext(newLevel)) {
-      accumulatedXp -= xpNeededForNext(newLevel);
-      newLevel++;
+        List<AttemptBatchItemResult> results = new ArrayList<>(items.size());
+        List<AnswerAttempt> newAttempts = new ArrayList<>();
+        List<UserStatsService.Answer> answers = new ArrayList<>();
+        List<String> courseIds = new ArrayList<>();
+        List<Integer> awardedXp = new ArrayList<>();
+        List<Integer> totals = new ArrayList<>();
+        int xpSum = 0;
+
+        for (int i = 0; i < items.size(); i++) {
+          AttemptBatchItem it = items.get(i);
+          String qid = (it != null) ? it.getQuestionId() : null;
+          String error = null;
+          String status = "INVALID";
+          if (it == null || qid == null || qid.isBlank()) {
+            error = "questionId is required";
+          } else if (it.getChosenIndex() < 0 || it.getChosenIndex() > 3) {
+            error = "chosenIndex must be 0..3";
+          } else if (!byId.containsKey(qid)) {
+            status = "QUESTION_NOT_FOUND";
+            error = "Question not found";
+          }
+          if (error != null) {
+            results.add(AttemptBatchItemResult.builder().index(i).questionId(qid).status(status).error(error)
+                .newUserXp(p.xp()).newUserLevel(p.level()).streak(p.streak()).build());
+            continue;
+          }
+
+          Question q = byId.get(qid);
+          boolean correct = (it.getChosenIndex() == q.getCorrectIndex());
+          // Streak nach Serverzeit (sonst ließen sich verpasste Tage nachtragen);
+          // answeredAt bestimmt nur createdAt des Versuchs
+          Instant at = answeredAt(it.getAnsweredAt(), oldest, now);
+          p = p.answer(correct, now);
+          int awarded = xpFor(correct, p.streak());
+          xpSum += awarded;
+
+          newAttempts.add(AnswerAttempt.builder()
+              .userId(userId)
+              .questionId(qid)
+              .chosenIndex(it.getChosenIndex())
+              .correct(correct)
+              .scoredXp(awarded)
+              .createdAt(at)
+              .build());
+          answers.add(new UserStatsService.Answer(q.getStudySetId(), q.getCourseId(), correct));
+          courseIds.add(q.getCourseId());
+          awardedXp.add(awarded);
+          totals.add(totalXp(p.level(), p.xp()));
+          results.add(AttemptBatchItemResult.builder().index(i).questionId(qid).status("RECORDED")
+              .correct(correct).xpAwarded(awarded)
+              .newUserXp(p.xp()).newUserLevel(p.level()).streak(p.streak()).build());
+        }
+
+        // --- 3) Nutzer einmal schreiben, nur wenn unverändert seit dem Lesen ---
+        if (!newAttempts.isEmpty()) {
+          Bson unchanged = Filters.and(byUser,
+              Filters.eq("xp", u.get("xp")),
+              Filters.eq("level", u.get("level")),
+              Filters.eq("streak", u.get("streak")),
+              Filters.eq("lastAnswerAt", u.get("lastAnswerAt")));
+          long matched = userColl.updateOne(unchanged, Updates.combine(
+              Updates.set("xp", p.xp()),
+              Updates.set("level", p.level()),
+              Updates.set("streak", p.streak()),
+              Updates.set("lastAnswerAt", Date.from(p.lastAnswerAt())))).getMatchedCount();
+          if (matched == 0) {
+            if (round >= MAX_CAS_RETRIES) {
+              throw new ResponseStatusException(HttpStatus.CONFLICT, "User was updated concurrently, please retry");
+            }
+            continue;
+          }
+
+          // --- 4) Versuche und Statistiken gesammelt schreiben, Ranglisten aktualisieren ---
+          saveAttempts(slot, newAttempts, userId, answers, now);
+          for (int k = 0; k < awardedXp.size(); k++) {
+            // Wochenrangliste nach Serverzeit: Client-Zeitpunkte dürfen keine frühere Woche aufmachen
+            leaderboard.onXp(userId, courseIds.get(k), awardedXp.get(k), totals.get(k), now);
+          }
+        }
+
+        return AttemptBatchResultDto.builder()
+            .recorded(newAttempts.size())
+            .rejected(items.size() - newAttempts.size())
+            .xpAwarded(xpSum)
+            .newUserXp(p.xp())
+            .newUserLevel(p.level())
+            .streak(p.streak())
+            .results(results)
+            .build();
+      }
     }
+  }
 
-    // --- 7) Nutzer aktualisieren ---
-    u.setStreak(newStreak);
-    u.setLastAnswerAt(now);
-    u.setXp(accumulatedXp);
-    u.setLevel(newLevel);
-    users.save(u);
-
-    // --- 8) Versuch speichern ---
-    attempts.save(AnswerAttempt.builder()
-        .userId(userId)
-        .questionId(questionId)
-        .chosenIndex(chosenIndex)
-        .correct(correct)
-        .scoredXp(xpAwarded)
-        .createdAt(now)
-        .build());
-
-    // --- 9) Ergebnis zurückgeben ---
-    return AttemptResultDto.builder()
-        .correct(correct)
-        .xpAwarded(xpAwarded)
-        .newUserXp(u.getXp())
-        .newUserLevel(u.getLevel())
-        .streak(u.getStreak())
-        .build();
+  /**
+   * Speichert die Versuche und erhöht die Statistiken gleichzeitig: das $inc auf user_stats
+   * läuft auf dem Task-Pool, während dieser Thread die Versuche einfügt bzw. puffert.
+   * Kehrt erst zurück, wenn beides erledigt ist; Fehler beider Seiten werden weitergereicht.
+   */
+  private void saveAttempts(AttemptWriteBuffer.Reservation slot, List<AnswerAttempt> attempts,
+                            String userId, List<UserStatsService.Answer> answers, Instant now) {
+    CompletableFuture<Void> stats = CompletableFuture.runAsync(() -> userStats.record(userId, answers, now), afterUpdate);
+    slot.submit(attempts);
+    try {
+      stats.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException re) throw re;
+      throw e;
+    }
+  }
+
+  /**
+   * createdAt eines Versuchs aus einem Batch: Client-Zeit begrenzt auf [oldest, now]
+   * (fehlend → now).
+   */
+  private static Instant answeredAt(Instant requested, Instant oldest, Instant now) {
+    Instant at = (requested == null || requested.isAfter(now)) ? now : requested.truncatedTo(ChronoUnit.MILLIS);
+    return at.isBefore(oldest) ? oldest : at;
+  }
+
+  /**
+   * Stand eines Nutzers (XP im Level, Level, Streak, letzte Antwort) für die Auswertung
+   * im Speicher. {@link #answer} folgt denselben Regeln wie die Update-Pipeline in
+   * {@link #applyAttempt}; ohne Seiteneffekte.
+   */
+  record Progress(int xp, int level, int streak, Instant lastAnswerAt) {
+
+    /** Liest den Stand aus einem users-Dokument (fehlende Felder wie in der Pipeline). */
+    static Progress of(Document u) {
+      Date last = u.getDate("lastAnswerAt");
+      return new Progress(
+          u.get("xp") instanceof Number n ? n.intValue() : 0,
+          u.get("level") instanceof Number n ? n.intValue() : 1,
+          u.get("streak") instanceof Number n ? n.intValue() : 0,
+          last != null ? last.toInstant() : null);
+    }
+
+    /**
+     * Stand nach einer Antwort zum Zeitpunkt {@code at}: Streak nach UTC-Tag (gleicher Tag →
+     * gleich, Folgetag → +1, sonst 1), bei richtiger Antwort XP addieren und in Level umrechnen.
+     */
+    Progress answer(boolean correct, Instant at) {
+      long day = Math.floorDiv(at.toEpochMilli(), DAY_MILLIS);
+      int s;
+      if (lastAnswerAt == null) {
+        s = 1;
+      } else {
+        long lastDay = Math.floorDiv(lastAnswerAt.toEpochMilli(), DAY_MILLIS);
+        s = (lastDay == day) ? streak : (lastDay + 1 == day) ? streak + 1 : 1;
+      }
+      int x = xp;
+      int l = level;
+      if (correct) {
+        int total = xp + xpFor(true, s);
+        l = level + total / XP_PER_LEVEL;
+        x = total % XP_PER_LEVEL;
+      }
+      return new Progress(x, l, s, at);
+    }
+  }
+
+  /**
+   * Führt das Update des Nutzers als Pipeline auf dem Server aus und liefert den neuen
+   * Stand (xp, level, streak) oder null, falls es den Nutzer nicht gibt.
+   *
+   * Stufe 1: Streak aus dem UTC-Tag von lastAnswerAt (gleicher Tag → gleich, Vortag → +1,
+   *          sonst 1) und lastAnswerAt = jetzt
+   * Stufe 2: nur bei richtiger Antwort XP addieren (10 + min(Streak, 5)) und volle
+   *          {@link #XP_PER_LEVEL} in Level umrechnen
+   */
+  private Document applyAttempt(String userId, boolean correct, Instant now) {
+    if (!ObjectId.isValid(userId)) return null;
+
+    long today = Math.floorDiv(now.toEpochMilli(), DAY_MILLIS);
+    Document lastDay = new Document("$floor",
+        new Document("$divide", List.of(new Document("$toLong", "$lastAnswerAt"), DAY_MILLIS)));
+    Document oldStreak = new Document("$ifNull", List.of("$streak", 0));
+    Document neverAnswered = new Document("$eq",
+        Arrays.asList(new Document("$ifNull", Arrays.asList("$lastAnswerAt", null)), null));
+
+    Document streak = new Document("$switch", new Document("branches", List.of(
+        // Erster Versuch → Streak startet bei 1
+        new Document("case", neverAnswered).append("then", 1),
+        // Schon heute aktiv → Streak bleibt gleich
+        new Document("case", new Document("$eq", List.of(lastDay, today))).append("then", oldStreak),
+        // Gestern aktiv → Streak +1
+        new Document("case", new Document("$eq", List.of(new Document("$add", List.of(lastDay, 1)), today)))
+            .append("then", new Document("$add", List.of(oldStreak, 1)))))
+        // Pause → Streak-Reset
+        .append("default", 1));
+
+    List<Bson> pipeline = new ArrayList<>();
+    pipeline.add(new Document("$set", new Document("streak", streak).append("lastAnswerAt", Date.from(now))));
+    if (correct) {
+      // "$streak" ist hier schon der neue Wert aus Stufe 1
+      Document total = new Document("$add", List.of(
+          new Document("$ifNull", List.of("$xp", 0)), BASE_XP,
+          new Document("$min", List.of("$streak", MAX_STREAK_BONUS))));
+      pipeline.add(new Document("$set", new Document()
+          .append("level", new Document("$toInt", new Document("$add", List.of(
+              new Document("$ifNull", List.of("$level", 1)),
+              new Document("$floor", new Document("$divide", List.of(total, XP_PER_LEVEL)))))))
+          .append("xp", new Document("$mod", List.of(total, XP_PER_LEVEL)))));
+    }
+
+    return mongo.getCollection(mongo.getCollectionName(User.class)).findOneAndUpdate(
+        Filters.eq("_id", new ObjectId(userId)),
+        pipeline,
+        new FindOneAndUpdateOptions()
+            .projection(Projections.include("xp", "level", "streak"))
+            .returnDocument(ReturnDocument.AFTER));
+  }
+
+  /** XP für einen Versuch: 10 für eine richtige Antwort plus Bonus je Tages-Streak (max +5). */
+  private static int xpFor(boolean correct, int streak) {
+    return correct ? BASE_XP + Math.min(streak, MAX_STREAK_BONUS) : 0;
+  }
+
+  /**
+   * Gesamt-XP aus Level und XP im aktuellen Level (Level 1 beginnt bei 0 XP).
+   * Grundlage der Gesamt-Rangliste.
+   */
+  public static int totalXp(int level, int xp) {
+    return (Math.max(1, level) - 1) * XP_PER_LEVEL + xp;
   }
 
   /**
    * Gibt die aktuellen Statistiken eines Nutzers zurück:
    * - XP, Level, Streak
-   * - Anzahl der korrekt beantworteten Fragen
+   * - Anzahl der Antworten, davon richtig, Trefferquote gesamt/pro Kurs/pro Set
+   *
+   * Ein Roundtrip: Nutzer per _id lesen und die Zähler aus "user_stats" per $lookup
+   * (ebenfalls über _id) dazuholen. answer_attempts wird nicht mehr gezählt.
    *
    * @param userId ID des Nutzers
    * @return UserStatsDto mit den aktuellen Werten
    */
   public UserStatsDto stats(String userId) {
-    User u = users.findById(userId)
-        .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
+    if (!ObjectId.isValid(userId)) {
+      throw new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found");
+    }
+    List<Bson> pipeline = List.of(
+        Aggregates.match(Filters.eq("_id", new ObjectId(userId))),
+        Aggregates.project(Projections.include("xp", "level", "streak")),
+        Aggregates.lookup(mongo.getCollectionName(UserStats.class), "_id", "_id", "stats"));
+    Document u = mongo.getCollection(mongo.getCollectionName(User.class)).aggregate(pipeline).first();
+    if (u == null) {
+      throw new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found");
+    }
 
-    long correct = attempts.countByUserIdAndCorrectIsTrue(userId);
+    List<Document> found = u.getList("stats", Document.class);
+    Document s = found.isEmpty() ? new Document() : found.get(0);
+    long total = number(s.get("total"));
+    long correct = number(s.get("correct"));
 
     return UserStatsDto.builder()
-        .xp(u.getXp())
-        .level(u.getLevel())
-        .streak(u.getStreak())
+        .xp((int) number(u.get("xp")))
+        .level((int) number(u.get("level")))
+        .streak((int) number(u.get("streak")))
         .correctAnswers(correct)
+        .totalAnswers(total)
+        .accuracy(accuracy(correct, total))
+        .courses(toAccuracy(s.get("courses", Document.class)))
+        .studySets(toAccuracy(s.get("sets", Document.class)))
         .build();
   }
 
-  /**
-   * Gibt die benötigte XP-Menge für den nächsten Levelaufstieg zurück.
-   * Aktuell ist die Levelkurve linear: 100 XP je Level.
-   *
-   * @param level Aktuelles Level
-   * @return XP-Bedarf für das nächste Level
-   */
-  private int xpNeededForNext(int level) {
-    return 100;
+  /** Wandelt die Zähler-Map aus user_stats ({key: {total, correct}}) in DTOs um. */
+  private static Map<String, AccuracyDto> toAccuracy(Document counters) {
+    Map<String, AccuracyDto> out = new LinkedHashMap<>();
+    if (counters == null) return out;
+    for (Map.Entry<String, Object> e : counters.entrySet()) {
+      if (!(e.getValue() instanceof Document c)) continue;
+      long total = number(c.get("total"));
+      long correct = number(c.get("correct"));
+      out.put(e.getKey(), new AccuracyDto(total, correct, accuracy(correct, total)));
+    }
+    return out;
+  }
+
+  private static double accuracy(long correct, long total) {
+    return (total > 0) ? (double) correct / total : 0.0;
+  }
+
+  private static long number(Object v) {
+    return (v instanceof Number n) ? n.longValue() : 0L;
   }
 }
@@ -0,0 +1,208 @@
+package com.example.momolearn.service;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Sorts;
+import org.apache.pdfbox.io.RandomAccessRead;
+import org.bson.Document;
+import org.bson.types.Binary;
+import org.bson.types.ObjectId;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Wahlfreier Lesezugriff auf eine GridFS-Datei für PDFBox.
+ *
+ * PDFBox springt beim Parsen: erst zum Trailer am Dateiende, dann zur
+ * Cross-Reference-Tabelle und von dort zu den einzelnen Objekten. Statt die Datei
+ * vorher komplett zu kopieren, lädt diese Klasse nur die GridFS-Chunks, in denen
+ * gerade gelesen wird, und hält die zuletzt benutzten in einem kleinen LRU-Cache.
+ *
+ * Wird sequenziell über Chunk-Grenzen gelesen (z. B. ein großer Content-Stream),
+ * werden die folgenden Chunks mit einer Abfrage vorab geladen.
+ *
+ * Nicht thread-safe (wie PDFBox selbst: ein Dokument, ein Thread).
+ */
+public class GridFsRandomAccessRead implements RandomAccessRead {
+
+  /** Anzahl der Chunks, die bei sequenziellem Lesen gemeinsam geladen werden. */
+  private static final int READ_AHEAD = 4;
+
+  private final MongoCollection<Document> chunks;
+  private final ObjectId filesId;
+  private final long length;
+  private final int chunkSize;
+  private final LinkedHashMap<Integer, byte[]> cache;
+
+  private long position;
+  private boolean closed;
+
+  // Schneller Pfad für wiederholte Zugriffe auf denselben Chunk
+  private byte[] current;
+  private int currentN = -1;
+  private int lastLoadedN = -2;
+
+  /**
+   * @param chunks      Collection "fs.chunks"
+   * @param filesId     ID der GridFS-Datei
+   * @param length      Dateigröße in Bytes (aus fs.files)
+   * @param chunkSize   Chunkgröße der Datei (aus fs.files)
+   * @param cacheChunks maximale Anzahl gecachter Chunks
+   */
+  public GridFsRandomAccessRead(MongoCollection<Document> chunks, ObjectId filesId, long length,
+                                int chunkSize, int cacheChunks) {
+    this.chunks = chunks;
+    this.filesId = filesId;
+    this.length = length;
+    this.chunkSize = chunkSize;
+    // mindestens ein Read-Ahead-Block plus der zuletzt benutzte Chunk
+    final int maxEntries = Math.max(READ_AHEAD + 1, cacheChunks);
+    this.cache = new LinkedHashMap<>(maxEntries * 2, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Integer, byte[]> eldest) {
+        return size() > maxEntries;
+      }
+    };
+  }
+
+  @Override
+  public int read() throws IOException {
+    checkClosed();
+    if (position >= length) return -1;
+    byte[] c = chunk((int) (position / chunkSize));
+    int b = c[(int) (position % chunkSize)] & 0xFF;
+    position++;
+    return b;
+  }
+
+  @Override
+  public int read(byte[] b) throws IOException {
+    return read(b, 0, b.length);
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    checkClosed();
+    if (len == 0) return 0;
+    if (position >= length) return -1;
+
+    int total = 0;
+    while (total < len && position < length) {
+      int n = (int) (position / chunkSize);
+      byte[] c = chunk(n);
+      int inChunk = (int) (position - (long) n * chunkSize);
+      int k = Math.min(len - total, c.length - inChunk);
+      if (k <= 0) throw new IOException("GridFS-Chunk " + n + " von " + filesId + " ist zu kurz");
+      System.arraycopy(c, inChunk, b, off + total, k);
+      position += k;
+      total += k;
+    }
+    return total;
+  }
+
+  @Override
+  public long getPosition() throws IOException {
+    checkClosed();
+    return position;
+  }
+
+  @Override
+  public void seek(long pos) throws IOException {
+    checkClosed();
+    if (pos < 0) throw new IOException("Ungültige Position: " + pos);
+    position = Math.min(pos, length);
+  }
+
+  @Override
+  public long length() throws IOException {
+    checkClosed();
+    return length;
+  }
+
+  @Override
+  public boolean isClosed() {
+    return closed;
+  }
+
+  @Override
+  public int peek() throws IOException {
+    int b = read();
+    if (b != -1) rewind(1);
+    return b;
+  }
+
+  @Override
+  public void rewind(int bytes) throws IOException {
+    seek(position - bytes);
+  }
+
+  @Override
+  public byte[] readFully(int n) throws IOException {
+    byte[] b = new byte[n];
+    int off = 0;
+    while (off < n) {
+      int r = read(b, off, n - off);
+      if (r == -1) throw new EOFException("Dateiende nach " + off + " von " + n + " Bytes");
+      off += r;
+    }
+    return b;
+  }
+
+  @Override
+  public boolean isEOF() throws IOException {
+    checkClosed();
+    return position >= length;
+  }
+
+  @Override
+  public int available() throws IOException {
+    checkClosed();
+    return (int) Math.min(length - position, Integer.MAX_VALUE);
+  }
+
+  @Override
+  public void close() {
+    closed = true;
+    cache.clear();
+    current = null;
+    currentN = -1;
+  }
+
+  /** Liefert Chunk {@code n} aus dem Cache oder lädt ihn (bei sequenziellem Lesen mit Folge-Chunks). */
+  private byte[] chunk(int n) throws IOException {
+    if (n == currentN) return current;
+
+    byte[] c = cache.get(n);
+    if (c == null) {
+      int count = (n == lastLoadedN + 1) ? READ_AHEAD : 1;
+      load(n, count);
+      c = cache.get(n);
+      if (c == null) throw new IOException("GridFS-Chunk " + n + " von " + filesId + " fehlt");
+    }
+    current = c;
+    currentN = n;
+    return c;
+  }
+
+  /** Lädt die Chunks [n, n+count) mit einer Abfrage in den Cache. */
+  private void load(int n, int count) {
+    int lastChunk = (int) ((length - 1) / chunkSize);
+    int to = Math.min(n + count - 1, lastChunk);
+    for (Document d : chunks.find(Filters.and(
+            Filters.eq("files_id", filesId),
+            Filters.gte("n", n),
+            Filters.lte("n", to)))
+        .sort(Sorts.ascending("n"))) {
+      int chunkN = d.getInteger("n");
+      cache.put(chunkN, d.get("data", Binary.class).getData());
+      lastLoadedN = chunkN;
+    }
+  }
+
+  private void checkClosed() throws IOException {
+    if (closed) throw new IOException("GridFsRandomAccessRead ist geschlossen");
+  }
+}
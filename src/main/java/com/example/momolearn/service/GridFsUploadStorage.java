@@ -0,0 +1,248 @@
+package com.example.momolearn.service;
+
+import com.mongodb.MongoGridFSException;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.gridfs.model.GridFSFile;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.Updates;
+import jakarta.annotation.PostConstruct;
+import org.apache.pdfbox.io.RandomAccessRead;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.gridfs.GridFsTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Date;
+import java.util.Optional;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Speicher-Backend auf Basis von MongoDB GridFS (Standard).
+ *
+ * - storageId ist die ObjectId der GridFS-Datei (Hex)
+ * - Inhalts-Hash und Referenzzähler stehen in metadata.sha256 bzw. metadata.refCount
+ * - Dateien ohne refCount (vor der Deduplizierung gespeichert) gehören genau einem Upload
+ */
+@Component
+public class GridFsUploadStorage implements UploadStorage {
+
+  /** Name dieses Backends (UploadDoc.storage). */
+  public static final String NAME = "gridfs";
+
+  // Collection der GridFS-Dateieinträge (Standard-Bucket "fs")
+  static final String FILES_COLLECTION = "fs.files";
+
+  // Collection der GridFS-Datenblöcke
+  static final String CHUNKS_COLLECTION = "fs.chunks";
+
+  private final GridFsTemplate gridFs;
+  private final MongoTemplate mongo;
+
+  // Chunk-Cache pro geöffnetem Dokument beim wahlfreien Lesen (PDF-Parsing)
+  private final int readCacheChunks;
+
+  /**
+   * @param readCacheChunks Anzahl gecachter Chunks pro wahlfreiem Leser (uploads.gridfs.read-cache-chunks)
+   */
+  public GridFsUploadStorage(GridFsTemplate gridFs, MongoTemplate mongo,
+                             @Value("${uploads.gridfs.read-cache-chunks:16}") int readCacheChunks) {
+    this.gridFs = gridFs;
+    this.mongo = mongo;
+    this.readCacheChunks = readCacheChunks;
+  }
+
+  /** Index für die Suche nach Inhalts-Hash (Deduplizierung). */
+  @PostConstruct
+  void ensureIndexes() {
+    mongo.indexOps(FILES_COLLECTION)
+        .createIndex(new Index().on("metadata.sha256", Sort.Direction.ASC).sparse());
+  }
+
+  @Override
+  public String name() {
+    return NAME;
+  }
+
+  /**
+   * Schreibt den Stream blockweise (Chunk-Größe von GridFS) in einen GridFS-Upload.
+   * Bei Abbruch (kein PDF, zu groß) verwirft GridFS bereits geschriebene Chunks.
+   * Der Hash ist erst am Ende bekannt: gibt es den Inhalt schon, wird die neue Kopie
+   * wieder gelöscht und auf die vorhandene verwiesen.
+   */
+  @Override
+  public String store(UploadInputStream in, String filename, String contentType) throws IOException {
+    ObjectId oid;
+    try {
+      oid = gridFs.store(in, filename, contentType);
+    } catch (MongoGridFSException e) {
+      // GridFS verpackt IOExceptions des Quell-Streams (auch Ablehnungen) → auspacken
+      if (e.getCause() instanceof IOException io) throw io;
+      throw e;
+    }
+
+    String sha256 = in.getSha256Hex();
+    ObjectId existing = retainBySha256(sha256, oid);
+    if (existing != null) {
+      // Inhalt gab es schon → frische Kopie verwerfen
+      gridFs.delete(query(where("_id").is(oid)));
+      return existing.toHexString();
+    }
+    files().updateOne(Filters.eq("_id", oid),
+        Updates.combine(Updates.set("metadata.sha256", sha256), Updates.set("metadata.refCount", 1)));
+    return oid.toHexString();
+  }
+
+  @Override
+  public String retain(String sha256) {
+    ObjectId oid = retainBySha256(sha256, null);
+    return (oid != null) ? oid.toHexString() : null;
+  }
+
+  /**
+   * Der GridFS-Download-Stream springt beim Überspringen direkt zum passenden Chunk,
+   * die Bytes davor werden also nicht aus der Datenbank gelesen.
+   */
+  @Override
+  public InputStream open(String storageId, long offset) throws IOException {
+    ObjectId oid = toObjectIdOrNotFound(storageId);
+
+    // Datei in GridFS finden
+    GridFSFile file = Optional.ofNullable(
+        gridFs.findOne(query(where("_id").is(oid)))
+    ).orElseThrow(() -> new FileNotFoundException("GridFS id not found: " + storageId));
+
+    InputStream in = gridFs.getResource(file).getInputStream();
+    long remaining = offset;
+    while (remaining > 0) {
+      long skipped = in.skip(remaining);
+      if (skipped <= 0) {
+        in.close();
+        throw new IOException("Offset " + offset + " liegt hinter dem Dateiende");
+      }
+      remaining -= skipped;
+    }
+    return in;
+  }
+
+  /**
+   * Liest nur die Chunks, die PDFBox tatsächlich anfordert (siehe {@link GridFsRandomAccessRead}).
+   */
+  @Override
+  public RandomAccessRead openRandomAccess(String storageId) throws IOException {
+    ObjectId oid = toObjectIdOrNotFound(storageId);
+    Document file = files().find(Filters.eq("_id", oid))
+        .projection(Projections.include("length", "chunkSize"))
+        .first();
+    if (file == null) throw new FileNotFoundException("GridFS id not found: " + storageId);
+    return new GridFsRandomAccessRead(mongo.getCollection(CHUNKS_COLLECTION), oid,
+        ((Number) file.get("length")).longValue(), ((Number) file.get("chunkSize")).intValue(), readCacheChunks);
+  }
+
+  /**
+   * Gibt eine Referenz auf eine GridFS-Datei frei; die letzte Referenz löscht die Datei.
+   * Dateien ohne Referenzzähler (vor Einführung der Deduplizierung gespeichert)
+   * gehören genau einem Upload und werden direkt gelöscht.
+   */
+  @Override
+  public void release(String storageId) throws IOException {
+    ObjectId oid = toObjectIdOrNotFound(storageId);
+    Document after = files().findOneAndUpdate(
+        Filters.and(Filters.eq("_id", oid), Filters.gt("metadata.refCount", 0)),
+        Updates.inc("metadata.refCount", -1),
+        new FindOneAndUpdateOptions()
+            .projection(Projections.include("metadata.refCount"))
+            .returnDocument(ReturnDocument.AFTER));
+
+    if (after == null) {
+      gridFs.delete(query(where("_id").is(oid)).addCriteria(where("metadata.refCount").exists(false)));
+    } else if (after.get("metadata", Document.class).getInteger("refCount", 0) <= 0) {
+      gridFs.delete(query(where("_id").is(oid)));
+    }
+  }
+
+  /**
+   * Übernimmt bereits in "fs.chunks" geschriebene Datenblöcke als fertige GridFS-Datei
+   * (Abschluss eines fortsetzbaren Uploads).
+   * Existiert der Inhalt schon, werden die Blöcke verworfen und die vorhandene Datei referenziert.
+   *
+   * @param filesId     reservierte GridFS-ID, unter der die Chunks liegen
+   * @param filename    Dateiname
+   * @param contentType MIME-Type
+   * @param size        Gesamtgröße in Bytes
+   * @param chunkSize   verwendete Chunkgröße
+   * @param sha256      Inhalts-Hash (Hex)
+   * @return storageId der übernommenen bzw. wiederverwendeten Datei
+   */
+  public String adoptChunks(ObjectId filesId, String filename, String contentType, long size,
+                            int chunkSize, String sha256) {
+    ObjectId existing = retainBySha256(sha256, null);
+    if (existing != null) {
+      mongo.getCollection(CHUNKS_COLLECTION).deleteMany(Filters.eq("files_id", filesId));
+      return existing.toHexString();
+    }
+    // Gleiches Format wie GridFsTemplate.store (Content-Type in metadata._contentType)
+    files().insertOne(new Document("_id", filesId)
+        .append("length", size)
+        .append("chunkSize", chunkSize)
+        .append("uploadDate", new Date())
+        .append("filename", filename)
+        .append("metadata", new Document("_contentType", contentType)
+            .append("sha256", sha256)
+            .append("refCount", 1)));
+    return filesId.toHexString();
+  }
+
+  /**
+   * Sucht eine GridFS-Datei mit diesem Inhalts-Hash und erhöht atomar ihren Referenzzähler.
+   *
+   * Nur Dateien mit refCount > 0 kommen in Frage: eine Datei, deren letzte Referenz
+   * gerade freigegeben wird, kann so nicht "wiederbelebt" werden.
+   *
+   * @param sha256  Inhalts-Hash (Hex)
+   * @param exclude eigene, gerade gespeicherte Datei, die nicht gefunden werden soll (oder null)
+   * @return ID der wiederverwendeten Datei oder null, falls keine existiert
+   */
+  private ObjectId retainBySha256(String sha256, ObjectId exclude) {
+    Bson filter = Filters.and(
+        Filters.eq("metadata.sha256", sha256),
+        Filters.gt("metadata.refCount", 0),
+        exclude != null ? Filters.ne("_id", exclude) : Filters.empty());
+    Document hit = files().findOneAndUpdate(filter,
+        // evtl. Orphan-Markierung des Abgleichs (UploadReconciler) aufheben
+        Updates.combine(Updates.inc("metadata.refCount", 1), Updates.unset("metadata.orphanSince")),
+        new FindOneAndUpdateOptions().projection(Projections.include("_id")));
+    return (hit != null) ? hit.getObjectId("_id") : null;
+  }
+
+  private MongoCollection<Document> files() {
+    return mongo.getCollection(FILES_COLLECTION);
+  }
+
+  /**
+   * Wandelt einen String in eine ObjectId um.
+   *
+   * @param id Hex-String der ObjectId
+   * @return ObjectId
+   * @throws FileNotFoundException falls die ID ungültig ist
+   */
+  static ObjectId toObjectIdOrNotFound(String id) throws FileNotFoundException {
+    try {
+      return new ObjectId(id);
+    } catch (IllegalArgumentException e) {
+      throw new FileNotFoundException("Invalid GridFS id: " + id);
+    }
+  }
+}
@@ -0,0 +1,199 @@
+package com.example.momolearn.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Rangliste im Speicher mit Rang-Abfrage in O(log n).
+ *
+ * Zwei Strukturen über denselben Punkteständen:
+ * - ein Fenwick-Baum (Binary Indexed Tree) über die Punktzahl zählt, wie viele Nutzer
+ *   höchstens s Punkte haben → Rang = 1 + Anzahl Nutzer mit mehr Punkten, in O(log maxScore)
+ * - ein nach Punkten sortiertes TreeSet liefert die Top-N in O(log n + N)
+ *
+ * Gleich viele Punkte ergeben denselben Rang (1, 2, 2, 4). Der Fenwick-Baum wächst bei
+ * Bedarf auf die nächste Zweierpotenz über der höchsten Punktzahl.
+ *
+ * Thread-safe (alle Methoden synchronisiert; jede Operation ist kurz).
+ */
+public class Leaderboard {
+
+  /** Punktestand eines Nutzers. */
+  public record Entry(String userId, int score) {
+  }
+
+  /**
+   * Platzierung eines Nutzers.
+   *
+   * @param rank  Rang (1 = bester)
+   * @param score Punktzahl
+   * @param size  Anzahl Nutzer auf der Rangliste
+   */
+  public record Standing(int rank, int score, int size) {
+  }
+
+  private static final int INITIAL_CAPACITY = 1024;
+
+  // Obergrenze für Punktzahlen (hält den Fenwick-Baum bei höchstens 2^30 Einträgen)
+  private static final int MAX_SCORE = (1 << 30) - 1;
+
+  // Höchste Punktzahl zuerst, bei Gleichstand stabil nach userId
+  private static final Comparator<Entry> ORDER = Comparator.comparingInt(Entry::score).reversed()
+      .thenComparing(Entry::userId);
+
+  private final Map<String, Integer> scores = new HashMap<>();
+  private final TreeSet<Entry> order = new TreeSet<>(ORDER);
+
+  // Fenwick-Baum, 1-basiert: Punktzahl s liegt an Index s + 1; capacity ist eine Zweierpotenz
+  private int[] tree = new int[INITIAL_CAPACITY + 1];
+  private int capacity = INITIAL_CAPACITY;
+
+  // Zählt Änderungen (für Snapshots: nur geänderte Ranglisten speichern)
+  private long version;
+
+  /**
+   * Setzt die Punktzahl eines Nutzers (neu oder ersetzt).
+   *
+   * @param userId ID des Nutzers
+   * @param score  neue Punktzahl (auf 0..2^30-1 begrenzt)
+   */
+  public synchronized void set(String userId, int score) {
+    int s = clamp(score);
+    Integer old = scores.put(userId, s);
+    if (old != null) {
+      if (old == s) return;
+      order.remove(new Entry(userId, old));
+      update(old, -1);
+    }
+    order.add(new Entry(userId, s));
+    update(s, 1);
+    version++;
+  }
+
+  /**
+   * Addiert Punkte zur Punktzahl eines Nutzers (neue Nutzer starten bei 0).
+   *
+   * @return neue Punktzahl
+   */
+  public synchronized int add(String userId, int delta) {
+    int s = clamp((long) scores.getOrDefault(userId, 0) + delta);
+    set(userId, s);
+    return s;
+  }
+
+  /** Entfernt einen Nutzer von der Rangliste. */
+  public synchronized void remove(String userId) {
+    Integer old = scores.remove(userId);
+    if (old == null) return;
+    order.remove(new Entry(userId, old));
+    update(old, -1);
+    version++;
+  }
+
+  /**
+   * Ersetzt den gesamten Inhalt (Neuaufbau aus Datenbank oder Snapshot).
+   *
+   * @param all userId → Punktzahl
+   */
+  public synchronized void replaceAll(Map<String, Integer> all) {
+    scores.clear();
+    order.clear();
+    int max = 0;
+    for (Map.Entry<String, Integer> e : all.entrySet()) {
+      int s = clamp(e.getValue());
+      scores.put(e.getKey(), s);
+      order.add(new Entry(e.getKey(), s));
+      max = Math.max(max, s);
+    }
+    capacity = capacityFor(max);
+    rebuildTree();
+    version++;
+  }
+
+  /**
+   * Die besten {@code n} Einträge, absteigend nach Punkten.
+   */
+  public synchronized List<Entry> top(int n) {
+    List<Entry> out = new ArrayList<>(Math.min(n, order.size()));
+    Iterator<Entry> it = order.iterator();
+    while (out.size() < n && it.hasNext()) out.add(it.next());
+    return out;
+  }
+
+  /**
+   * Platzierung eines Nutzers.
+   *
+   * @return Standing oder null, wenn der Nutzer nicht auf der Rangliste steht
+   */
+  public synchronized Standing standing(String userId) {
+    Integer s = scores.get(userId);
+    if (s == null) return null;
+    return new Standing(rankOf(s), s, scores.size());
+  }
+
+  /** Rang für eine Punktzahl: 1 + Anzahl Nutzer mit mehr Punkten. */
+  public synchronized int rankOf(int score) {
+    int s = clamp(score);
+    int atMost = (s >= capacity) ? scores.size() : prefix(s);
+    return scores.size() - atMost + 1;
+  }
+
+  /** Anzahl Nutzer auf der Rangliste. */
+  public synchronized int size() {
+    return scores.size();
+  }
+
+  /** Änderungszähler. */
+  public synchronized long version() {
+    return version;
+  }
+
+  /** Kopie aller Einträge (für Snapshots). */
+  public synchronized List<Entry> entries() {
+    return new ArrayList<>(order);
+  }
+
+  // --- Fenwick-Baum ---
+
+  private void update(int score, int delta) {
+    if (score >= capacity) {
+      capacity = capacityFor(score);
+      rebuildTree();
+      // rebuildTree hat den aktuellen Stand aus "scores" schon übernommen
+      return;
+    }
+    for (int i = score + 1; i <= capacity; i += i & -i) tree[i] += delta;
+  }
+
+  /** Anzahl Nutzer mit Punktzahl ≤ score (score < capacity). */
+  private int prefix(int score) {
+    int sum = 0;
+    for (int i = score + 1; i > 0; i -= i & -i) sum += tree[i];
+    return sum;
+  }
+
+  /** Baut den Baum in O(capacity + n) aus "scores" neu auf. */
+  private void rebuildTree() {
+    tree = new int[capacity + 1];
+    for (int s : scores.values()) tree[s + 1]++;
+    for (int i = 1; i <= capacity; i++) {
+      int parent = i + (i & -i);
+      if (parent <= capacity) tree[parent] += tree[i];
+    }
+  }
+
+  private static int capacityFor(int maxScore) {
+    int c = INITIAL_CAPACITY;
+    while (c <= maxScore) c <<= 1;
+    return c;
+  }
+
+  private static int clamp(long score) {
+    return (int) Math.max(0, Math.min(MAX_SCORE, score));
+  }
+}
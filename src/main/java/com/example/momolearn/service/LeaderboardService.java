@@ -0,0 +1,326 @@
+package com.example.momolearn.service;
+
+import com.example.momolearn.dto.LeaderboardDto;
+import com.example.momolearn.dto.LeaderboardEntryDto;
+import com.example.momolearn.model.User;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.WriteModel;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.temporal.IsoFields;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * XP-Ranglisten: gesamt, pro Kurs und für die laufende Woche (ISO-Woche, UTC).
+ *
+ * Die Ranglisten liegen im Speicher ({@link Leaderboard}); Top-N und "mein Rang"
+ * kosten O(log n) statt einer Sortierung der users-Collection pro Request.
+ * Gefüttert werden sie von {@link GamificationService#recordAttempt}.
+ *
+ * Persistenz:
+ * - Gesamt: Quelle ist users (level/xp); beim Start und alle leaderboard.resync-interval
+ *   neu eingelesen – so sehen auch mehrere Instanzen dieselbe Rangliste
+ * - Kurs/Woche: nur hier gezählt; geänderte Ranglisten werden alle
+ *   leaderboard.snapshot-interval und beim Herunterfahren nach "leaderboard_snapshots"
+ *   geschrieben und beim Start daraus geladen. XP seit dem letzten Snapshot gehen bei
+ *   einem Absturz verloren; bei mehreren Instanzen zählt jede nur ihre eigenen Antworten.
+ */
+@Service
+public class LeaderboardService {
+
+  private static final Logger log = LoggerFactory.getLogger(LeaderboardService.class);
+
+  /** Collection der Snapshots (ein Dokument pro Rangliste und Block). */
+  static final String SNAPSHOT_COLLECTION = "leaderboard_snapshots";
+
+  // Einträge pro Snapshot-Dokument (bleibt weit unter 16 MB)
+  private static final int SNAPSHOT_CHUNK = 5000;
+
+  private static final String COURSE_PREFIX = "course:";
+  private static final String WEEKLY_PREFIX = "weekly:";
+
+  /** Art der Rangliste. */
+  public enum Scope { GLOBAL, COURSE, WEEKLY }
+
+  private final MongoTemplate mongo;
+  private final int maxLimit;
+
+  private final Leaderboard global = new Leaderboard();
+  private final Map<String, Leaderboard> courses = new ConcurrentHashMap<>();
+  private volatile Weekly weekly = new Weekly(weekKey(Instant.now()), new Leaderboard());
+
+  // Gespeicherter Änderungsstand pro Rangliste (Name → Leaderboard.version)
+  private final Map<String, Long> savedVersions = new ConcurrentHashMap<>();
+
+  private record Weekly(String key, Leaderboard board) {
+  }
+
+  /**
+   * Konfiguration (application.properties):
+   * - leaderboard.max-limit: maximale Länge der Top-Liste pro Request
+   */
+  public LeaderboardService(MongoTemplate mongo,
+                            @Value("${leaderboard.max-limit:100}") int maxLimit) {
+    this.mongo = mongo;
+    this.maxLimit = Math.max(1, maxLimit);
+  }
+
+  /** Lädt die Gesamt-Rangliste aus users und Kurs-/Wochenranglisten aus dem letzten Snapshot. */
+  @PostConstruct
+  void load() {
+    resyncGlobal();
+    String currentWeek = weekly.key();
+    int boards = 0;
+    Map<String, Map<String, Integer>> loaded = new HashMap<>();
+    for (Document d : snapshots().find()) {
+      String name = d.getString("board");
+      if (name == null) continue;
+      // Snapshots vergangener Wochen werden nicht mehr gebraucht
+      if (name.startsWith(WEEKLY_PREFIX) && !name.equals(WEEKLY_PREFIX + currentWeek)) continue;
+      Map<String, Integer> board = loaded.computeIfAbsent(name, k -> new HashMap<>());
+      for (Document e : d.getList("entries", Document.class, List.of())) {
+        board.put(e.getString("u"), e.getInteger("s", 0));
+      }
+    }
+    for (Map.Entry<String, Map<String, Integer>> e : loaded.entrySet()) {
+      Leaderboard b = board(e.getKey(), true);
+      b.replaceAll(e.getValue());
+      savedVersions.put(e.getKey(), b.version());
+      boards++;
+    }
+    log.info("Leaderboards loaded: {} users global, {} snapshot boards", global.size(), boards);
+  }
+
+  /**
+   * Verbucht XP aus einem Antwortversuch.
+   *
+   * @param userId   ID des Nutzers
+   * @param courseId Kurs der Frage (oder null)
+   * @param awarded  vergebene XP (0 = nichts zu tun)
+   * @param totalXp  neue Gesamt-XP des Nutzers (aus dem Update des Nutzers)
+   * @param now      Serverzeit der Verbuchung (bestimmt die Woche)
+   */
+  public void onXp(String userId, String courseId, int awarded, int totalXp, Instant now) {
+    if (awarded <= 0) return;
+    global.set(userId, totalXp);
+    if (courseId != null) board(COURSE_PREFIX + courseId, true).add(userId, awarded);
+    currentWeek(now).add(userId, awarded);
+  }
+
+  /** Entfernt einen gelöschten Nutzer aus allen Ranglisten. */
+  public void removeUser(String userId) {
+    global.remove(userId);
+    courses.values().forEach(b -> b.remove(userId));
+    weekly.board().remove(userId);
+  }
+
+  /**
+   * Top-N einer Rangliste plus Platzierung des anfragenden Nutzers.
+   *
+   * @param userId   anfragender Nutzer
+   * @param scope    Art der Rangliste
+   * @param courseId Kurs (nur für COURSE, Pflicht)
+   * @param limit    Länge der Top-Liste (1..leaderboard.max-limit)
+   * @return Rangliste mit Namen der Nutzer
+   */
+  public LeaderboardDto view(String userId, Scope scope, String courseId, int limit) {
+    int n = Math.max(1, Math.min(limit, maxLimit));
+    Leaderboard b;
+    String week = null;
+    switch (scope) {
+      case COURSE -> {
+        if (courseId == null || courseId.isBlank()) {
+          throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "courseId is required for scope=course");
+        }
+        b = board(COURSE_PREFIX + courseId, false);
+      }
+      case WEEKLY -> {
+        Weekly w = rollWeek(Instant.now());
+        b = w.board();
+        week = w.key();
+      }
+      default -> b = global;
+    }
+    if (b == null) b = new Leaderboard(); // Kurs ohne XP → leere Rangliste
+
+    List<Leaderboard.Entry> top = b.top(n);
+    Leaderboard.Standing mine = b.standing(userId);
+
+    List<String> ids = new ArrayList<>(top.size() + 1);
+    top.forEach(e -> ids.add(e.userId()));
+    if (mine != null) ids.add(userId);
+    Map<String, String> names = names(ids);
+
+    // Ränge wie in Leaderboard.standing: gleiche Punktzahl → gleicher Rang
+    List<LeaderboardEntryDto> entries = new ArrayList<>(top.size());
+    int rank = 0;
+    int prevScore = -1;
+    for (int i = 0; i < top.size(); i++) {
+      Leaderboard.Entry e = top.get(i);
+      if (e.score() != prevScore) rank = i + 1;
+      prevScore = e.score();
+      entries.add(new LeaderboardEntryDto(rank, e.userId(), names.get(e.userId()), e.score()));
+    }
+
+    return LeaderboardDto.builder()
+        .scope(scope.name().toLowerCase())
+        .courseId(scope == Scope.COURSE ? courseId : null)
+        .week(week)
+        .size(b.size())
+        .top(entries)
+        .me(mine != null ? new LeaderboardEntryDto(mine.rank(), userId, names.get(userId), mine.score()) : null)
+        .build();
+  }
+
+  /** Liest die Gesamt-XP aller Nutzer neu ein (Quelle: users.level/xp). */
+  @Scheduled(initialDelayString = "${leaderboard.resync-interval:PT10M}",
+             fixedDelayString = "${leaderboard.resync-interval:PT10M}")
+  public void resyncGlobal() {
+    Map<String, Integer> all = new HashMap<>();
+    for (Document u : mongo.getCollection(mongo.getCollectionName(User.class)).find()
+        .projection(Projections.include("xp", "level"))) {
+      int total = GamificationService.totalXp(u.getInteger("level", 1), u.getInteger("xp", 0));
+      if (total > 0) all.put(u.getObjectId("_id").toHexString(), total);
+    }
+    global.replaceAll(all);
+  }
+
+  /** Schreibt geänderte Kurs- und Wochenranglisten; Intervall über leaderboard.snapshot-interval. */
+  @Scheduled(initialDelayString = "${leaderboard.snapshot-interval:PT1M}",
+             fixedDelayString = "${leaderboard.snapshot-interval:PT1M}")
+  public void scheduledSnapshot() {
+    try {
+      snapshot();
+    } catch (RuntimeException e) {
+      log.error("Leaderboard snapshot failed", e);
+    }
+  }
+
+  /** Letzter Snapshot beim Herunterfahren. */
+  @PreDestroy
+  void shutdown() {
+    scheduledSnapshot();
+  }
+
+  /**
+   * Schreibt alle seit dem letzten Snapshot geänderten Ranglisten (außer der globalen)
+   * in Blöcken zu {@value #SNAPSHOT_CHUNK} Einträgen und entfernt überzählige Blöcke
+   * sowie Snapshots vergangener Wochen.
+   */
+  public void snapshot() {
+    Map<String, Leaderboard> boards = new HashMap<>();
+    courses.forEach((id, b) -> boards.put(COURSE_PREFIX + id, b));
+    Weekly w = rollWeek(Instant.now());
+    boards.put(WEEKLY_PREFIX + w.key(), w.board());
+
+    Date takenAt = new Date();
+    int written = 0;
+    for (Map.Entry<String, Leaderboard> e : boards.entrySet()) {
+      String name = e.getKey();
+      Leaderboard b = e.getValue();
+      long version = b.version();
+      if (savedVersions.getOrDefault(name, -1L) == version) continue;
+
+      List<Leaderboard.Entry> all = b.entries();
+      List<WriteModel<Document>> writes = new ArrayList<>();
+      int chunks = 0;
+      for (int from = 0; from < all.size(); from += SNAPSHOT_CHUNK, chunks++) {
+        List<Document> entries = new ArrayList<>();
+        for (Leaderboard.Entry x : all.subList(from, Math.min(all.size(), from + SNAPSHOT_CHUNK))) {
+          entries.add(new Document("u", x.userId()).append("s", x.score()));
+        }
+        writes.add(new ReplaceOneModel<>(Filters.eq("_id", name + "#" + chunks),
+            new Document("_id", name + "#" + chunks)
+                .append("board", name)
+                .append("chunk", chunks)
+                .append("entries", entries)
+                .append("takenAt", takenAt),
+            new ReplaceOptions().upsert(true)));
+      }
+      if (!writes.isEmpty()) snapshots().bulkWrite(writes);
+      snapshots().deleteMany(Filters.and(Filters.eq("board", name), Filters.gte("chunk", chunks)));
+      savedVersions.put(name, version);
+      written++;
+    }
+
+    // Vergangene Wochen aufräumen
+    snapshots().deleteMany(Filters.and(
+        Filters.regex("board", "^" + WEEKLY_PREFIX),
+        Filters.ne("board", WEEKLY_PREFIX + w.key())));
+    if (written > 0) log.debug("Leaderboard snapshot: {} boards written", written);
+  }
+
+  // --- intern ---
+
+  /** Liefert eine Kurs- oder Wochenrangliste nach Snapshot-Namen (ggf. neu angelegt). */
+  private Leaderboard board(String name, boolean create) {
+    if (name.startsWith(WEEKLY_PREFIX)) return weekly.board();
+    String courseId = name.substring(COURSE_PREFIX.length());
+    return create ? courses.computeIfAbsent(courseId, k -> new Leaderboard()) : courses.get(courseId);
+  }
+
+  private Leaderboard currentWeek(Instant now) {
+    return rollWeek(now).board();
+  }
+
+  /**
+   * Beginnt bei Wochenwechsel eine neue, leere Wochenrangliste. Nur vorwärts: ein Zeitpunkt
+   * aus einer früheren Woche verwirft die laufende Rangliste nicht.
+   */
+  private synchronized Weekly rollWeek(Instant now) {
+    String key = weekKey(now);
+    Weekly w = weekly;
+    // "JJJJ-Www" sortiert als Text chronologisch
+    if (key.compareTo(w.key()) > 0) {
+      w = new Weekly(key, new Leaderboard());
+      weekly = w;
+    }
+    return w;
+  }
+
+  /** ISO-Woche in UTC, z. B. "2026-W42". */
+  static String weekKey(Instant t) {
+    ZonedDateTime d = t.atZone(ZoneOffset.UTC);
+    return String.format("%d-W%02d", d.get(IsoFields.WEEK_BASED_YEAR), d.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR));
+  }
+
+  /** Namen der Nutzer in einer Abfrage. */
+  private Map<String, String> names(List<String> ids) {
+    Map<String, String> out = new HashMap<>();
+    if (ids.isEmpty()) return out;
+    Query q = query(where("_id").in(ids));
+    q.fields().include("name");
+    for (User u : mongo.find(q, User.class)) out.put(u.getId(), u.getName());
+    return out;
+  }
+
+  private MongoCollection<Document> snapshots() {
+    return mongo.getCollection(SNAPSHOT_COLLECTION);
+  }
+}
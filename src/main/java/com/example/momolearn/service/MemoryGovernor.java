@@ -0,0 +1,108 @@
+package com.example.momolearn.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Globales Speicherbudget für speicherintensive Arbeit (Uploads, PDF-Parsing).
+ *
+ * Ein gewichteter Semaphor, dessen Größe einem konfigurierbaren Anteil des
+ * maximalen Heaps entspricht (in KiB). Jede Operation reserviert vor Beginn
+ * so viele Permits, wie sie voraussichtlich Speicher braucht. Ist das Budget
+ * erschöpft, wartet der Request kurz; danach gibt es 503 mit Retry-After,
+ * statt dass der Knoten in einen OutOfMemoryError läuft.
+ */
+@Component
+public class MemoryGovernor {
+
+  private static final Logger log = LoggerFactory.getLogger(MemoryGovernor.class);
+
+  private final boolean enabled;
+  private final int totalKb;
+  private final long waitMs;
+  private final long retryAfterSeconds;
+  private final Semaphore budget;
+
+  /**
+   * Konfiguration (application.properties):
+   * - memory.governor.enabled: Budget aktiv
+   * - memory.governor.heap-share: Anteil des max. Heaps, der verteilt wird (0..1)
+   * - memory.governor.wait-ms: maximale Wartezeit auf freies Budget
+   * - memory.governor.retry-after-seconds: Wert des Retry-After-Headers bei 503
+   */
+  public MemoryGovernor(
+      @Value("${memory.governor.enabled:true}") boolean enabled,
+      @Value("${memory.governor.heap-share:0.5}") double heapShare,
+      @Value("${memory.governor.wait-ms:2000}") long waitMs,
+      @Value("${memory.governor.retry-after-seconds:5}") long retryAfterSeconds
+  ) {
+    double share = Math.min(0.95, Math.max(0.05, heapShare));
+    long kb = (long) (Runtime.getRuntime().maxMemory() * share / 1024);
+    this.enabled = enabled;
+    this.totalKb = (int) Math.min(Integer.MAX_VALUE, Math.max(1024, kb));
+    this.waitMs = Math.max(0, waitMs);
+    this.retryAfterSeconds = retryAfterSeconds;
+    this.budget = new Semaphore(totalKb, true);
+    log.info("Memory governor: enabled={}, budgetMb={}", enabled, totalKb / 1024);
+  }
+
+  /**
+   * Reserviert Speicherbudget für eine Operation.
+   *
+   * Größere Anforderungen als das Gesamtbudget werden auf das Gesamtbudget begrenzt,
+   * laufen also exklusiv, statt nie bedient zu werden.
+   *
+   * @param bytes geschätzter Speicherbedarf in Bytes
+   * @return Permit, das nach getaner Arbeit geschlossen werden muss (try-with-resources)
+   * @throws ServiceOverloadedException wenn innerhalb der Wartezeit kein Budget frei wird
+   */
+  public Permit acquire(long bytes) {
+    if (!enabled) return Permit.NONE;
+
+    int kb = (int) Math.min(totalKb, Math.max(1, (bytes + 1023) / 1024));
+    boolean ok;
+    try {
+      ok = budget.tryAcquire(kb, waitMs, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      ok = false;
+    }
+    if (!ok) {
+      log.warn("Memory budget exhausted: requestedKb={}, availableKb={}", kb, budget.availablePermits());
+      throw new ServiceOverloadedException("Server ausgelastet, bitte später erneut versuchen", retryAfterSeconds);
+    }
+    return new Permit(budget, kb);
+  }
+
+  /** Aktuell freies Budget in KiB (z. B. für Monitoring). */
+  public int availableKb() {
+    return budget.availablePermits();
+  }
+
+  /** Reserviertes Budget; close() gibt es genau einmal wieder frei. */
+  public static final class Permit implements AutoCloseable {
+
+    static final Permit NONE = new Permit(null, 0);
+
+    private final Semaphore budget;
+    private int kb;
+
+    private Permit(Semaphore budget, int kb) {
+      this.budget = budget;
+      this.kb = kb;
+    }
+
+    @Override
+    public synchronized void close() {
+      if (budget != null && kb > 0) {
+        budget.release(kb);
+        kb = 0;
+      }
+    }
+  }
+}
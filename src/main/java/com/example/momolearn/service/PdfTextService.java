@@ -1,11 +1,38 @@
 package com.example.momolearn.service;
 
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.io.RandomAccessInputStream;
+import org.apache.pdfbox.io.RandomAccessRead;
+import org.apache.pdfbox.io.ScratchFile;
+import org.apache.pdfbox.pdfparser.PDFParser;
 import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.text.PDFTextStripper;
+import org.apache.pdfbox.text.TextPosition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import com.example.momolearn.model.UploadTextIndex;
+
+import jakarta.annotation.PreDestroy;
+
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 /**
  * Service-Klasse, um Text aus PDF-Dateien zu extrahieren.
@@ -13,40 +40,664 @@ import java.io.InputStream;
  * Wird verwendet, um hochgeladene PDFs (z. B. Skripte oder Dokumente)
  * in reinen Text zu konvertieren, der anschließend für die KI-Generierung
  * von Fragen genutzt wird.
+ *
+ * Für die KI-Generierung wird meist nur ein begrenzter Textumfang benötigt.
+ * Dafür gibt es eine budgetierte Extraktion, die Seite für Seite liest und
+ * abbricht, sobald genug Text gesammelt wurde.
+ *
+ * Außerdem kann ein Struktur-Index (Seitengrenzen, Überschriften) erstellt werden,
+ * über den später gezielt nur einzelne Seitenbereiche extrahiert werden. Dafür wird das
+ * ganze Dokument gelesen; große Dokumente werden dabei parallel verarbeitet: Der
+ * Seitenbereich wird auf einen ForkJoinPool aufgeteilt, jeder Teilbereich über einen
+ * eigenen Leser und ein eigenes PDDocument extrahiert und das Ergebnis anschließend in
+ * Seitenreihenfolge zusammengesetzt (identisch zur Extraktion in einem Stück).
+ *
+ * Ist der Worker-Modus aktiv (pdf.worker.enabled), läuft die Text-Extraktion
+ * in separaten JVM-Prozessen ({@link PdfWorkerPool}) statt im Hauptprozess.
+ * Im Hauptprozess reserviert jede Extraktion vorab Speicherbudget beim
+ * {@link MemoryGovernor}, proportional zur Dateigröße.
  */
 @Service
 public class PdfTextService {
 
+  private static final Logger log = LoggerFactory.getLogger(PdfTextService.class);
+
+  /** Zeile gilt als Überschrift, wenn ihre Schrift mindestens so viel größer als der Fließtext ist. */
+  private static final float HEADING_SIZE_RATIO = 1.2f;
+
+  /** Überschriften sind kurz; längere "große" Zeilen sind eher Zitate/Titelfolien-Text. */
+  private static final int HEADING_MAX_CHARS = 150;
+
+  /** Obergrenze für gespeicherte Abschnitte pro Dokument (hält das Index-Dokument klein). */
+  private static final int MAX_SECTIONS = 500;
+
+  private final int parallelMinPages;
+  private final int pagesPerTask;
+  private final ForkJoinPool pool;
+  private final int memoryFactor;
+  private final PdfWorkerPool workers;
+  private final MemoryGovernor governor;
+
+  /** Öffnet einen neuen, unabhängigen Leser auf dasselbe PDF (einer pro parallelem Teilbereich). */
+  @FunctionalInterface
+  public interface PdfSource {
+    RandomAccessRead open() throws IOException;
+  }
+
   /**
-   * Liest den Text aus einem PDF-InputStream.
+   * Konfiguration (application.properties):
+   * - pdf.parallel.enabled: parallele Index-Erstellung an/aus
+   * - pdf.parallel.min-pages: ab dieser Seitenzahl wird parallel gelesen
+   * - pdf.parallel.pages-per-task: Mindestzahl Seiten pro Teilbereich (pro Leser)
+   * - pdf.parallel.threads: Größe des ForkJoinPools (0 = Anzahl CPU-Kerne)
+   * - pdf.memory-factor: geschätzter Heap-Bedarf von PDFBox als Vielfaches der Dateigröße
+   */
+  public PdfTextService(
+      @Value("${pdf.parallel.enabled:true}") boolean parallelEnabled,
+      @Value("${pdf.parallel.min-pages:40}") int parallelMinPages,
+      @Value("${pdf.parallel.pages-per-task:20}") int pagesPerTask,
+      @Value("${pdf.parallel.threads:0}") int threads,
+      @Value("${pdf.memory-factor:3}") int memoryFactor,
+      PdfWorkerPool workers,
+      MemoryGovernor governor
+  ) {
+    this.parallelMinPages = Math.max(2, parallelMinPages);
+    this.pagesPerTask = Math.max(1, pagesPerTask);
+    this.pool = parallelEnabled
+        ? new ForkJoinPool(threads > 0 ? threads : Runtime.getRuntime().availableProcessors())
+        : null;
+    this.memoryFactor = Math.max(1, memoryFactor);
+    this.workers = workers;
+    this.governor = governor;
+  }
+
+  /**
+   * Instanz ohne Spring und ohne Worker-Pool, für den Einsatz im Worker-Prozess selbst.
+   */
+  static PdfTextService standalone() {
+    return new PdfTextService(false, Integer.MAX_VALUE, 1, 1, 1, null, null);
+  }
+
+  /** Ob die Extraktion an Worker-Prozesse delegiert wird. */
+  private boolean useWorkers() {
+    return workers != null && workers.isEnabled();
+  }
+
+  /**
+   * Reserviert Speicherbudget für das Parsen eines PDFs der angegebenen Größe.
+   * Ohne Governor (Worker-Prozess) wird nichts reserviert.
+   */
+  private MemoryGovernor.Permit reserve(long pdfBytes) {
+    return (governor == null) ? MemoryGovernor.Permit.NONE : governor.acquire(pdfBytes * memoryFactor);
+  }
+
+  /**
+   * Liest Text nur so lange, bis das Zeichenbudget erreicht ist.
+   *
+   * Die Seiten werden einzeln extrahiert und direkt bereinigt; weitere Seiten
+   * werden nicht mehr angefasst, sobald {@code maxChars} Zeichen vorliegen.
+   * Das PDF selbst wird dabei in einer temporären Datei statt im Heap gepuffert.
+   * Für den vollständigen Text {@code maxChars = Integer.MAX_VALUE} übergeben.
+   *
+   * @param in       InputStream der PDF-Datei
+   * @param size     Dateigröße in Bytes (für das Speicherbudget)
+   * @param maxChars maximale Anzahl Zeichen des bereinigten Texts
+   * @return bereinigter Text, höchstens {@code maxChars} Zeichen lang
+   * @throws IOException Falls PDF nicht lesbar oder beschädigt ist
+   */
+  public String extractText(InputStream in, long size, int maxChars) throws IOException {
+    return extractText(in, size, 1, Integer.MAX_VALUE, maxChars);
+  }
+
+  /**
+   * Liest Text nur aus einem Seitenbereich und höchstens bis zum Zeichenbudget.
    *
-   * @param in InputStream der PDF-Datei (z. B. aus GridFS oder Upload)
-   * @return Extrahierter, bereinigter Text
+   * @param in       InputStream der PDF-Datei
+   * @param size     Dateigröße in Bytes (für das Speicherbudget)
+   * @param fromPage erste Seite (1-basiert, inklusive)
+   * @param toPage   letzte Seite (inklusive); wird auf die Seitenzahl begrenzt
+   * @param maxChars maximale Anzahl Zeichen des bereinigten Texts
+   * @return bereinigter Text, höchstens {@code maxChars} Zeichen lang
    * @throws IOException Falls PDF nicht lesbar oder beschädigt ist
    */
-  public String extractText(InputStream in) throws IOException {
-    // PDF öffnen und automatisch schließen, sobald try-Block beendet wird
-    try (PDDocument doc = PDDocument.load(in)) {
-      PDFTextStripper stripper = new PDFTextStripper();
-      stripper.setSortByPosition(true); // Text in logischer Reihenfolge extrahieren
-      String raw = stripper.getText(doc);
-      return normalize(raw); // Text bereinigen
+  public String extractText(InputStream in, long size, int fromPage, int toPage, int maxChars) throws IOException {
+    if (useWorkers()) {
+      // Geparst wird im Worker-Heap; hier wird nur gestreamt
+      return workers.extract(in, fromPage, toPage, maxChars);
+    }
+    try (MemoryGovernor.Permit permit = reserve(size)) {
+      return extractLocal(in, fromPage, toPage, maxChars);
     }
   }
 
   /**
-   * Bereinigt den extrahierten Text:
-   * - Entfernt Silbentrennungen am Zeilenende
-   * - Ersetzt Zeilenumbrüche durch Leerzeichen
-   * - Reduziert Mehrfach-Leerzeichen auf ein einzelnes
+   * Wie {@link #extractText(InputStream, long, int)}, liest das PDF aber per wahlfreiem Zugriff.
+   */
+  public String extractText(RandomAccessRead pdf, long size, int maxChars) throws IOException {
+    return extractText(pdf, size, 1, Integer.MAX_VALUE, maxChars);
+  }
+
+  /**
+   * Wie {@link #extractText(InputStream, long, int, int, int)}, liest das PDF aber per
+   * wahlfreiem Zugriff direkt aus dem Speicher (z. B. {@link GridFsRandomAccessRead}).
+   * PDFBox lädt dann nur die Bytes, die es für Cross-Reference-Tabelle und die
+   * angefragten Seiten braucht, statt die Datei vorher komplett zu kopieren.
    *
-   * @param s Rohtext aus dem PDF
-   * @return Bereinigter, gut lesbarer Text
+   * @param pdf      Leser auf die PDF-Datei
+   * @param size     Dateigröße in Bytes (für das Speicherbudget)
+   * @param fromPage erste Seite (1-basiert, inklusive)
+   * @param toPage   letzte Seite (inklusive); wird auf die Seitenzahl begrenzt
+   * @param maxChars maximale Anzahl Zeichen des bereinigten Texts
+   * @return bereinigter Text, höchstens {@code maxChars} Zeichen lang
+   * @throws IOException Falls PDF nicht lesbar oder beschädigt ist
    */
-  private String normalize(String s) {
-    s = s.replaceAll("-\\s*\\r?\\n\\s*", "");  // Silbentrennungen am Zeilenende entfernen
-    s = s.replaceAll("\\r?\\n+", " ");        // Zeilenumbrüche in Leerzeichen umwandeln
-    s = s.replaceAll("\\s{2,}", " ").trim();  // Mehrfach-Whitespaces reduzieren
-    return s;
+  public String extractText(RandomAccessRead pdf, long size, int fromPage, int toPage, int maxChars)
+      throws IOException {
+    if (useWorkers()) {
+      // Der Worker braucht die Bytes als Stream
+      return workers.extract(new RandomAccessInputStream(pdf), fromPage, toPage, maxChars);
+    }
+    try (MemoryGovernor.Permit permit = reserve(size);
+         PageCursor pages = new PageCursor(parse(pdf), fromPage, toPage)) {
+      return readBudget(pages, fromPage, toPage, maxChars);
+    }
+  }
+
+  /**
+   * Budgetierte Extraktion im aktuellen Prozess (auch vom Worker-Prozess genutzt).
+   */
+  String extractLocal(InputStream in, int fromPage, int toPage, int maxChars) throws IOException {
+    try (PageCursor pages = openPages(in, fromPage, toPage)) {
+      return readBudget(pages, fromPage, toPage, maxChars);
+    }
+  }
+
+  /** Liest Seiten, bis das Zeichenbudget erreicht ist. */
+  private static String readBudget(PageCursor pages, int fromPage, int toPage, int maxChars) throws IOException {
+    long start = System.nanoTime();
+    int pagesRead = 0;
+    try {
+      TextNormalizer normalizer = new TextNormalizer(Math.min(maxChars, 1 << 20) + 1024);
+      while (normalizer.length() < maxChars && pages.hasNext()) {
+        normalizer.append(pages.next());
+        pagesRead++;
+      }
+
+      log.debug("PDF extracted with budget: maxChars={}, pages {}-{} read={}/{}, ms={}",
+          maxChars, fromPage, toPage, pagesRead, pages.pageCount(), (System.nanoTime() - start) / 1_000_000);
+
+      String text = normalizer.finish();
+      return text.length() > maxChars ? text.substring(0, maxChars) : text;
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  /**
+   * Parst ein PDF direkt aus einem wahlfreien Leser, ohne Kopie der Quelle.
+   * Dekodierte Streams landen wie bei {@code load} in Temp-Dateien statt im Heap.
+   * Das Dokument schließt beim Schließen auch den Leser (doppeltes Schließen ist unkritisch).
+   */
+  private static PDDocument parse(RandomAccessRead pdf) throws IOException {
+    ScratchFile scratch = new ScratchFile(MemoryUsageSetting.setupTempFileOnly());
+    try {
+      PDFParser parser = new PDFParser(pdf, scratch);
+      parser.parse();
+      return parser.getPDDocument();
+    } catch (IOException | RuntimeException e) {
+      scratch.close();
+      throw e;
+    }
+  }
+
+  /** Öffnet einen neuen Leser und parst das PDF; schließt den Leser, wenn das Parsen scheitert. */
+  private static PDDocument open(PdfSource source) throws IOException {
+    RandomAccessRead pdf = source.open();
+    try {
+      return parse(pdf);
+    } catch (IOException | RuntimeException e) {
+      pdf.close();
+      throw e;
+    }
+  }
+
+  /** Beendet den ForkJoinPool beim Herunterfahren der Anwendung. */
+  @PreDestroy
+  void shutdown() {
+    if (pool != null) pool.shutdown();
+  }
+
+  /**
+   * Öffnet ein PDF für die seitenweise Extraktion.
+   *
+   * Der zurückgegebene Cursor liefert pro Aufruf von {@code next()} den Rohtext
+   * genau einer Seite. Er muss geschlossen werden (try-with-resources).
+   *
+   * @param in InputStream der PDF-Datei
+   * @return Cursor über die Seitentexte
+   * @throws IOException Falls PDF nicht lesbar oder beschädigt ist
+   */
+  public PageCursor openPages(InputStream in) throws IOException {
+    return openPages(in, 1, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Öffnet ein PDF für die seitenweise Extraktion eines Seitenbereichs.
+   *
+   * @param in       InputStream der PDF-Datei
+   * @param fromPage erste Seite (1-basiert, inklusive)
+   * @param toPage   letzte Seite (inklusive); wird auf die Seitenzahl begrenzt
+   */
+  public PageCursor openPages(InputStream in, int fromPage, int toPage) throws IOException {
+    return new PageCursor(PDDocument.load(in, MemoryUsageSetting.setupTempFileOnly()), fromPage, toPage);
+  }
+
+  /**
+   * Erstellt den Struktur-Index eines PDFs.
+   *
+   * Der komplette Text wird einmal extrahiert und bereinigt; dabei werden
+   * - die Start-Offsets jeder Seite im bereinigten Text und
+   * - Zeilen mit deutlich größerer Schrift als der Fließtext (Überschriften)
+   * festgehalten. Aus den Überschriften werden Abschnitte mit Seiten- und
+   * Zeichenbereich gebildet.
+   *
+   * @param in   InputStream der PDF-Datei
+   * @param size Dateigröße in Bytes (für das Speicherbudget)
+   * @return Index ohne ID (wird vom Aufrufer gesetzt)
+   * @throws IOException Falls PDF nicht lesbar oder beschädigt ist
+   */
+  public UploadTextIndex buildIndex(InputStream in, long size) throws IOException {
+    try (MemoryGovernor.Permit permit = reserve(size);
+         PDDocument doc = PDDocument.load(in, MemoryUsageSetting.setupTempFileOnly())) {
+      // Ein Stream lässt sich nicht mehrfach öffnen → immer in einem Stück
+      int pages = doc.getNumberOfPages();
+      return assemble(List.of(RangeResult.extract(doc, 1, pages)), pages);
+    }
+  }
+
+  /**
+   * Wie {@link #buildIndex(InputStream, long)}, liest das PDF aber per wahlfreiem Zugriff.
+   *
+   * Ab pdf.parallel.min-pages Seiten wird der Seitenbereich auf bis zu
+   * pdf.parallel.threads Teilbereiche verteilt; jeder weitere Teilbereich öffnet über
+   * {@code source} einen eigenen Leser (PDDocument ist nicht thread-safe) und reserviert
+   * dafür zusätzliches Speicherbudget.
+   *
+   * @param source öffnet je Aufruf einen neuen Leser auf die PDF-Datei
+   * @param size   Dateigröße in Bytes (für das Speicherbudget)
+   */
+  public UploadTextIndex buildIndex(PdfSource source, long size) throws IOException {
+    long start = System.nanoTime();
+    try (MemoryGovernor.Permit permit = reserve(size);
+         PDDocument doc = open(source)) {
+      int pages = doc.getNumberOfPages();
+      int ranges = rangesFor(pages);
+      try (MemoryGovernor.Permit extra = (ranges > 1) ? reserve(size * (ranges - 1)) : MemoryGovernor.Permit.NONE) {
+        UploadTextIndex idx = assemble(extractRanges(doc, source, pages, ranges), pages);
+        log.debug("PDF index built: pages={}, ranges={}, sections={}, ms={}",
+            pages, ranges, idx.getSections().size(), (System.nanoTime() - start) / 1_000_000);
+        return idx;
+      }
+    }
+  }
+
+  /** Anzahl Teilbereiche: höchstens so viele wie Threads, jeder mit mindestens pages-per-task Seiten. */
+  private int rangesFor(int pages) {
+    if (pool == null || pages < parallelMinPages || pool.getParallelism() < 2) return 1;
+    return Math.max(1, Math.min(pool.getParallelism(), (pages + pagesPerTask - 1) / pagesPerTask));
+  }
+
+  /**
+   * Extrahiert die Teilbereiche: den ersten mit dem schon geöffneten Dokument im
+   * aufrufenden Thread, alle weiteren parallel im ForkJoinPool mit eigenen Lesern.
+   *
+   * @return Teilergebnisse in Seitenreihenfolge
+   */
+  private List<RangeResult> extractRanges(PDDocument first, PdfSource source, int pages, int ranges)
+      throws IOException {
+    int per = (pages + ranges - 1) / ranges;
+    List<PageRangeTask> forked = new ArrayList<>(ranges - 1);
+    for (int from = per + 1; from <= pages; from += per) {
+      PageRangeTask task = new PageRangeTask(source, from, Math.min(pages, from + per - 1));
+      pool.execute(task);
+      forked.add(task);
+    }
+
+    List<RangeResult> parts = new ArrayList<>(ranges);
+    try {
+      parts.add(RangeResult.extract(first, 1, Math.min(pages, per)));
+      for (PageRangeTask task : forked) parts.add(task.join());
+      return parts;
+    } catch (UncheckedIOException e) {
+      // ForkJoin kann die Exception beim Weiterreichen erneut einpacken → ursprüngliche IOException suchen
+      Throwable t = e;
+      while (t != null && !(t instanceof IOException)) t = t.getCause();
+      throw (t != null) ? (IOException) t : new IOException(e);
+    } finally {
+      // Bei einem Fehler noch nicht gestartete Teilbereiche gar nicht erst öffnen
+      forked.forEach(task -> task.cancel(false));
+    }
+  }
+
+  /**
+   * Setzt die Teilergebnisse zum Index zusammen.
+   *
+   * Der Rohtext aller Teilbereiche läuft in Seitenreihenfolge durch einen Normalizer;
+   * an den protokollierten Roh-Offsets (Seiten- und Zeilenanfänge) wird die aktuelle
+   * Länge des bereinigten Texts abgelesen. Das ergibt dieselben Offsets wie eine
+   * Extraktion in einem Stück, auch wenn eine Trennung über eine Bereichsgrenze reicht.
+   */
+  private static UploadTextIndex assemble(List<RangeResult> parts, int pageCount) {
+    int rawLength = 0;
+    for (RangeResult r : parts) rawLength += r.raw.length();
+    TextNormalizer normalizer = new TextNormalizer(rawLength);
+
+    List<Integer> pageStarts = new ArrayList<>(pageCount);
+    List<Line> lines = new ArrayList<>();
+    Map<Integer, Integer> charsBySize = new HashMap<>();
+    for (RangeResult r : parts) {
+      int pos = 0;
+      int p = 0;
+      int l = 0;
+      while (p < r.pageStarts.size() || l < r.lines.size()) {
+        boolean page = l >= r.lines.size()
+            || (p < r.pageStarts.size() && r.pageStarts.get(p) <= r.lines.get(l).offset);
+        int at = page ? r.pageStarts.get(p) : r.lines.get(l).offset;
+        normalizer.append(r.raw, pos, at);
+        pos = at;
+        if (page) {
+          pageStarts.add(normalizer.length());
+          p++;
+        } else {
+          Line raw = r.lines.get(l++);
+          lines.add(new Line(raw.page, raw.text, raw.size, normalizer.length()));
+        }
+      }
+      normalizer.append(r.raw, pos, r.raw.length());
+      r.charsBySize.forEach((k, v) -> charsBySize.merge(k, v, Integer::sum));
+    }
+    int textLength = normalizer.finish().length();
+
+    // Seitengrenzen
+    List<UploadTextIndex.PageSpan> pages = new ArrayList<>(pageStarts.size());
+    for (int i = 0; i < pageStarts.size(); i++) {
+      int from = Math.min(pageStarts.get(i), textLength);
+      int to = (i + 1 < pageStarts.size())
+          ? Math.min(pageStarts.get(i + 1), textLength)
+          : textLength;
+      pages.add(new UploadTextIndex.PageSpan(i + 1, from, to));
+    }
+
+    List<UploadTextIndex.Section> sections = toSections(headings(lines, charsBySize), pages, textLength);
+
+    return UploadTextIndex.builder()
+        .pageCount(pageCount)
+        .textLength(textLength)
+        .pages(pages)
+        .sections(sections)
+        .builtAt(Instant.now())
+        .build();
+  }
+
+  /**
+   * Liefert die Überschriften: Zeilen, deren Schrift deutlich größer als die
+   * häufigste Schriftgröße (Fließtext) ist. Direkt aufeinanderfolgende Zeilen
+   * gleicher Größe auf derselben Seite werden zu einer Überschrift zusammengefasst.
+   */
+  private static List<Line> headings(List<Line> lines, Map<Integer, Integer> charsBySize) {
+    int bodyKey = charsBySize.entrySet().stream()
+        .max(Map.Entry.comparingByValue())
+        .map(Map.Entry::getKey)
+        .orElse(0);
+    float threshold = (bodyKey / 2f) * HEADING_SIZE_RATIO;
+
+    List<Line> out = new ArrayList<>();
+    Line prev = null;
+    int prevIndex = -2;
+    for (int i = 0; i < lines.size(); i++) {
+      Line l = lines.get(i);
+      if (bodyKey == 0 || l.size < threshold || l.text.length() > HEADING_MAX_CHARS
+          || l.text.chars().noneMatch(Character::isLetter)) {
+        continue;
+      }
+      if (prev != null && prevIndex == i - 1 && prev.page == l.page && sizeKey(prev.size) == sizeKey(l.size)
+          && prev.text.length() + l.text.length() < HEADING_MAX_CHARS) {
+        prev = new Line(prev.page, prev.text + " " + l.text, prev.size, prev.offset);
+        out.set(out.size() - 1, prev);
+      } else {
+        prev = l;
+        out.add(l);
+      }
+      prevIndex = i;
+    }
+    return out;
+  }
+
+  /**
+   * Bildet aus den erkannten Überschriften Abschnitte.
+   * Ein Abschnitt reicht bis zur nächsten Überschrift gleicher oder höherer Ebene.
+   */
+  private static List<UploadTextIndex.Section> toSections(List<Line> headings,
+                                                          List<UploadTextIndex.PageSpan> pages,
+                                                          int textLength) {
+    // Ebenen nach Schriftgröße vergeben: größte Schrift = Ebene 1 (maximal 3 Ebenen)
+    TreeSet<Integer> sizes = new TreeSet<>();
+    for (Line h : headings) sizes.add(sizeKey(h.size));
+    List<Integer> bySizeDesc = new ArrayList<>(sizes.descendingSet());
+
+    int n = Math.min(headings.size(), MAX_SECTIONS);
+    int[] levels = new int[n];
+    for (int i = 0; i < n; i++) {
+      levels[i] = Math.min(3, bySizeDesc.indexOf(sizeKey(headings.get(i).size)) + 1);
+    }
+
+    List<UploadTextIndex.Section> out = new ArrayList<>(n);
+    for (int i = 0; i < n; i++) {
+      Line h = headings.get(i);
+      int start = Math.min(h.offset, textLength);
+      int end = textLength;
+      for (int j = i + 1; j < n; j++) {
+        if (levels[j] <= levels[i]) {
+          end = Math.min(headings.get(j).offset, textLength);
+          break;
+        }
+      }
+      out.add(new UploadTextIndex.Section(
+          i, h.text, levels[i], h.page, pageAt(pages, Math.max(start, end - 1), h.page), start, end));
+    }
+    return out;
+  }
+
+  /** Ermittelt die Seite, auf der ein Zeichen-Offset liegt. */
+  private static int pageAt(List<UploadTextIndex.PageSpan> pages, int offset, int fallback) {
+    for (UploadTextIndex.PageSpan p : pages) {
+      if (offset >= p.getStart() && offset < p.getEnd()) return p.getPage();
+    }
+    return pages.isEmpty() ? fallback : pages.get(pages.size() - 1).getPage();
+  }
+
+  /** Schriftgrößen werden auf halbe Punkte gerundet verglichen. */
+  private static int sizeKey(float size) {
+    return Math.round(size * 2);
+  }
+
+  /**
+   * Erstellt einen PDFTextStripper für einen Seitenbereich (1-basiert, inklusive).
+   */
+  private static PDFTextStripper newStripper(int fromPage, int toPage) throws IOException {
+    PDFTextStripper stripper = new PDFTextStripper();
+    stripper.setSortByPosition(true); // Text in logischer Reihenfolge extrahieren
+    stripper.setStartPage(fromPage);
+    stripper.setEndPage(toPage);
+    return stripper;
+  }
+
+  /**
+   * Iterator über die Rohtexte der einzelnen Seiten eines geöffneten PDFs.
+   *
+   * Seiten werden erst beim Aufruf von {@code next()} extrahiert.
+   */
+  public static final class PageCursor implements Iterator<String>, Closeable {
+
+    private final PDDocument doc;
+    private final PDFTextStripper stripper;
+    private final int pageCount;
+    private final int lastPage;
+    private int nextPage;
+
+    private PageCursor(PDDocument doc, int fromPage, int toPage) throws IOException {
+      this.doc = doc;
+      this.stripper = newStripper(1, 1);
+      this.pageCount = doc.getNumberOfPages();
+      this.nextPage = Math.max(1, fromPage);
+      this.lastPage = Math.min(toPage, pageCount);
+    }
+
+    /** Gesamtzahl der Seiten im Dokument. */
+    public int pageCount() {
+      return pageCount;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return nextPage <= lastPage;
+    }
+
+    @Override
+    public String next() {
+      if (!hasNext()) throw new NoSuchElementException();
+      try {
+        stripper.setStartPage(nextPage);
+        stripper.setEndPage(nextPage);
+        String text = stripper.getText(doc);
+        nextPage++;
+        return text;
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      doc.close();
+    }
+  }
+
+  /** Eine Textzeile mit Seite, durchschnittlicher Schriftgröße und Offset (roh bzw. bereinigt). */
+  private record Line(int page, String text, float size, int offset) {
+  }
+
+  /**
+   * Rohtext eines Seitenbereichs mit Seiten- und Zeilenanfängen als Offsets im Rohtext
+   * und der Zeichenzahl pro Schriftgröße.
+   */
+  private record RangeResult(String raw, List<Integer> pageStarts, List<Line> lines,
+                             Map<Integer, Integer> charsBySize) {
+
+    /** Extrahiert die Seiten {@code fromPage..toPage} (1-basiert, inklusive) eines Dokuments. */
+    static RangeResult extract(PDDocument doc, int fromPage, int toPage) throws IOException {
+      StringWriter out = new StringWriter();
+      StructureStripper stripper = new StructureStripper(out.getBuffer());
+      stripper.setStartPage(fromPage);
+      stripper.setEndPage(toPage);
+      stripper.writeText(doc, out);
+      return new RangeResult(out.toString(), stripper.pageStarts, stripper.lines, stripper.charsBySize);
+    }
+  }
+
+  /**
+   * Teilaufgabe für einen Seitenbereich: öffnet einen eigenen Leser und ein eigenes
+   * PDDocument (PDDocument ist nicht thread-safe) und extrahiert nur diesen Bereich.
+   */
+  private static final class PageRangeTask extends RecursiveTask<RangeResult> {
+
+    private final PdfSource source;
+    private final int fromPage;
+    private final int toPage;
+
+    PageRangeTask(PdfSource source, int fromPage, int toPage) {
+      this.source = source;
+      this.fromPage = fromPage;
+      this.toPage = toPage;
+    }
+
+    @Override
+    protected RangeResult compute() {
+      try (PDDocument doc = open(source)) {
+        return RangeResult.extract(doc, fromPage, toPage);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+  }
+
+  /**
+   * PDFTextStripper, der beim Schreiben Seitenanfänge und Zeilen-Schriftgrößen mitprotokolliert.
+   * Die Offsets beziehen sich auf den Rohtext im Ausgabepuffer, in den der Stripper schreibt.
+   */
+  private static final class StructureStripper extends PDFTextStripper {
+
+    private final StringBuffer raw;
+    private final List<Integer> pageStarts = new ArrayList<>();
+    private final List<Line> lines = new ArrayList<>();
+    private final Map<Integer, Integer> charsBySize = new HashMap<>();
+
+    private final StringBuilder lineText = new StringBuilder();
+    private float lineSizeSum;
+    private int lineSizeCount;
+    private int lineStart = -1;
+
+    StructureStripper(StringBuffer raw) throws IOException {
+      this.raw = raw;
+      setSortByPosition(true);
+    }
+
+    @Override
+    protected void startPage(PDPage page) throws IOException {
+      pageStarts.add(raw.length());
+      super.startPage(page);
+    }
+
+    @Override
+    protected void endPage(PDPage page) throws IOException {
+      finishLine();
+      super.endPage(page);
+    }
+
+    @Override
+    protected void writeString(String text, List<TextPosition> textPositions) throws IOException {
+      if (lineStart < 0) lineStart = raw.length();
+      lineText.append(text);
+      for (TextPosition tp : textPositions) {
+        float size = tp.getFontSizeInPt();
+        lineSizeSum += size;
+        lineSizeCount++;
+        charsBySize.merge(sizeKey(size), 1, Integer::sum);
+      }
+      super.writeString(text, textPositions);
+    }
+
+    @Override
+    protected void writeWordSeparator() throws IOException {
+      lineText.append(' ');
+      super.writeWordSeparator();
+    }
+
+    @Override
+    protected void writeLineSeparator() throws IOException {
+      finishLine();
+      super.writeLineSeparator();
+    }
+
+    private void finishLine() {
+      if (lineSizeCount > 0) {
+        lines.add(new Line(getCurrentPageNo(), lineText.toString().trim(),
+            lineSizeSum / lineSizeCount, lineStart));
+      }
+      lineText.setLength(0);
+      lineSizeSum = 0;
+      lineSizeCount = 0;
+      lineStart = -1;
+    }
   }
 }
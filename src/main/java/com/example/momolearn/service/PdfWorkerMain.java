@@ -0,0 +1,121 @@
+package com.example.momolearn.service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Einstiegspunkt eines PDF-Worker-Prozesses (eigene JVM, siehe {@link PdfWorkerPool}).
+ *
+ * Der Worker liest Aufträge von stdin und schreibt Ergebnisse nach stdout.
+ * Er startet kein Spring, sondern nutzt nur {@link PdfTextService} direkt.
+ *
+ * Protokoll (alle Zahlen big-endian, wie DataInput/DataOutput):
+ *   Auftrag:  int fromPage, int toPage, int maxChars,
+ *             danach das PDF in Blöcken: int länge + bytes, abgeschlossen mit länge 0
+ *   Antwort:  byte status (0 = OK, 1 = Fehler), int länge, UTF-8-Bytes (Text bzw. Fehlermeldung)
+ */
+public final class PdfWorkerMain {
+
+  static final byte STATUS_OK = 0;
+  static final byte STATUS_ERROR = 1;
+
+  private PdfWorkerMain() {
+  }
+
+  public static void main(String[] args) throws IOException {
+    // stdout gehört dem Protokoll; Logausgaben (z. B. von PDFBox) landen auf stderr
+    PrintStream protocolOut = System.out;
+    System.setOut(System.err);
+
+    DataInputStream in = new DataInputStream(new BufferedInputStream(System.in, 64 * 1024));
+    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(protocolOut, 64 * 1024));
+    PdfTextService pdfText = PdfTextService.standalone();
+
+    while (true) {
+      int fromPage;
+      try {
+        fromPage = in.readInt();
+      } catch (EOFException e) {
+        return; // Pool hat stdin geschlossen → sauber beenden
+      }
+      int toPage = in.readInt();
+      int maxChars = in.readInt();
+
+      ChunkedInputStream pdf = new ChunkedInputStream(in);
+      byte status;
+      String result;
+      try {
+        result = pdfText.extractLocal(pdf, fromPage, toPage, maxChars);
+        status = STATUS_OK;
+      } catch (Exception e) {
+        result = e.getClass().getSimpleName() + ": " + e.getMessage();
+        status = STATUS_ERROR;
+      }
+      // Restliche Blöcke lesen, damit der nächste Auftrag am Anfang beginnt
+      pdf.drain();
+
+      byte[] bytes = result.getBytes(StandardCharsets.UTF_8);
+      out.writeByte(status);
+      out.writeInt(bytes.length);
+      out.write(bytes);
+      out.flush();
+    }
+  }
+
+  /**
+   * InputStream über die Blöcke eines Auftrags; liefert -1 beim Abschlussblock (Länge 0).
+   */
+  static final class ChunkedInputStream extends InputStream {
+
+    private final DataInputStream in;
+    private int remaining;
+    private boolean done;
+
+    ChunkedInputStream(DataInputStream in) {
+      this.in = in;
+    }
+
+    @Override
+    public int read() throws IOException {
+      byte[] one = new byte[1];
+      int r = read(one, 0, 1);
+      return r == -1 ? -1 : (one[0] & 0xFF);
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      if (done) return -1;
+      if (remaining == 0) {
+        remaining = in.readInt();
+        if (remaining == 0) {
+          done = true;
+          return -1;
+        }
+      }
+      int r = in.read(b, off, Math.min(len, remaining));
+      if (r == -1) throw new EOFException("PDF-Block unvollständig");
+      remaining -= r;
+      return r;
+    }
+
+    /** Überspringt alle noch nicht gelesenen Blöcke bis zum Abschlussblock. */
+    void drain() throws IOException {
+      byte[] skip = new byte[8192];
+      while (read(skip, 0, skip.length) != -1) {
+        // verwerfen
+      }
+    }
+
+    @Override
+    public void close() {
+      // Der zugrunde liegende stdin-Stream bleibt für weitere Aufträge offen
+    }
+  }
+}
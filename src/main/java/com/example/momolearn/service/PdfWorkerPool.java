@@ -0,0 +1,243 @@
+package com.example.momolearn.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pool aus Kind-JVMs, die PDF-Text isoliert vom Hauptprozess extrahieren.
+ *
+ * Kaputte oder riesige PDFs können PDFBox unbegrenzt Speicher belegen oder CPU
+ * verbrauchen lassen. Im Worker-Modus passiert das in einem eigenen Prozess mit
+ * eigenem Heap-Limit; API-Requests (Login, Attempts, ...) bleiben davon unberührt.
+ *
+ * - Kommunikation über stdin/stdout (Protokoll siehe {@link PdfWorkerMain})
+ * - Timeout pro Auftrag: der Worker wird hart beendet
+ * - Recycling: nach N Aufträgen oder nach jedem Fehler wird der Worker ersetzt
+ *
+ * Aktivierung über pdf.worker.enabled=true (Standard: aus, Extraktion im eigenen Prozess).
+ */
+@Component
+public class PdfWorkerPool {
+
+  private static final Logger log = LoggerFactory.getLogger(PdfWorkerPool.class);
+
+  private final boolean enabled;
+  private final int heapMb;
+  private final long timeoutMs;
+  private final int maxJobsPerWorker;
+  private final String javaBin;
+
+  private final Semaphore slots;
+  private final BlockingQueue<Worker> idle = new LinkedBlockingQueue<>();
+  private final List<Worker> all = new ArrayList<>();
+  private final ScheduledExecutorService watchdog;
+
+  /**
+   * Konfiguration (application.properties):
+   * - pdf.worker.enabled: Worker-Prozesse verwenden
+   * - pdf.worker.pool-size: maximale Anzahl gleichzeitiger Worker
+   * - pdf.worker.heap-mb: Heap-Limit (-Xmx) pro Worker
+   * - pdf.worker.timeout-ms: maximale Dauer eines Auftrags
+   * - pdf.worker.max-jobs: Aufträge pro Worker, danach wird er ersetzt
+   */
+  public PdfWorkerPool(
+      @Value("${pdf.worker.enabled:false}") boolean enabled,
+      @Value("${pdf.worker.pool-size:2}") int poolSize,
+      @Value("${pdf.worker.heap-mb:512}") int heapMb,
+      @Value("${pdf.worker.timeout-ms:60000}") long timeoutMs,
+      @Value("${pdf.worker.max-jobs:50}") int maxJobsPerWorker
+  ) {
+    this.enabled = enabled;
+    this.heapMb = Math.max(64, heapMb);
+    this.timeoutMs = Math.max(1000, timeoutMs);
+    this.maxJobsPerWorker = Math.max(1, maxJobsPerWorker);
+    this.javaBin = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+    this.slots = new Semaphore(Math.max(1, poolSize), true);
+    this.watchdog = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread t = new Thread(r, "pdf-worker-watchdog");
+      t.setDaemon(true);
+      return t;
+    });
+  }
+
+  /** Ob der Worker-Modus aktiv ist. */
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Extrahiert Text in einem Worker-Prozess.
+   *
+   * @param pdf      InputStream der PDF-Datei (wird blockweise an den Worker gestreamt)
+   * @param fromPage erste Seite (1-basiert, inklusive)
+   * @param toPage   letzte Seite (inklusive)
+   * @param maxChars Zeichenbudget
+   * @return bereinigter Text
+   * @throws IOException bei Fehlern im Worker, Timeout oder Absturz
+   */
+  public String extract(InputStream pdf, int fromPage, int toPage, int maxChars) throws IOException {
+    try {
+      slots.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while waiting for PDF worker", e);
+    }
+
+    Worker w = null;
+    boolean healthy = false;
+    try {
+      w = borrow();
+      String text = w.run(pdf, fromPage, toPage, maxChars);
+      healthy = true;
+      return text;
+    } finally {
+      if (w != null) giveBack(w, healthy);
+      slots.release();
+    }
+  }
+
+  private Worker borrow() throws IOException {
+    Worker w = idle.poll();
+    while (w != null && !w.process.isAlive()) {
+      discard(w);
+      w = idle.poll();
+    }
+    return (w != null) ? w : spawn();
+  }
+
+  private void giveBack(Worker w, boolean healthy) {
+    if (healthy && w.jobs < maxJobsPerWorker && w.process.isAlive()) {
+      idle.offer(w);
+    } else {
+      discard(w);
+    }
+  }
+
+  /** Startet eine neue Worker-JVM. */
+  private Worker spawn() throws IOException {
+    List<String> cmd = new ArrayList<>();
+    cmd.add(javaBin);
+    cmd.add("-Xmx" + heapMb + "m");
+    cmd.add("-XX:+UseSerialGC");
+    cmd.add("-XX:+ExitOnOutOfMemoryError");
+    cmd.addAll(classpathArgs());
+
+    Process p = new ProcessBuilder(cmd)
+        .redirectError(ProcessBuilder.Redirect.INHERIT) // Worker-Logs im Log der Anwendung
+        .start();
+    Worker w = new Worker(p);
+    synchronized (all) {
+      all.add(w);
+    }
+    log.debug("PDF worker started: pid={}, heapMb={}", p.pid(), heapMb);
+    return w;
+  }
+
+  /**
+   * Klassenpfad-Argumente für den Worker.
+   * Läuft die Anwendung als Spring-Boot-Jar, wird der PropertiesLauncher mit
+   * loader.main verwendet, sonst direkt der Klassenpfad der aktuellen JVM.
+   */
+  private List<String> classpathArgs() {
+    String cp = System.getProperty("java.class.path");
+    String main = PdfWorkerMain.class.getName();
+    if (cp != null && cp.endsWith(".jar") && !cp.contains(File.pathSeparator)) {
+      return List.of("-cp", cp, "-Dloader.main=" + main,
+          "org.springframework.boot.loader.launch.PropertiesLauncher");
+    }
+    return List.of("-cp", cp, main);
+  }
+
+  private void discard(Worker w) {
+    synchronized (all) {
+      all.remove(w);
+    }
+    w.process.destroyForcibly();
+    log.debug("PDF worker recycled: pid={}, jobs={}", w.process.pid(), w.jobs);
+  }
+
+  /** Beendet alle Worker beim Herunterfahren der Anwendung. */
+  @PreDestroy
+  void shutdown() {
+    watchdog.shutdownNow();
+    synchronized (all) {
+      for (Worker w : all) w.process.destroyForcibly();
+      all.clear();
+    }
+  }
+
+  /** Ein laufender Worker-Prozess mit seinen Streams. */
+  private final class Worker {
+
+    private final Process process;
+    private final DataOutputStream toWorker;
+    private final DataInputStream fromWorker;
+    private int jobs;
+
+    Worker(Process process) {
+      this.process = process;
+      this.toWorker = new DataOutputStream(new BufferedOutputStream(process.getOutputStream(), 64 * 1024));
+      this.fromWorker = new DataInputStream(new BufferedInputStream(process.getInputStream(), 64 * 1024));
+    }
+
+    String run(InputStream pdf, int fromPage, int toPage, int maxChars) throws IOException {
+      jobs++;
+      // Watchdog: nach Ablauf des Timeouts wird der Prozess beendet → Lesen/Schreiben schlägt fehl
+      ScheduledFuture<?> kill = watchdog.schedule(process::destroyForcibly, timeoutMs, TimeUnit.MILLISECONDS);
+      try {
+        toWorker.writeInt(fromPage);
+        toWorker.writeInt(toPage);
+        toWorker.writeInt(maxChars);
+
+        byte[] buf = new byte[64 * 1024];
+        int r;
+        while ((r = pdf.read(buf)) != -1) {
+          if (r == 0) continue;
+          toWorker.writeInt(r);
+          toWorker.write(buf, 0, r);
+        }
+        toWorker.writeInt(0);
+        toWorker.flush();
+
+        byte status = fromWorker.readByte();
+        byte[] payload = new byte[fromWorker.readInt()];
+        fromWorker.readFully(payload);
+        String msg = new String(payload, StandardCharsets.UTF_8);
+
+        if (status != PdfWorkerMain.STATUS_OK) {
+          throw new IOException("PDF worker failed: " + msg);
+        }
+        return msg;
+      } catch (IOException e) {
+        if (!process.isAlive()) {
+          throw new IOException("PDF worker died or timed out (timeoutMs=" + timeoutMs + ")", e);
+        }
+        throw e;
+      } finally {
+        kill.cancel(false);
+      }
+    }
+  }
+}
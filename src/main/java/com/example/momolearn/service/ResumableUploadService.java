@@ -0,0 +1,316 @@
+package com.example.momolearn.service;
+
+import com.example.momolearn.model.UploadDoc;
+import com.example.momolearn.model.UploadSession;
+import com.example.momolearn.repository.UploadSessionRepository;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.Sorts;
+import jakarta.annotation.PostConstruct;
+import org.bson.Document;
+import org.bson.types.Binary;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HexFormat;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Service für fortsetzbare Uploads (Protokoll ähnlich tus).
+ *
+ * Ablauf:
+ * 1. {@link #create}: Session mit angekündigter Gesamtgröße anlegen
+ * 2. {@link #append}: Bytes ab dem aktuellen Offset senden (beliebig oft, auch nach Abbruch)
+ * 3. Aktuellen Offset über {@link #get} abfragen und ab dort weitersenden
+ *
+ * Vollständige Chunks landen direkt als Dokumente in "fs.chunks"; bricht die Verbindung
+ * mitten in einem PATCH ab, bleibt alles bis dahin Empfangene erhalten. Vor dem ersten
+ * Chunk beansprucht ein PATCH die Session (Compare-and-Set auf Offset und Sperre), ein
+ * zweiter PATCH bekommt 409 statt dieselben Chunk-Nummern zu überschreiben. Nach dem letzten
+ * Byte wird der Hash aus den gespeicherten Chunks berechnet und der Upload über
+ * {@link UploadService#adoptChunks} zu einem normalen UploadDoc (inkl. Deduplizierung).
+ */
+@Service
+public class ResumableUploadService {
+
+  // Standard-Chunkgröße von GridFS
+  static final int CHUNK_SIZE = 255 * 1024;
+
+  private static final byte[] PDF_MAGIC = "%PDF-".getBytes(StandardCharsets.US_ASCII);
+
+  private final UploadSessionRepository sessions;
+  private final UploadService uploadService;
+  private final MongoTemplate mongo;
+  private final long maxBytes;
+  private final Duration ttl;
+  private final Duration lockTimeout;
+
+  /**
+   * Konfiguration (application.properties):
+   * - spring.servlet.multipart.max-file-size: maximale Dateigröße (wie beim normalen Upload)
+   * - uploads.resumable.ttl: Lebensdauer einer Session ohne Aktivität
+   * - uploads.resumable.lock-timeout: wie lange ein PATCH die Session ohne neuen Chunk hält
+   */
+  public ResumableUploadService(UploadSessionRepository sessions,
+                                UploadService uploadService,
+                                MongoTemplate mongo,
+                                @Value("${spring.servlet.multipart.max-file-size:50MB}") DataSize maxFileSize,
+                                @Value("${uploads.resumable.ttl:PT24H}") Duration ttl,
+                                @Value("${uploads.resumable.lock-timeout:PT2M}") Duration lockTimeout) {
+    this.sessions = sessions;
+    this.uploadService = uploadService;
+    this.mongo = mongo;
+    this.maxBytes = maxFileSize.toBytes();
+    this.ttl = ttl;
+    this.lockTimeout = lockTimeout;
+  }
+
+  /** Eindeutiger Index (files_id, n) wie ihn auch der GridFS-Treiber anlegt; nötig für die Upserts. */
+  @PostConstruct
+  void ensureIndexes() {
+    chunks().createIndex(Indexes.ascending("files_id", "n"), new IndexOptions().unique(true));
+  }
+
+  /** Ergebnis eines PATCH: neuer Offset und – nach dem letzten Byte – das fertige UploadDoc. */
+  public record AppendResult(long offset, long length, UploadDoc upload) {
+  }
+
+  /**
+   * Legt eine neue Upload-Session an.
+   *
+   * @param userId   ID des Benutzers
+   * @param length   angekündigte Gesamtgröße in Bytes
+   * @param filename Dateiname (optional)
+   * @return neue Session mit Offset 0
+   */
+  public UploadSession create(String userId, long length, String filename) {
+    if (length <= 0) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Upload-Length muss größer als 0 sein");
+    }
+    if (length > maxBytes) {
+      throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE, "Datei ist größer als " + maxBytes + " Bytes.");
+    }
+    Instant now = Instant.now();
+    UploadSession s = UploadSession.builder()
+        .userId(userId)
+        .filename((filename == null || filename.isBlank()) ? "upload.pdf" : filename)
+        .length(length)
+        .offset(0)
+        .filesId(new ObjectId().toHexString())
+        .chunkSize(CHUNK_SIZE)
+        .nextChunk(0)
+        .tail(new byte[0])
+        .createdAt(now)
+        .expiresAt(now.plus(ttl))
+        .build();
+    return sessions.save(s);
+  }
+
+  /**
+   * Liefert eine Session, die dem Nutzer gehören muss.
+   *
+   * @throws ResponseStatusException 404 (unbekannt/abgelaufen) bzw. 403 (fremde Session)
+   */
+  public UploadSession get(String userId, String sessionId) {
+    UploadSession s = sessions.findById(sessionId)
+        .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Upload-Session nicht gefunden"));
+    if (!userId.equals(s.getUserId()))
+      throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Upload-Session gehört nicht zum Nutzer");
+    return s;
+  }
+
+  /**
+   * Nimmt Bytes ab dem angegebenen Offset an.
+   *
+   * Der Offset muss exakt dem gespeicherten entsprechen (sonst 409), damit keine Lücken
+   * oder Überschneidungen entstehen. Bricht der Body-Stream ab, wird der bis dahin
+   * empfangene Stand trotzdem gespeichert und der Fehler danach weitergegeben.
+   *
+   * Vor dem ersten Chunk wird die Session beansprucht (nur bei passendem Offset und ohne
+   * laufenden PATCH, sonst 409); jeder Chunk verlängert die Beanspruchung und bricht mit
+   * 409 ab, wenn sie verloren ging (abgelaufen oder Session abgebrochen).
+   *
+   * @param userId    ID des Benutzers
+   * @param sessionId ID der Session
+   * @param offset    Upload-Offset des Clients
+   * @param body      Request-Body
+   * @return neuer Offset, ggf. mit fertigem UploadDoc
+   */
+  public AppendResult append(String userId, String sessionId, long offset, InputStream body) throws IOException {
+    UploadSession s = get(userId, sessionId);
+    if (offset != s.getOffset()) {
+      throw new ResponseStatusException(HttpStatus.CONFLICT,
+          "Upload-Offset " + offset + " passt nicht, erwartet " + s.getOffset());
+    }
+
+    // Session beanspruchen, bevor irgendein Chunk geschrieben wird
+    String token = new ObjectId().toHexString();
+    Instant now = Instant.now();
+    long claimed = mongo.updateFirst(
+        query(where("_id").is(s.getId()).and("offset").is(offset)
+            .orOperator(where("lockedUntil").is(null), where("lockedUntil").lt(now))),
+        new Update().set("lockToken", token).set("lockedUntil", now.plus(lockTimeout)),
+        UploadSession.class).getMatchedCount();
+    if (claimed == 0) {
+      throw new ResponseStatusException(HttpStatus.CONFLICT, "Upload-Session wird gerade parallel beschrieben");
+    }
+
+    boolean released = false;
+    try {
+      ObjectId filesId = new ObjectId(s.getFilesId());
+      byte[] chunk = new byte[s.getChunkSize()];
+      byte[] tail = (s.getTail() != null) ? s.getTail() : new byte[0];
+      System.arraycopy(tail, 0, chunk, 0, tail.length);
+      int fill = tail.length;
+      int n = s.getNextChunk();
+      long received = s.getOffset();
+
+      IOException interrupted = null;
+      try {
+        int r;
+        while ((r = body.read(chunk, fill, chunk.length - fill)) != -1) {
+          if (received + r > s.getLength()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                "Mehr Daten als angekündigt (Upload-Length " + s.getLength() + ")");
+          }
+          fill += r;
+          received += r;
+          if (fill == chunk.length) {
+            renew(s.getId(), token);
+            writeChunk(filesId, n++, chunk, fill);
+            fill = 0;
+          }
+        }
+      } catch (IOException e) {
+        // Verbindung abgebrochen: Empfangenes sichern, damit der Client ab hier fortsetzen kann
+        interrupted = e;
+      }
+
+      // Beim letzten Byte bleibt die Session bis zum Abschluss beansprucht
+      boolean last = (interrupted == null && received >= s.getLength());
+      Update update = new Update()
+          .set("offset", received)
+          .set("nextChunk", n)
+          .set("tail", Arrays.copyOf(chunk, fill))
+          .set("expiresAt", Instant.now().plus(ttl));
+      if (!last) update.unset("lockToken").unset("lockedUntil");
+      long updated = mongo.updateFirst(query(where("_id").is(s.getId()).and("lockToken").is(token)),
+          update, UploadSession.class).getMatchedCount();
+      if (updated == 0) {
+        throw new ResponseStatusException(HttpStatus.CONFLICT, "Upload-Session wurde parallel verändert");
+      }
+      released = !last;
+      if (interrupted != null) throw interrupted;
+
+      if (!last) {
+        return new AppendResult(received, s.getLength(), null);
+      }
+
+      // Letztes Byte empfangen → Rest-Chunk schreiben und abschließen
+      if (fill > 0) writeChunk(filesId, n, chunk, fill);
+      UploadDoc done = complete(s, filesId);
+      released = true; // Session gelöscht
+      return new AppendResult(received, s.getLength(), done);
+    } finally {
+      if (!released) release(s.getId(), token);
+    }
+  }
+
+  /** Verlängert die Beanspruchung vor dem nächsten Chunk; 409, wenn ein anderer sie übernommen hat. */
+  private void renew(String sessionId, String token) {
+    long matched = mongo.updateFirst(query(where("_id").is(sessionId).and("lockToken").is(token)),
+        new Update().set("lockedUntil", Instant.now().plus(lockTimeout)), UploadSession.class).getMatchedCount();
+    if (matched == 0) {
+      throw new ResponseStatusException(HttpStatus.CONFLICT, "Upload-Session wurde parallel verändert");
+    }
+  }
+
+  /** Gibt die Session wieder frei (z. B. nach einem abgelehnten PATCH). */
+  private void release(String sessionId, String token) {
+    mongo.updateFirst(query(where("_id").is(sessionId).and("lockToken").is(token)),
+        new Update().unset("lockToken").unset("lockedUntil"), UploadSession.class);
+  }
+
+  /**
+   * Bricht einen Upload ab und verwirft alle bereits gespeicherten Chunks.
+   */
+  public void abort(String userId, String sessionId) {
+    UploadSession s = get(userId, sessionId);
+    chunks().deleteMany(Filters.eq("files_id", new ObjectId(s.getFilesId())));
+    sessions.deleteById(s.getId());
+  }
+
+  /**
+   * Prüft die gespeicherten Chunks (Reihenfolge, Größe, PDF-Signatur), berechnet den Hash
+   * und übergibt sie als fertige Datei an den UploadService.
+   */
+  private UploadDoc complete(UploadSession s, ObjectId filesId) {
+    MessageDigest sha256;
+    try {
+      sha256 = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 nicht verfügbar", e);
+    }
+
+    // Chunks jenseits der Dateigröße (z. B. aus einem abgelehnten, zu langen PATCH) verwerfen
+    long chunkCount = (s.getLength() + s.getChunkSize() - 1) / s.getChunkSize();
+    chunks().deleteMany(Filters.and(Filters.eq("files_id", filesId), Filters.gte("n", chunkCount)));
+
+    long total = 0;
+    int expectedN = 0;
+    boolean pdf = false;
+    for (Document c : chunks().find(Filters.eq("files_id", filesId)).sort(Sorts.ascending("n"))) {
+      if (c.getInteger("n") != expectedN++) break; // Lücke → Größenprüfung schlägt fehl
+      byte[] data = c.get("data", Binary.class).getData();
+      if (total == 0) {
+        pdf = data.length >= PDF_MAGIC.length
+            && Arrays.equals(data, 0, PDF_MAGIC.length, PDF_MAGIC, 0, PDF_MAGIC.length);
+      }
+      sha256.update(data);
+      total += data.length;
+    }
+
+    if (total != s.getLength() || !pdf) {
+      abort(s.getUserId(), s.getId());
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+          pdf ? "Upload unvollständig, bitte neu starten." : "Bitte eine PDF-Datei hochladen.");
+    }
+
+    UploadDoc doc = uploadService.adoptChunks(s.getUserId(), filesId, s.getFilename(), total,
+        s.getChunkSize(), HexFormat.of().formatHex(sha256.digest()));
+    sessions.deleteById(s.getId());
+    return doc;
+  }
+
+  /** Schreibt einen GridFS-Chunk; idempotent, damit ein wiederholter Abschluss nichts doppelt anlegt. */
+  private void writeChunk(ObjectId filesId, int n, byte[] buf, int len) {
+    Document chunk = new Document("files_id", filesId)
+        .append("n", n)
+        .append("data", new Binary(Arrays.copyOf(buf, len)));
+    chunks().replaceOne(Filters.and(Filters.eq("files_id", filesId), Filters.eq("n", n)),
+        chunk, new ReplaceOptions().upsert(true));
+  }
+
+  private MongoCollection<Document> chunks() {
+    return mongo.getCollection(GridFsUploadStorage.CHUNKS_COLLECTION);
+  }
+}
@@ -0,0 +1,33 @@
+package com.example.momolearn.service;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * 503 Service Unavailable mit "Retry-After"-Header.
+ *
+ * Wird geworfen, wenn ein Request wegen erschöpfter Ressourcen (z. B. Speicherbudget)
+ * nicht angenommen werden kann. Der Client soll es nach der angegebenen Zeit erneut versuchen.
+ */
+public class ServiceOverloadedException extends ResponseStatusException {
+
+  private final long retryAfterSeconds;
+
+  public ServiceOverloadedException(String reason, long retryAfterSeconds) {
+    super(HttpStatus.SERVICE_UNAVAILABLE, reason);
+    this.retryAfterSeconds = Math.max(1, retryAfterSeconds);
+  }
+
+  /** Wartezeit in Sekunden, die im Retry-After-Header zurückgegeben wird. */
+  public long getRetryAfterSeconds() {
+    return retryAfterSeconds;
+  }
+
+  @Override
+  public HttpHeaders getHeaders() {
+    HttpHeaders headers = new HttpHeaders();
+    headers.set(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+    return headers;
+  }
+}
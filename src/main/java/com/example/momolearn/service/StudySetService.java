@@ -7,8 +7,8 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.apache.pdfbox.io.RandomAccessRead;
 
-import java.io.InputStream;
 import java.time.Instant;
 import java.util.List;
 
@@ -29,6 +29,7 @@ public class StudySetService {
   private final PdfTextService pdfText;
   private final AiQuestionGenerator generator;   // KI-Client für DeepSeek
   private final QuestionRepository questions;
+  private final UploadIndexService indexes;
 
   public StudySetService(
       StudySetRepository sets,
@@ -37,7 +38,8 @@ public class StudySetService {
       UploadService uploadService,
       PdfTextService pdfText,
       AiQuestionGenerator generator,
-      QuestionRepository questions
+      QuestionRepository questions,
+      UploadIndexService indexes
   ) {
     this.sets = sets;
     this.courses = courses;
@@ -46,6 +48,7 @@ public class StudySetService {
     this.pdfText = pdfText;
     this.generator = generator;
     this.questions = questions;
+    this.indexes = indexes;
   }
 
   // ------------------------------------------------------------------------
@@ -59,6 +62,16 @@ public class StudySetService {
    * - Legt das Set mit Status PENDING an.
    */
   public StudySet create(String userId, String courseId, String title, String uploadId) {
+    return create(userId, courseId, title, uploadId, null, null, null);
+  }
+
+  /**
+   * Erstellt ein neues StudySet, das optional nur einen Teil des Uploads verwendet.
+   * - pageFrom/pageTo: expliziter Seitenbereich
+   * - section: Nummer eines Abschnitts aus dem Upload-Index (überschreibt den Seitenbereich)
+   */
+  public StudySet create(String userId, String courseId, String title, String uploadId,
+                         Integer pageFrom, Integer pageTo, Integer section) {
     Course course = courses.findById(courseId)
         .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Course not found"));
     if (!userId.equals(course.getUserId()))
@@ -67,18 +80,43 @@ public class StudySetService {
     if (title == null || title.isBlank())
       throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "title required");
 
+    UploadDoc up = null;
     if (uploadId != null) {
-      UploadDoc up = uploads.findById(uploadId)
+      up = uploads.findById(uploadId)
           .orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "Upload not found"));
       if (!userId.equals(up.getUserId()))
         throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Upload does not belong to user");
     }
 
+    // Optional: Abschnitt bzw. Seitenbereich auflösen
+    String sectionTitle = null;
+    if ((section != null || pageFrom != null || pageTo != null) && up == null)
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "uploadId required for page range/section");
+
+    if (section != null) {
+      UploadTextIndex idx = indexes.getOrBuild(up);
+      UploadTextIndex.Section sec = idx.getSections().stream()
+          .filter(s -> s.getIndex() == section)
+          .findFirst()
+          .orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "Section not found"));
+      pageFrom = sec.getFromPage();
+      pageTo = sec.getToPage();
+      sectionTitle = sec.getTitle();
+    } else if (pageFrom != null || pageTo != null) {
+      if (pageFrom == null) pageFrom = 1;
+      if (pageTo == null) pageTo = Integer.MAX_VALUE;
+      if (pageFrom < 1 || pageTo < pageFrom)
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "invalid page range");
+    }
+
     StudySet set = StudySet.builder()
         .userId(userId)
         .courseId(courseId)
         .title(title.trim())
         .uploadId(uploadId)
+        .pageFrom(pageFrom)
+        .pageTo(pageTo)
+        .sectionTitle(sectionTitle)
         .status(StudySet.Status.PENDING) // Status ist zunächst "wartend"
         .createdAt(Instant.now())
         .build();
@@ -129,7 +167,7 @@ public class StudySetService {
    * Ablauf:
    * 1. Ownership des Sets und Uploads prüfen.
    * 2. PDF aus GridFS öffnen.
-   * 3. Text extrahieren.
+   * 3. Text extrahieren (nur so viel, wie die KI maximal verarbeitet).
    * 4. Bisherige Fragen löschen (falls schon vorhanden).
    * 5. KI-Aufruf starten (DeepSeek) → Fragen erzeugen.
    * 6. Fragen speichern, Status auf READY setzen.
@@ -147,9 +185,12 @@ public class StudySetService {
     if (!userId.equals(up.getUserId()))
       throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Upload does not belong to user");
 
-    try (InputStream in = uploadService.openStream(up)) {
-      // 2) PDF → Text
-      String text = pdfText.extractText(in);
+    try (RandomAccessRead in = uploadService.openRandomAccess(up)) {
+      // 2) PDF → Text (Extraktion stoppt, sobald das Zeichenbudget des Generators erreicht ist;
+      //    bei Seitenbereich/Abschnitt werden nur diese Seiten gelesen und nur deren Bytes geladen)
+      String text = (set.getPageFrom() != null)
+          ? pdfText.extractText(in, up.getSize(), set.getPageFrom(), set.getPageTo(), generator.getClipChars())
+          : pdfText.extractText(in, up.getSize(), generator.getClipChars());
 
       // 3) Alte Fragen löschen, falls Set neu generiert wird
       questions.deleteByStudySetId(set.getId());
@@ -157,7 +198,8 @@ public class StudySetService {
       // 4) KI ansprechen → Fragen generieren
       var generated = generator.generateDecideCount(set.getId(), text);
 
-      // 5) Generierte Fragen speichern
+      // 5) Generierte Fragen speichern (Kurs mitschreiben, für Statistiken pro Kurs)
+      generated.forEach(q -> q.setCourseId(set.getCourseId()));
       questions.saveAll(generated);
 
       // 6) StudySet auf READY setzen
@@ -165,6 +207,14 @@ public class StudySetService {
       sets.save(set);
 
       return generated.size();
+    } catch (ServiceOverloadedException e) {
+      // Überlast (503 + Retry-After): nichts ist passiert, Status bleibt → später erneut versuchen
+      throw e;
+    } catch (ResponseStatusException e) {
+      // Fachlicher Fehler mit eigenem Status: Set auf FAILED, Status unverändert weiterreichen
+      set.setStatus(StudySet.Status.FAILED);
+      sets.save(set);
+      throw e;
     } catch (Exception e) {
       // Bei Fehler: Set auf FAILED setzen und Fehler weiterwerfen
       set.setStatus(StudySet.Status.FAILED);
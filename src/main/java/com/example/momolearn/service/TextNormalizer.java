@@ -0,0 +1,192 @@
+package com.example.momolearn.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+
+/**
+ * Bereinigt extrahierten PDF-Text in einem einzigen Durchlauf.
+ *
+ * Ersetzt die frühere Kette aus drei String.replaceAll-Aufrufen und liefert
+ * exakt dasselbe Ergebnis:
+ * - Silbentrennung am Zeilenende ("Aus-\n  druck" → "Ausdruck") wird entfernt
+ * - Zeilenumbrüche werden zu Leerzeichen
+ * - Mehrfach-Whitespace wird auf ein Leerzeichen reduziert, Ränder getrimmt
+ *
+ * Der Normalizer ist zustandsbehaftet: Text kann stückweise (z. B. Seite für Seite)
+ * über {@link #append(CharSequence)} hineingegeben werden, auch wenn eine Trennung
+ * oder ein Whitespace-Block über die Grenze zweier Stücke reicht.
+ * Nicht thread-safe.
+ */
+public final class TextNormalizer {
+
+  private final StringBuilder out;
+
+  /** Ein '-' wurde gelesen, aber noch nicht geschrieben (evtl. Silbentrennung). */
+  private boolean pendingHyphen;
+
+  /** Länge des aktuell offenen Whitespace-Blocks. */
+  private int wsLen;
+
+  /** Erstes Zeichen des offenen Whitespace-Blocks (wird bei Länge 1 übernommen). */
+  private char wsFirst;
+
+  /** Ob der offene Whitespace-Block einen Zeilenumbruch enthält. */
+  private boolean wsHasNewline;
+
+  /**
+   * @param expectedLength erwartete Länge des Rohtexts, dient als Kapazität des Ausgabepuffers
+   */
+  public TextNormalizer(int expectedLength) {
+    this.out = new StringBuilder(Math.max(16, expectedLength));
+  }
+
+  /** Bereinigt einen kompletten Text. */
+  public static String normalize(CharSequence s) {
+    return new TextNormalizer(s.length()).append(s).finish();
+  }
+
+  /**
+   * Bereinigt den Text aus einem Reader, ohne ihn vorher als String zu materialisieren.
+   *
+   * @param in             Quelle
+   * @param expectedLength geschätzte Länge (Puffergröße)
+   */
+  public static String normalize(Reader in, int expectedLength) throws IOException {
+    TextNormalizer n = new TextNormalizer(expectedLength);
+    char[] buf = new char[8192];
+    int r;
+    while ((r = in.read(buf)) != -1) {
+      n.append(buf, 0, r);
+    }
+    return n.finish();
+  }
+
+  /** Hängt ein weiteres Textstück an. */
+  public TextNormalizer append(CharSequence s) {
+    for (int i = 0, n = s.length(); i < n; i++) {
+      accept(s.charAt(i));
+    }
+    return this;
+  }
+
+  /** Hängt den Ausschnitt {@code [start, end)} einer Zeichenfolge an. */
+  public TextNormalizer append(CharSequence s, int start, int end) {
+    for (int i = start; i < end; i++) {
+      accept(s.charAt(i));
+    }
+    return this;
+  }
+
+  /** Hängt einen Ausschnitt eines char-Arrays an. */
+  public TextNormalizer append(char[] buf, int off, int len) {
+    for (int i = off, end = off + len; i < end; i++) {
+      accept(buf[i]);
+    }
+    return this;
+  }
+
+  /**
+   * Liefert einen Writer, der direkt in diesen Normalizer schreibt.
+   * Damit kann z. B. PDFTextStripper.writeText ohne Zwischen-String arbeiten.
+   */
+  public Writer asWriter() {
+    return new Writer() {
+      @Override
+      public void write(char[] cbuf, int off, int len) {
+        TextNormalizer.this.append(cbuf, off, len);
+      }
+
+      @Override
+      public void write(String str, int off, int len) {
+        TextNormalizer.this.append(str.subSequence(off, off + len));
+      }
+
+      @Override
+      public void flush() {
+      }
+
+      @Override
+      public void close() {
+      }
+    };
+  }
+
+  /**
+   * Anzahl der bisher sicher geschriebenen Zeichen (ohne noch offene Trennung/Whitespace).
+   * Nützlich, um die Extraktion nach einem Zeichenbudget abzubrechen.
+   */
+  public int length() {
+    return out.length();
+  }
+
+  /**
+   * Schließt offene Zustände ab und liefert den bereinigten, getrimmten Text.
+   */
+  public String finish() {
+    if (pendingHyphen) {
+      // "-" gefolgt von Whitespace mit Zeilenumbruch am Ende → entfällt
+      if (!wsHasNewline) out.append('-');
+      pendingHyphen = false;
+    }
+    // Whitespace am Ende entfällt durch trim()
+    resetWhitespace();
+
+    // trim()-Semantik: alle Zeichen <= ' ' an den Rändern entfernen
+    int start = 0;
+    int end = out.length();
+    while (start < end && out.charAt(start) <= ' ') start++;
+    while (end > start && out.charAt(end - 1) <= ' ') end--;
+    return out.substring(start, end);
+  }
+
+  private void accept(char c) {
+    if (isWhitespace(c)) {
+      if (wsLen++ == 0) wsFirst = c;
+      if (c == '\n') wsHasNewline = true;
+      return;
+    }
+
+    flushPending();
+    if (c == '-') {
+      pendingHyphen = true;
+    } else {
+      out.append(c);
+    }
+  }
+
+  /**
+   * Schreibt eine offene Trennung bzw. einen offenen Whitespace-Block,
+   * sobald das nächste Nicht-Whitespace-Zeichen feststeht.
+   */
+  private void flushPending() {
+    if (pendingHyphen) {
+      pendingHyphen = false;
+      if (wsHasNewline) {
+        // Silbentrennung: "-" samt folgendem Whitespace entfernen
+        resetWhitespace();
+        return;
+      }
+      out.append('-');
+    }
+
+    if (wsLen > 0) {
+      if (out.length() > 0) {
+        // Mehrere Whitespaces oder ein einzelner Umbruch → ein Leerzeichen;
+        // ein einzelnes anderes Whitespace-Zeichen bleibt unverändert
+        out.append(wsLen >= 2 || wsFirst == '\n' ? ' ' : wsFirst);
+      }
+      resetWhitespace();
+    }
+  }
+
+  private void resetWhitespace() {
+    wsLen = 0;
+    wsHasNewline = false;
+  }
+
+  /** Entspricht der Regex-Klasse \s: [ \t\n\x0B\f\r]. */
+  private static boolean isWhitespace(char c) {
+    return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+  }
+}
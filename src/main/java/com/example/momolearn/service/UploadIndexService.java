@@ -0,0 +1,86 @@
+package com.example.momolearn.service;
+
+import com.example.momolearn.model.UploadDoc;
+import com.example.momolearn.model.UploadTextIndex;
+import com.example.momolearn.repository.UploadTextIndexRepository;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.util.Optional;
+
+/**
+ * Service für den Struktur-Index (Seiten, Abschnitte) hochgeladener PDFs.
+ *
+ * Der Index wird beim ersten Zugriff aus dem PDF erstellt und danach
+ * pro Upload in der Collection "upload_indexes" wiederverwendet.
+ */
+@Service
+public class UploadIndexService {
+
+  private final UploadTextIndexRepository indexes;
+  private final UploadService uploadService;
+  private final PdfTextService pdfText;
+
+  public UploadIndexService(UploadTextIndexRepository indexes,
+                            UploadService uploadService,
+                            PdfTextService pdfText) {
+    this.indexes = indexes;
+    this.uploadService = uploadService;
+    this.pdfText = pdfText;
+  }
+
+  /**
+   * Liefert den Index eines Uploads, der dem Nutzer gehören muss.
+   *
+   * @param userId   ID des Nutzers
+   * @param uploadId ID des Uploads
+   * @return gespeicherter oder frisch erstellter Index
+   */
+  public UploadTextIndex getForUser(String userId, String uploadId) {
+    return getOrBuild(uploadService.getForUser(userId, uploadId));
+  }
+
+  /**
+   * Liefert den gespeicherten Index oder erstellt ihn aus dem PDF.
+   * Gibt es bereits einen Index für denselben Inhalt (anderer Upload, gleicher Hash),
+   * wird dieser kopiert, statt das PDF erneut zu parsen.
+   *
+   * @param up Upload-Metadaten
+   * @return Index des Uploads
+   */
+  public UploadTextIndex getOrBuild(UploadDoc up) {
+    return indexes.findById(up.getId())
+        .or(() -> copyFromSameContent(up))
+        .orElseGet(() -> build(up));
+  }
+
+  /** Übernimmt den Index eines inhaltsgleichen Uploads. */
+  private Optional<UploadTextIndex> copyFromSameContent(UploadDoc up) {
+    if (up.getSha256() == null) return Optional.empty();
+    return indexes.findFirstBySha256(up.getSha256()).map(other -> indexes.save(UploadTextIndex.builder()
+        .id(up.getId())
+        .sha256(other.getSha256())
+        .pageCount(other.getPageCount())
+        .textLength(other.getTextLength())
+        .pages(other.getPages())
+        .sections(other.getSections())
+        .builtAt(other.getBuiltAt())
+        .build()));
+  }
+
+  /** Extrahiert die Struktur aus dem PDF und speichert den Index. */
+  private UploadTextIndex build(UploadDoc up) {
+    try {
+      // Je Teilbereich ein eigener Leser (große PDFs werden parallel gelesen)
+      UploadTextIndex idx = pdfText.buildIndex(() -> uploadService.openRandomAccess(up), up.getSize());
+      idx.setId(up.getId());
+      idx.setSha256(up.getSha256());
+      return indexes.save(idx);
+    } catch (IOException e) {
+      throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY,
+          "PDF konnte nicht indexiert werden: " + e.getMessage());
+    }
+  }
+}
@@ -0,0 +1,130 @@
+package com.example.momolearn.service;
+
+import org.springframework.http.HttpStatus;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * InputStream-Hülle für eingehende Uploads.
+ *
+ * Während die Bytes z. B. direkt nach GridFS fließen, werden nebenbei
+ * - der SHA-256-Hash und die Größe berechnet,
+ * - die PDF-Signatur ("%PDF-") am Dateianfang geprüft und
+ * - die maximale Dateigröße durchgesetzt.
+ *
+ * Verstöße werden als {@link RejectedException} (eine IOException) gemeldet,
+ * damit GridFS den angefangenen Upload verwirft.
+ */
+public class UploadInputStream extends FilterInputStream {
+
+  private static final byte[] PDF_MAGIC = "%PDF-".getBytes(StandardCharsets.US_ASCII);
+
+  private final MessageDigest sha256;
+  private final long maxBytes;
+  private final boolean requirePdf;
+  private long size;
+
+  // Hash nach dem ersten Abruf (MessageDigest.digest() setzt den Digest zurück)
+  private String sha256Hex;
+
+  public UploadInputStream(InputStream in, long maxBytes, boolean requirePdf) {
+    super(in);
+    this.maxBytes = maxBytes;
+    this.requirePdf = requirePdf;
+    try {
+      this.sha256 = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 nicht verfügbar", e);
+    }
+  }
+
+  @Override
+  public int read() throws IOException {
+    byte[] one = new byte[1];
+    int r = read(one, 0, 1);
+    return r == -1 ? -1 : (one[0] & 0xFF);
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    int r = super.read(b, off, len);
+    if (r == -1) {
+      if (requirePdf && size < PDF_MAGIC.length) {
+        throw new RejectedException(HttpStatus.BAD_REQUEST, "Bitte eine PDF-Datei hochladen.");
+      }
+      return -1;
+    }
+    checkMagic(b, off, r);
+    sha256.update(b, off, r);
+    size += r;
+    if (size > maxBytes) {
+      throw new RejectedException(HttpStatus.PAYLOAD_TOO_LARGE, "Datei ist größer als " + maxBytes + " Bytes.");
+    }
+    return r;
+  }
+
+  @Override
+  public long skip(long n) throws IOException {
+    // Jedes Byte muss in den Hash → nicht überspringen, sondern lesen
+    byte[] buf = new byte[8192];
+    long skipped = 0;
+    while (skipped < n) {
+      int r = read(buf, 0, (int) Math.min(buf.length, n - skipped));
+      if (r == -1) break;
+      skipped += r;
+    }
+    return skipped;
+  }
+
+  @Override
+  public boolean markSupported() {
+    return false;
+  }
+
+  /** Prüft die ersten Bytes des Streams gegen die PDF-Signatur. */
+  private void checkMagic(byte[] b, int off, int len) throws RejectedException {
+    if (!requirePdf || size >= PDF_MAGIC.length) return;
+    for (int i = 0; i < len && size + i < PDF_MAGIC.length; i++) {
+      if (b[off + i] != PDF_MAGIC[(int) (size + i)]) {
+        throw new RejectedException(HttpStatus.BAD_REQUEST, "Bitte eine PDF-Datei hochladen.");
+      }
+    }
+  }
+
+  /** Anzahl der bisher gelesenen Bytes. */
+  public long getSize() {
+    return size;
+  }
+
+  /**
+   * SHA-256 der gelesenen Bytes als Hex-String; erst nach vollständigem Lesen aufrufen.
+   * Der Hash wird beim ersten Aufruf festgeschrieben, weitere Aufrufe liefern denselben Wert.
+   */
+  public String getSha256Hex() {
+    if (sha256Hex == null) sha256Hex = HexFormat.of().formatHex(sha256.digest());
+    return sha256Hex;
+  }
+
+  /**
+   * Upload wurde abgelehnt (kein PDF, zu groß). Enthält den passenden HTTP-Status.
+   */
+  public static class RejectedException extends IOException {
+
+    private final HttpStatus status;
+
+    public RejectedException(HttpStatus status, String message) {
+      super(message);
+      this.status = status;
+    }
+
+    public HttpStatus getStatus() {
+      return status;
+    }
+  }
+}
@@ -0,0 +1,491 @@
+package com.example.momolearn.service;
+
+import com.example.momolearn.model.StudySet;
+import com.example.momolearn.model.UploadDoc;
+import com.example.momolearn.model.UploadSession;
+import com.example.momolearn.model.User;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.gridfs.GridFsTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.FileNotFoundException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Hintergrundjob, der "uploads", GridFS und StudySet-Verweise abgleicht und Waisen entfernt.
+ *
+ * Geprüft wird in Batches (Paging über _id) mit Pause zwischen den Batches,
+ * damit der Abgleich die Datenbank nicht auslastet:
+ * 1. Uploads ohne GridFS-Datei oder ohne existierenden Benutzer → Upload löschen
+ *    (Uploads in anderen Backends werden nur auf den Benutzer geprüft)
+ * 2. GridFS-Dateien ohne Upload → zweistufig: erst markieren (metadata.orphanSince),
+ *    in einem späteren Lauf nach Ablauf der Karenzzeit löschen; zu niedrige
+ *    Referenzzähler werden korrigiert
+ * 3. GridFS-Chunks ohne Datei und ohne laufende Upload-Session → löschen
+ * 4. StudySets mit Verweis auf nicht existierende Uploads → nur melden (Inhalte des Nutzers)
+ *
+ * Jeder Schritt merkt sich in "reconcile_state" die zuletzt geprüfte _id und setzt beim
+ * nächsten Lauf dahinter fort; am Ende der Collection geht es vorne weiter, bis der
+ * Startpunkt wieder erreicht ist. So kommen bei max-batches auch große Collections
+ * vollständig an die Reihe, statt dass jeder Lauf nur den Anfang prüft.
+ *
+ * Dateien/Chunks jünger als die Karenzzeit werden nie angefasst (laufende Uploads).
+ * Standardmäßig (uploads.reconcile.dry-run=true) wird nur gemeldet, nichts gelöscht.
+ *
+ * Der Job läuft auf einem eigenen Thread statt im gemeinsamen @Scheduled-Scheduler:
+ * Ein Lauf mit Pausen zwischen den Batches dauert lange und würde sonst die kurzen
+ * Jobs (Revocation-Polling, Leaderboard-Snapshot) blockieren.
+ */
+@Component
+public class UploadReconciler {
+
+  private static final Logger log = LoggerFactory.getLogger(UploadReconciler.class);
+
+  /** Collection mit dem Fortschritt pro Prüfschritt (_id = Schritt, lastId = zuletzt geprüft). */
+  static final String STATE_COLLECTION = "reconcile_state";
+
+  private final MongoTemplate mongo;
+  private final GridFsTemplate gridFs;
+  private final UploadService uploadService;
+
+  private final boolean enabled;
+  private final boolean dryRun;
+  private final int batchSize;
+  private final long pauseMs;
+  private final int maxBatches;
+  private final Duration grace;
+  private final Duration initialDelay;
+  private final Duration interval;
+  private final ScheduledExecutorService executor;
+
+  /**
+   * Konfiguration (application.properties):
+   * - uploads.reconcile.enabled: Job aktiv
+   * - uploads.reconcile.dry-run: nur melden, nichts löschen (Standard)
+   * - uploads.reconcile.initial-delay / uploads.reconcile.interval: erster Lauf und Abstand zwischen Läufen
+   * - uploads.reconcile.batch-size: Dokumente pro Batch
+   * - uploads.reconcile.pause-ms: Pause zwischen zwei Batches (Ratenbegrenzung)
+   * - uploads.reconcile.max-batches: maximale Batches pro Prüfschritt und Lauf
+   * - uploads.reconcile.grace: Karenzzeit für neue bzw. als verwaist markierte Dateien
+   */
+  public UploadReconciler(MongoTemplate mongo,
+                          GridFsTemplate gridFs,
+                          UploadService uploadService,
+                          @Value("${uploads.reconcile.enabled:true}") boolean enabled,
+                          @Value("${uploads.reconcile.dry-run:true}") boolean dryRun,
+                          @Value("${uploads.reconcile.initial-delay:PT10M}") Duration initialDelay,
+                          @Value("${uploads.reconcile.interval:PT6H}") Duration interval,
+                          @Value("${uploads.reconcile.batch-size:500}") int batchSize,
+                          @Value("${uploads.reconcile.pause-ms:200}") long pauseMs,
+                          @Value("${uploads.reconcile.max-batches:200}") int maxBatches,
+                          @Value("${uploads.reconcile.grace:PT24H}") Duration grace) {
+    this.mongo = mongo;
+    this.gridFs = gridFs;
+    this.uploadService = uploadService;
+    this.enabled = enabled;
+    this.dryRun = dryRun;
+    this.batchSize = Math.max(1, batchSize);
+    this.pauseMs = Math.max(0, pauseMs);
+    this.maxBatches = Math.max(1, maxBatches);
+    this.grace = grace;
+    this.initialDelay = initialDelay;
+    this.interval = interval;
+    this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread t = new Thread(r, "upload-reconciler");
+      t.setDaemon(true);
+      return t;
+    });
+  }
+
+  /** Plant den periodischen Lauf auf dem eigenen Thread ein. */
+  @PostConstruct
+  void start() {
+    if (!enabled) return;
+    executor.scheduleWithFixedDelay(this::scheduled,
+        initialDelay.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  /** Bricht einen laufenden Abgleich ab (unterbricht die Pause zwischen Batches). */
+  @PreDestroy
+  void shutdown() {
+    executor.shutdownNow();
+  }
+
+  /** Ergebnis eines Laufs (wird geloggt). */
+  public record Report(int uploadsWithoutBlob, int uploadsWithoutUser, int blobsMarked, int blobsDeleted,
+                       int refCountsRepaired, int orphanChunkFiles, int danglingStudySets) {
+  }
+
+  /** Periodischer Lauf; Intervall über uploads.reconcile.interval. */
+  void scheduled() {
+    try {
+      run();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (RuntimeException e) {
+      log.error("Upload-Abgleich fehlgeschlagen", e);
+    }
+  }
+
+  /**
+   * Führt einen vollständigen Abgleich aus.
+   *
+   * @return Zusammenfassung der gefundenen bzw. entfernten Waisen
+   */
+  public Report run() throws InterruptedException {
+    Instant cutoff = Instant.now().minus(grace);
+    int[] uploadOrphans = reconcileUploads();
+    int[] blobOrphans = reconcileBlobs(cutoff);
+    int chunkOrphans = reconcileChunks(cutoff);
+    int dangling = reportDanglingStudySets();
+
+    Report r = new Report(uploadOrphans[0], uploadOrphans[1], blobOrphans[0], blobOrphans[1],
+        blobOrphans[2], chunkOrphans, dangling);
+    log.info("Upload-Abgleich{}: {}", dryRun ? " (dry-run)" : "", r);
+    return r;
+  }
+
+  /**
+   * Schritt 1: Uploads, deren GridFS-Datei oder Benutzer fehlt.
+   *
+   * @return [ohne Datei, ohne Benutzer]
+   */
+  private int[] reconcileUploads() throws InterruptedException {
+    int withoutBlob = 0;
+    int withoutUser = 0;
+    Cursor cursor = new Cursor("uploads");
+
+    for (int batch = 0; batch < maxBatches; batch++) {
+      Query q = new Query().with(Sort.by("id")).limit(batchSize);
+      cursor.range("id").ifPresent(q::addCriteria);
+      q.fields().include("id", "userId", "storage", "storageId");
+      List<UploadDoc> page = mongo.find(q, UploadDoc.class);
+      ObjectId lastId = page.isEmpty() ? null : new ObjectId(page.get(page.size() - 1).getId());
+      if (!cursor.advance(lastId, page.size() == batchSize)) break;
+      if (page.isEmpty()) continue;
+
+      // Vorhandene GridFS-Dateien und Benutzer dieses Batches in je einer Abfrage
+      Set<ObjectId> storageIds = new HashSet<>();
+      Set<String> userIds = new HashSet<>();
+      for (UploadDoc u : page) {
+        ObjectId oid = toObjectIdOrNull(u.getStorageId());
+        if (oid != null) storageIds.add(oid);
+        if (u.getUserId() != null) userIds.add(u.getUserId());
+      }
+      Set<ObjectId> existingBlobs = new HashSet<>();
+      files().find(Filters.in("_id", storageIds)).projection(Projections.include("_id"))
+          .forEach(d -> existingBlobs.add(d.getObjectId("_id")));
+      Query userQuery = query(where("id").in(userIds));
+      userQuery.fields().include("id");
+      Set<String> existingUsers = new HashSet<>();
+      mongo.find(userQuery, User.class).forEach(u -> existingUsers.add(u.getId()));
+
+      for (UploadDoc u : page) {
+        ObjectId oid = toObjectIdOrNull(u.getStorageId());
+        // Datei-Prüfung nur für GridFS; andere Backends werden hier nicht abgeglichen
+        boolean inGridFs = u.getStorage() == null || GridFsUploadStorage.NAME.equals(u.getStorage());
+        boolean blobMissing = inGridFs && (oid == null || !existingBlobs.contains(oid));
+        boolean userMissing = u.getUserId() == null || !existingUsers.contains(u.getUserId());
+        if (!blobMissing && !userMissing) continue;
+
+        if (blobMissing) withoutBlob++;
+        else withoutUser++;
+        log.warn("Verwaister Upload {} (Datei fehlt: {}, Benutzer fehlt: {})", u.getId(), blobMissing, userMissing);
+        if (!dryRun) uploadService.delete(u.getId());
+      }
+      pause();
+    }
+    return new int[] { withoutBlob, withoutUser };
+  }
+
+  /**
+   * Schritt 2: GridFS-Dateien ohne Upload.
+   *
+   * Eine Datei ohne Verweis wird zunächst nur markiert. Erst wenn sie beim nächsten Lauf
+   * nach der Karenzzeit immer noch unreferenziert ist, wird sie gelöscht. So kann ein
+   * Upload, der die Datei gerade wiederverwendet (Referenz erhöht, UploadDoc noch nicht
+   * gespeichert), nicht betroffen sein; {@code retainBySha256} hebt die Markierung auf.
+   *
+   * @return [markiert, gelöscht, Referenzzähler korrigiert]
+   */
+  private int[] reconcileBlobs(Instant cutoff) throws InterruptedException {
+    int marked = 0;
+    int deleted = 0;
+    int repaired = 0;
+    Cursor cursor = new Cursor("blobs");
+
+    for (int batch = 0; batch < maxBatches; batch++) {
+      List<Document> page = new ArrayList<>();
+      files().find(cursor.filter("_id"))
+          .projection(Projections.include("_id", "uploadDate", "metadata.refCount", "metadata.orphanSince"))
+          .sort(Sorts.ascending("_id"))
+          .limit(batchSize)
+          .into(page);
+      ObjectId lastId = page.isEmpty() ? null : page.get(page.size() - 1).getObjectId("_id");
+      if (!cursor.advance(lastId, page.size() == batchSize)) break;
+      if (page.isEmpty()) continue;
+
+      Map<String, Integer> refs = countReferences(page);
+      for (Document f : page) {
+        ObjectId oid = f.getObjectId("_id");
+        Date uploadDate = f.getDate("uploadDate");
+        if (uploadDate != null && uploadDate.toInstant().isAfter(cutoff)) continue; // laufender Upload
+
+        Document meta = f.get("metadata", Document.class);
+        Integer refCount = (meta != null) ? meta.getInteger("refCount") : null;
+        Date orphanSince = (meta != null) ? meta.getDate("orphanSince") : null;
+        int actual = refs.getOrDefault(oid.toHexString(), 0);
+
+        if (actual > 0) {
+          if (orphanSince != null && !dryRun) {
+            files().updateOne(Filters.eq("_id", oid), Updates.unset("metadata.orphanSince"));
+          }
+          // Nur nach oben korrigieren: ein zu hoher Zähler kann von einem gerade laufenden
+          // Upload stammen, ein zu niedriger würde die Datei zu früh löschen
+          if (refCount != null && refCount < actual) {
+            repaired++;
+            log.warn("GridFS-Datei {}: refCount {} < {} Verweise", oid, refCount, actual);
+            if (!dryRun) {
+              files().updateOne(Filters.and(Filters.eq("_id", oid), Filters.eq("metadata.refCount", refCount)),
+                  Updates.set("metadata.refCount", actual));
+            }
+          }
+          continue;
+        }
+
+        if (orphanSince == null) {
+          marked++;
+          if (!dryRun) {
+            files().updateOne(Filters.eq("_id", oid), Updates.set("metadata.orphanSince", new Date()));
+          }
+        } else if (orphanSince.toInstant().isBefore(cutoff)) {
+          deleted++;
+          log.warn("Lösche verwaiste GridFS-Datei {} (markiert seit {})", oid, orphanSince.toInstant());
+          if (!dryRun) {
+            // Markierung muss noch bestehen, sonst wurde die Datei inzwischen wiederverwendet
+            gridFs.delete(query(where("_id").is(oid)).addCriteria(where("metadata.orphanSince").is(orphanSince)));
+          }
+        }
+      }
+      pause();
+    }
+    return new int[] { marked, deleted, repaired };
+  }
+
+  /** Zählt pro GridFS-Datei die Uploads, die auf sie verweisen. */
+  private Map<String, Integer> countReferences(List<Document> files) {
+    List<String> ids = files.stream().map(f -> f.getObjectId("_id").toHexString()).toList();
+    Query q = query(where("storageId").in(ids));
+    q.fields().include("storageId");
+    Map<String, Integer> counts = new HashMap<>();
+    for (UploadDoc u : mongo.find(q, UploadDoc.class)) {
+      counts.merge(u.getStorageId(), 1, Integer::sum);
+    }
+    return counts;
+  }
+
+  /**
+   * Schritt 3: Chunks ohne fs.files-Eintrag und ohne laufende Upload-Session.
+   * Das Alter wird aus der files_id (ObjectId-Zeitstempel) bestimmt.
+   *
+   * @return Anzahl der Dateien, deren Chunks gelöscht wurden
+   */
+  private int reconcileChunks(Instant cutoff) throws InterruptedException {
+    MongoCollection<Document> chunks = mongo.getCollection(GridFsUploadStorage.CHUNKS_COLLECTION);
+    ObjectId maxId = new ObjectId(Date.from(cutoff));
+    int deleted = 0;
+    Cursor cursor = new Cursor("chunks");
+
+    for (int batch = 0; batch < maxBatches; batch++) {
+      // Jede Datei hat einen Chunk n=0 → liefert die files_ids über den Index (files_id, n)
+      List<Document> firstChunks = new ArrayList<>();
+      chunks.find(Filters.and(
+              cursor.filter("files_id"),
+              Filters.lt("files_id", maxId),
+              Filters.eq("n", 0)))
+          .projection(Projections.include("files_id"))
+          .sort(Sorts.ascending("files_id"))
+          .limit(batchSize)
+          .into(firstChunks);
+      ObjectId lastId = firstChunks.isEmpty() ? null : firstChunks.get(firstChunks.size() - 1).getObjectId("files_id");
+      if (!cursor.advance(lastId, firstChunks.size() == batchSize)) break;
+      if (firstChunks.isEmpty()) continue;
+
+      List<ObjectId> ids = firstChunks.stream().map(c -> c.getObjectId("files_id")).toList();
+      Set<ObjectId> known = new HashSet<>();
+      files().find(Filters.in("_id", ids)).projection(Projections.include("_id"))
+          .forEach(d -> known.add(d.getObjectId("_id")));
+      Query sessionQuery = query(where("filesId").in(ids.stream().map(ObjectId::toHexString).toList()));
+      sessionQuery.fields().include("filesId");
+      mongo.find(sessionQuery, UploadSession.class).forEach(s -> known.add(new ObjectId(s.getFilesId())));
+
+      for (ObjectId id : ids) {
+        if (known.contains(id)) continue;
+        deleted++;
+        if (!dryRun) chunks.deleteMany(Filters.eq("files_id", id));
+      }
+      pause();
+    }
+    return deleted;
+  }
+
+  /**
+   * Schritt 4: StudySets, deren uploadId auf keinen Upload mehr zeigt. Werden nur gemeldet,
+   * da die Sets (mit ihren Fragen) dem Nutzer gehören.
+   *
+   * @return Anzahl der betroffenen StudySets
+   */
+  private int reportDanglingStudySets() throws InterruptedException {
+    int dangling = 0;
+    Cursor cursor = new Cursor("studysets");
+
+    for (int batch = 0; batch < maxBatches; batch++) {
+      Query q = query(where("uploadId").ne(null)).with(Sort.by("id")).limit(batchSize);
+      cursor.range("id").ifPresent(q::addCriteria);
+      q.fields().include("id", "uploadId");
+      List<StudySet> page = mongo.find(q, StudySet.class);
+      ObjectId lastId = page.isEmpty() ? null : new ObjectId(page.get(page.size() - 1).getId());
+      if (!cursor.advance(lastId, page.size() == batchSize)) break;
+      if (page.isEmpty()) continue;
+
+      Set<String> uploadIds = new HashSet<>();
+      page.forEach(s -> uploadIds.add(s.getUploadId()));
+      Query uq = query(where("id").in(uploadIds));
+      uq.fields().include("id");
+      Set<String> existing = new HashSet<>();
+      mongo.find(uq, UploadDoc.class).forEach(u -> existing.add(u.getId()));
+
+      for (StudySet s : page) {
+        if (!existing.contains(s.getUploadId())) {
+          dangling++;
+          log.warn("StudySet {} verweist auf fehlenden Upload {}", s.getId(), s.getUploadId());
+        }
+      }
+      pause();
+    }
+    return dangling;
+  }
+
+  /**
+   * Fortsetzbarer Durchlauf eines Prüfschritts über _id.
+   *
+   * Beginnt hinter der gespeicherten lastId, springt am Ende der Collection zum Anfang und
+   * endet, sobald der Startpunkt wieder erreicht ist. Der Stand wird nach jedem Batch
+   * gespeichert; nach einem vollständigen Durchlauf beginnt der nächste Lauf vorne.
+   */
+  private final class Cursor {
+
+    private final String step;
+    private final ObjectId start;
+    private ObjectId last;
+    private boolean wrapped;
+
+    Cursor(String step) {
+      this.step = step;
+      Document state = state().find(Filters.eq("_id", step)).first();
+      this.start = (state != null) ? state.getObjectId("lastId") : null;
+      this.last = start;
+    }
+
+    /** Bereich des nächsten Batches als Filter: (last, start) nach dem Umlauf, sonst (last, ∞). */
+    Bson filter(String field) {
+      List<Bson> parts = new ArrayList<>(2);
+      if (last != null) parts.add(Filters.gt(field, last));
+      if (wrapped) parts.add(Filters.lte(field, start));
+      return parts.isEmpty() ? Filters.empty() : Filters.and(parts);
+    }
+
+    /** Wie {@link #filter}, als Criteria für Spring-Data-Abfragen (leer = ganze Collection). */
+    Optional<Criteria> range(String field) {
+      if (last == null && !wrapped) return Optional.empty();
+      Criteria c = where(field);
+      if (last != null) c = c.gt(last);
+      if (wrapped) c = c.lte(start);
+      return Optional.of(c);
+    }
+
+    /**
+     * Übernimmt das Ergebnis eines Batches.
+     *
+     * @param lastId letzte _id des Batches (null = leer)
+     * @param full   ob der Batch voll war (sonst ist das Ende des Bereichs erreicht)
+     * @return ob weitere Batches folgen
+     */
+    boolean advance(ObjectId lastId, boolean full) {
+      if (lastId != null) last = lastId;
+      if (full) {
+        save(last);
+        return true;
+      }
+      if (!wrapped && start != null) {
+        // Ende der Collection → vorne weiter bis einschließlich Startpunkt
+        wrapped = true;
+        last = null;
+        save(null);
+        return true;
+      }
+      // Durchlauf vollständig → nächster Lauf beginnt vorne
+      save(null);
+      return false;
+    }
+
+    private void save(ObjectId lastId) {
+      state().updateOne(Filters.eq("_id", step),
+          Updates.combine(Updates.set("lastId", lastId), Updates.set("updatedAt", new Date())),
+          new UpdateOptions().upsert(true));
+    }
+  }
+
+  private MongoCollection<Document> state() {
+    return mongo.getCollection(STATE_COLLECTION);
+  }
+
+  private MongoCollection<Document> files() {
+    return mongo.getCollection(GridFsUploadStorage.FILES_COLLECTION);
+  }
+
+  private void pause() throws InterruptedException {
+    if (pauseMs > 0) Thread.sleep(pauseMs);
+  }
+
+  private static ObjectId toObjectIdOrNull(String id) {
+    if (id == null) return null;
+    try {
+      return GridFsUploadStorage.toObjectIdOrNotFound(id);
+    } catch (FileNotFoundException e) {
+      return null;
+    }
+  }
+}
@@ -2,42 +2,87 @@ package com.example.momolearn.service;
 
 import com.example.momolearn.model.UploadDoc;
 import com.example.momolearn.repository.UploadRepository;
-import com.mongodb.client.gridfs.model.GridFSFile;
+import com.example.momolearn.repository.UploadTextIndexRepository;
+import org.apache.pdfbox.io.RandomAccessRead;
 import org.bson.types.ObjectId;
-import org.springframework.data.mongodb.gridfs.GridFsResource;
-import org.springframework.data.mongodb.gridfs.GridFsTemplate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
 
-import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
-import static org.springframework.data.mongodb.core.query.Criteria.where;
-import static org.springframework.data.mongodb.core.query.Query.query;
-
 /**
- * Service zum Speichern, Abrufen und Löschen von Uploads in MongoDB GridFS.
+ * Service zum Speichern, Abrufen und Löschen von Uploads.
  *
  * Funktioniert zusammen mit:
  * - UploadRepository: Metadaten über die hochgeladenen Dateien
- * - GridFsTemplate: Physische Speicherung im GridFS
+ * - {@link UploadStorage}: Physische Speicherung der Bytes (GridFS oder Dateisystem)
+ *
+ * Neue Uploads gehen an das Backend aus "uploads.storage"; jedes UploadDoc merkt sich
+ * sein Backend (UploadDoc.storage, fehlt bei Alt-Uploads = GridFS), sodass ein Wechsel
+ * der Konfiguration bestehende Uploads nicht betrifft.
+ *
+ * Beim Speichern werden SHA-256 und Größe inline berechnet (siehe {@link UploadInputStream})
+ * und im UploadDoc abgelegt.
+ *
+ * Inhalts-Deduplizierung: identische Dateien (gleicher SHA-256) werden nur einmal
+ * gespeichert. Mehrere UploadDocs zeigen dann auf dieselbe storageId; das Backend
+ * zählt die Verweise und löscht den Inhalt erst mit der letzten Referenz.
  */
 @Service
 public class UploadService {
 
-  private final GridFsTemplate gridFs;
+  private static final Logger log = LoggerFactory.getLogger(UploadService.class);
+
   private final UploadRepository uploads;
+  private final UploadTextIndexRepository indexes;
 
-  public UploadService(GridFsTemplate gridFs, UploadRepository uploads) {
-    this.gridFs = gridFs;
+  // Alle Backends nach Name, das für neue Uploads und das GridFS-Backend (fortsetzbare Uploads)
+  private final Map<String, UploadStorage> storages = new HashMap<>();
+  private final UploadStorage primary;
+  private final GridFsUploadStorage gridFs;
+
+  // Maximale Dateigröße, gilt auch für den Streaming-Upload (ohne Multipart-Limits)
+  private final long maxBytes;
+
+  /**
+   * Konfiguration (application.properties):
+   * - uploads.storage: Backend für neue Uploads ("gridfs" oder "filesystem")
+   * - spring.servlet.multipart.max-file-size: maximale Dateigröße
+   */
+  public UploadService(UploadRepository uploads, UploadTextIndexRepository indexes,
+                       List<UploadStorage> backends, GridFsUploadStorage gridFs,
+                       @Value("${uploads.storage:gridfs}") String storage,
+                       @Value("${spring.servlet.multipart.max-file-size:50MB}") DataSize maxFileSize) {
     this.uploads = uploads;
+    this.indexes = indexes;
+    this.gridFs = gridFs;
+    backends.forEach(b -> storages.put(b.name(), b));
+    this.primary = storages.get(storage);
+    if (primary == null) {
+      throw new IllegalStateException("Unbekanntes Upload-Backend: " + storage + ", erlaubt: " + storages.keySet());
+    }
+    this.maxBytes = maxFileSize.toBytes();
   }
 
   /**
-   * Speichert eine hochgeladene Datei im GridFS und legt ein Metadaten-Dokument an.
+   * Speichert eine hochgeladene Datei und legt ein Metadaten-Dokument an.
+   *
+   * Die Datei liegt bei Multipart-Uploads bereits lokal vor (Speicher oder Temp-Datei),
+   * daher wird zuerst der Hash berechnet: existiert der Inhalt schon, wird
+   * nur der Referenzzähler erhöht und nichts erneut geschrieben.
    *
    * @param userId ID des Benutzers, dem die Datei gehört
    * @param file   Hochgeladene Datei
@@ -47,25 +92,111 @@ public class UploadService {
     final String filename = Optional.ofNullable(file.getOriginalFilename()).orElse("upload.bin");
     final String contentType = Optional.ofNullable(file.getContentType()).orElse("application/octet-stream");
 
-    // Datei in GridFS speichern
-    ObjectId oid;
-    try (InputStream in = file.getInputStream()) {
-      oid = gridFs.store(in, filename, contentType);
+    try {
+      // 1. Hash und Größe berechnen
+      UploadInputStream probe = new UploadInputStream(file.getInputStream(), maxBytes, false);
+      try (probe) {
+        probe.transferTo(OutputStream.nullOutputStream());
+      }
+      String sha256 = probe.getSha256Hex();
+
+      // 2. Vorhandenen Inhalt wiederverwenden oder neu speichern
+      String storageId = primary.retain(sha256);
+      if (storageId == null) {
+        try (UploadInputStream in = new UploadInputStream(file.getInputStream(), maxBytes, false)) {
+          storageId = primary.store(in, filename, contentType);
+        }
+      }
+      return saveDoc(userId, filename, contentType, probe.getSize(), sha256, primary.name(), storageId);
+    } catch (UploadInputStream.RejectedException rejected) {
+      throw new ResponseStatusException(rejected.getStatus(), rejected.getMessage());
     }
+  }
+
+  /**
+   * Speichert den Request-Body direkt im Backend, ohne Multipart-Verarbeitung und ohne Temp-Datei
+   * des Servlet-Containers.
+   *
+   * Die Bytes fließen blockweise vom Socket ins Backend; dabei werden SHA-256 und Größe
+   * berechnet und die PDF-Signatur am Anfang geprüft.
+   *
+   * @param userId         ID des Benutzers, dem die Datei gehört
+   * @param body           Request-Body (rohe PDF-Bytes)
+   * @param declaredLength Content-Length des Requests oder -1, falls unbekannt (chunked)
+   * @param filename       Dateiname (optional)
+   * @return gespeichertes UploadDoc mit Metadaten
+   * @throws ResponseStatusException 400 (kein PDF) bzw. 413 (zu groß)
+   */
+  public UploadDoc storeStream(String userId, InputStream body, long declaredLength, String filename)
+      throws IOException {
+    if (declaredLength > maxBytes) {
+      throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE, "Datei ist größer als " + maxBytes + " Bytes.");
+    }
+    String name = (filename == null || filename.isBlank()) ? "upload.pdf" : filename;
+    String contentType = "application/pdf";
+    UploadInputStream in = new UploadInputStream(body, maxBytes, true);
+
+    String storageId;
+    try {
+      storageId = primary.store(in, name, contentType);
+    } catch (UploadInputStream.RejectedException rejected) {
+      throw new ResponseStatusException(rejected.getStatus(), rejected.getMessage());
+    }
+    return saveDoc(userId, name, contentType, in.getSize(), in.getSha256Hex(), primary.name(), storageId);
+  }
+
+  /**
+   * Übernimmt bereits in "fs.chunks" geschriebene Datenblöcke als fertige GridFS-Datei
+   * (Abschluss eines fortsetzbaren Uploads, immer im GridFS) und legt das UploadDoc an.
+   *
+   * @param userId    ID des Benutzers, dem die Datei gehört
+   * @param filesId   reservierte GridFS-ID, unter der die Chunks liegen
+   * @param filename  Dateiname
+   * @param size      Gesamtgröße in Bytes
+   * @param chunkSize verwendete Chunkgröße
+   * @param sha256    Inhalts-Hash (Hex)
+   * @return gespeichertes UploadDoc mit Metadaten
+   */
+  public UploadDoc adoptChunks(String userId, ObjectId filesId, String filename, long size,
+                               int chunkSize, String sha256) {
+    String contentType = "application/pdf";
+    String storageId = gridFs.adoptChunks(filesId, filename, contentType, size, chunkSize, sha256);
+    return saveDoc(userId, filename, contentType, size, sha256, gridFs.name(), storageId);
+  }
 
-    // Metadokument speichern
+  /** Legt das Metadokument für einen gespeicherten Inhalt an. */
+  private UploadDoc saveDoc(String userId, String filename, String contentType, long size,
+                            String sha256, String storage, String storageId) {
     UploadDoc doc = UploadDoc.builder()
         .userId(userId)
         .filename(filename)
         .contentType(contentType)
-        .size(file.getSize())
-        .storageId(oid.toHexString()) // Referenz zur GridFS-Datei
+        .size(size)
+        .sha256(sha256)
+        .storage(storage)
+        .storageId(storageId) // Referenz auf den Inhalt im Backend
         .uploadedAt(Instant.now())
         .build();
 
     return uploads.save(doc);
   }
 
+  /**
+   * Liefert die Metadaten eines Uploads, der dem Nutzer gehören muss.
+   *
+   * @param userId   ID des Nutzers
+   * @param uploadId ID des Uploads
+   * @return UploadDoc
+   * @throws ResponseStatusException 404 (unbekannt) bzw. 403 (fremder Upload)
+   */
+  public UploadDoc getForUser(String userId, String uploadId) {
+    UploadDoc up = uploads.findById(uploadId)
+        .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Upload not found"));
+    if (!userId.equals(up.getUserId()))
+      throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Upload does not belong to user");
+    return up;
+  }
+
   /**
    * Öffnet einen InputStream für den Inhalt einer gespeicherten Datei.
    *
@@ -73,47 +204,82 @@ public class UploadService {
    * @return InputStream zur Datei
    */
   public InputStream openStream(UploadDoc u) throws IOException {
-    ObjectId oid = toObjectIdOrNotFound(u.getStorageId());
+    return openStream(u, 0);
+  }
+
+  /**
+   * Öffnet einen InputStream ab einer Byte-Position (z. B. für HTTP-Range-Anfragen).
+   * Die Bytes vor {@code offset} werden vom Backend nicht gelesen.
+   *
+   * @param u      Metadatenobjekt des Uploads
+   * @param offset Startposition in Bytes
+   * @return InputStream, der bei {@code offset} beginnt
+   */
+  public InputStream openStream(UploadDoc u, long offset) throws IOException {
+    return storageFor(u).open(u.getStorageId(), offset);
+  }
 
-    // Datei in GridFS finden
-    GridFSFile file = Optional.ofNullable(
-        gridFs.findOne(query(where("_id").is(oid)))
-    ).orElseThrow(() -> new FileNotFoundException("GridFS id not found: " + u.getStorageId()));
+  /**
+   * Öffnet den Inhalt für wahlfreien Zugriff, z. B. zum Parsen mit PDFBox
+   * ohne vorherige Kopie der Datei.
+   *
+   * @param u Metadatenobjekt des Uploads
+   * @return Leser; muss geschlossen werden
+   */
+  public RandomAccessRead openRandomAccess(UploadDoc u) throws IOException {
+    return storageFor(u).openRandomAccess(u.getStorageId());
+  }
 
-    GridFsResource res = gridFs.getResource(file);
-    return res.getInputStream();
+  /**
+   * Schreibt einen Ausschnitt des Inhalts in einen Ausgabestrom (Downloads).
+   *
+   * @param u      Metadatenobjekt des Uploads
+   * @param offset Startposition in Bytes
+   * @param length Anzahl Bytes
+   * @param out    Ziel
+   */
+  public void copyTo(UploadDoc u, long offset, long length, OutputStream out) throws IOException {
+    storageFor(u).copyTo(u.getStorageId(), offset, length, out);
   }
 
   /**
-   * Löscht sowohl die Datei im GridFS als auch das zugehörige Metadokument.
+   * Löscht das Metadokument, einen evtl. vorhandenen Struktur-Index und gibt die Referenz
+   * auf den Inhalt frei (der Inhalt selbst wird erst mit der letzten Referenz gelöscht).
    *
    * @param uploadId ID des Upload-Metadokuments
    */
   public void delete(String uploadId) {
     uploads.findById(uploadId).ifPresent(u -> {
       try {
-        // Datei im GridFS löschen
-        ObjectId oid = toObjectIdOrNotFound(u.getStorageId());
-        gridFs.delete(query(where("_id").is(oid)));
-      } catch (IOException ignore) {
-        // Wenn GridFS-Datei nicht existiert, wird nur das Metadokument gelöscht.
+        storageFor(u).release(u.getStorageId());
+      } catch (IOException | IllegalStateException e) {
+        // Inhalt nicht löschbar: nur das Metadokument löschen, Rest räumt der UploadReconciler auf
+        log.warn("Upload {}: Inhalt nicht löschbar ({})", uploadId, e.getMessage());
       }
+      indexes.deleteById(uploadId);
       uploads.deleteById(uploadId);
     });
   }
 
   /**
-   * Wandelt einen String in eine ObjectId um.
+   * Löscht alle Uploads eines Benutzers (z. B. beim Löschen des Benutzerkontos).
    *
-   * @param id Hex-String der ObjectId
-   * @return ObjectId
-   * @throws FileNotFoundException falls die ID ungültig ist
+   * @param userId ID des Benutzers
+   * @return Anzahl der gelöschten Uploads
    */
-  private ObjectId toObjectIdOrNotFound(String id) throws FileNotFoundException {
-    try {
-      return new ObjectId(id);
-    } catch (IllegalArgumentException e) {
-      throw new FileNotFoundException("Invalid GridFS id: " + id);
-    }
+  public int deleteAllForUser(String userId) {
+    List<UploadDoc> own = uploads.findByUserId(userId);
+    own.forEach(u -> delete(u.getId()));
+    return own.size();
+  }
+
+  /**
+   * Backend eines Uploads; Uploads ohne Angabe stammen aus der Zeit vor den Backends (GridFS).
+   */
+  private UploadStorage storageFor(UploadDoc u) {
+    String name = (u.getStorage() != null) ? u.getStorage() : GridFsUploadStorage.NAME;
+    UploadStorage storage = storages.get(name);
+    if (storage == null) throw new IllegalStateException("Unbekanntes Upload-Backend: " + name);
+    return storage;
   }
 }
@@ -0,0 +1,81 @@
+package com.example.momolearn.service;
+
+import org.apache.pdfbox.io.RandomAccessRead;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Speicher-Backend für den Inhalt hochgeladener Dateien.
+ *
+ * Der UploadService verwaltet die Metadaten (UploadDoc) und delegiert die Bytes an
+ * ein Backend. Welches Backend einen Upload hält, steht in UploadDoc.storage;
+ * neue Uploads gehen an das über "uploads.storage" konfigurierte Backend.
+ *
+ * Alle Backends speichern inhaltsadressiert mit Referenzzähler: gleicher Inhalt
+ * (SHA-256) wird nur einmal abgelegt, {@link #release} löscht erst mit der letzten Referenz.
+ *
+ * Implementierungen:
+ * - {@link GridFsUploadStorage} ("gridfs", Standard)
+ * - {@link FileSystemUploadStorage} ("filesystem")
+ */
+public interface UploadStorage {
+
+  /** Name des Backends, wie er in UploadDoc.storage und uploads.storage verwendet wird. */
+  String name();
+
+  /**
+   * Speichert den Inhalt des Streams (bzw. verweist auf vorhandenen gleichen Inhalt).
+   * Hash und Größe stehen nach dem Aufruf im übergebenen {@link UploadInputStream}.
+   *
+   * @return storageId des gespeicherten Inhalts
+   * @throws UploadInputStream.RejectedException wenn der Stream den Upload ablehnt (kein PDF, zu groß)
+   */
+  String store(UploadInputStream in, String filename, String contentType) throws IOException;
+
+  /**
+   * Erhöht die Referenz auf vorhandenen Inhalt mit diesem Hash.
+   *
+   * @return storageId des vorhandenen Inhalts oder null, falls er noch nicht gespeichert ist
+   */
+  String retain(String sha256);
+
+  /**
+   * Öffnet den Inhalt ab einer Byte-Position.
+   *
+   * @throws java.io.FileNotFoundException wenn der Inhalt nicht (mehr) existiert
+   */
+  InputStream open(String storageId, long offset) throws IOException;
+
+  /**
+   * Öffnet den Inhalt für wahlfreien Zugriff (PDF-Parsing), ohne ihn vorher zu kopieren.
+   *
+   * @throws java.io.FileNotFoundException wenn der Inhalt nicht (mehr) existiert
+   */
+  RandomAccessRead openRandomAccess(String storageId) throws IOException;
+
+  /**
+   * Schreibt einen Ausschnitt des Inhalts in den Ausgabestrom (z. B. für HTTP-Downloads).
+   * Backends können hier effizientere Wege als {@link #open} nutzen.
+   */
+  default void copyTo(String storageId, long offset, long length, OutputStream out) throws IOException {
+    try (InputStream in = open(storageId, offset)) {
+      byte[] buf = new byte[64 * 1024];
+      long remaining = length;
+      while (remaining > 0) {
+        int r = in.read(buf, 0, (int) Math.min(buf.length, remaining));
+        if (r == -1) break;
+        out.write(buf, 0, r);
+        remaining -= r;
+      }
+    }
+  }
+
+  /**
+   * Gibt eine Referenz frei; mit der letzten Referenz wird der Inhalt gelöscht.
+   *
+   * @throws IOException wenn die storageId ungültig ist oder das Löschen fehlschlägt
+   */
+  void release(String storageId) throws IOException;
+}
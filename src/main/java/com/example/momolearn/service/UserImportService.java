@@ -0,0 +1,336 @@
+package com.example.momolearn.service;
+
+import com.example.momolearn.dto.RegisterRequest;
+import com.example.momolearn.dto.UserImportReport;
+import com.example.momolearn.dto.UserImportResult;
+import com.example.momolearn.model.User;
+import com.example.momolearn.repository.UserRepository;
+import com.example.momolearn.security.PasswordHasher;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.bulk.BulkWriteError;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Massenimport von Benutzern (z. B. ein ganzer Jahrgang) aus CSV oder NDJSON.
+ *
+ * Die Datei wird zeilenweise gelesen und in Batches verarbeitet:
+ * 1. Zeilen prüfen (gleiche Regeln wie bei der Registrierung), E-Mails normalisieren
+ * 2. vorhandene E-Mails mit einer $in-Abfrage pro Batch finden
+ * 3. Passwörter parallel auf dem Hash-Pool hashen
+ * 4. neue Benutzer mit einem ungeordneten Bulk-Insert speichern
+ *
+ * Ein Fehler in einer Zeile bricht den Import nicht ab; das Ergebnis steht pro Zeile im Report.
+ */
+@Service
+public class UserImportService {
+
+  private static final Logger log = LoggerFactory.getLogger(UserImportService.class);
+
+  // MongoDB-Fehlercode bei verletztem Unique-Index (hier: E-Mail)
+  private static final int DUPLICATE_KEY = 11000;
+
+  /** Unterstützte Formate. */
+  public enum Format { CSV, NDJSON }
+
+  // Eine gelesene Zeile; request == null, wenn sie schon beim Lesen fehlerhaft war
+  private record Row(int line, RegisterRequest request, String error) {
+  }
+
+  private final UserRepository users;
+  private final MongoTemplate mongo;
+  private final PasswordHasher passwords;
+  private final Validator validator;
+  private final ObjectMapper json;
+  private final int batchSize;
+  private final int maxRows;
+
+  /**
+   * Konfiguration (application.properties):
+   * - admin.import.batch-size: Zeilen pro Batch (eine $in-Abfrage, ein Bulk-Insert)
+   * - admin.import.max-rows: maximale Anzahl Zeilen pro Import
+   */
+  public UserImportService(UserRepository users,
+                           MongoTemplate mongo,
+                           PasswordHasher passwords,
+                           Validator validator,
+                           ObjectMapper json,
+                           @Value("${admin.import.batch-size:500}") int batchSize,
+                           @Value("${admin.import.max-rows:10000}") int maxRows) {
+    this.users = users;
+    this.mongo = mongo;
+    this.passwords = passwords;
+    this.validator = validator;
+    this.json = json;
+    this.batchSize = Math.max(1, batchSize);
+    this.maxRows = maxRows;
+  }
+
+  /**
+   * Importiert Benutzer aus einem Stream.
+   *
+   * CSV: erste Zeile ist die Kopfzeile mit den Spalten email, name, password (beliebige Reihenfolge).
+   * NDJSON: ein JSON-Objekt pro Zeile mit den Feldern email, name, password.
+   *
+   * @param in     Request-Body
+   * @param format Format der Datei
+   * @return Report mit Ergebnis pro Zeile
+   */
+  public UserImportReport importUsers(InputStream in, Format format) throws IOException {
+    long start = System.nanoTime();
+    List<UserImportResult> results = new ArrayList<>();
+    Set<String> seen = new HashSet<>(); // Duplikate innerhalb der Datei
+
+    BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+    Map<String, Integer> columns = null;
+    List<Row> batch = new ArrayList<>(batchSize);
+    int lineNo = 0;
+    int rows = 0;
+    String line;
+    while ((line = reader.readLine()) != null) {
+      lineNo++;
+      if (line.isBlank()) continue;
+
+      if (format == Format.CSV && columns == null) {
+        columns = parseCsvHeader(line);
+        continue;
+      }
+      if (++rows > maxRows) {
+        throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE, "Mehr als " + maxRows + " Zeilen");
+      }
+
+      batch.add(format == Format.CSV ? parseCsvRow(lineNo, line, columns) : parseJsonRow(lineNo, line));
+      if (batch.size() == batchSize) {
+        processBatch(batch, seen, results);
+        batch.clear();
+      }
+    }
+    if (!batch.isEmpty()) processBatch(batch, seen, results);
+
+    UserImportReport report = UserImportReport.builder()
+        .created(count(results, "CREATED"))
+        .existing(count(results, "EXISTS"))
+        .invalid(count(results, "INVALID"))
+        .failed(count(results, "FAILED"))
+        .results(results)
+        .build();
+    log.info("User import: rows={}, created={}, existing={}, invalid={}, failed={}, ms={}",
+        results.size(), report.getCreated(), report.getExisting(), report.getInvalid(), report.getFailed(),
+        (System.nanoTime() - start) / 1_000_000);
+    return report;
+  }
+
+  /** Prüft, hasht und speichert einen Batch; hängt die Ergebnisse in Zeilenreihenfolge an. */
+  private void processBatch(List<Row> batch, Set<String> seen, List<UserImportResult> results) {
+    UserImportResult[] out = new UserImportResult[batch.size()];
+    List<Integer> candidates = new ArrayList<>();
+
+    // 1) Zeilen prüfen, E-Mails normalisieren, Duplikate in der Datei erkennen
+    for (int i = 0; i < batch.size(); i++) {
+      Row r = batch.get(i);
+      String error = r.error() != null ? r.error() : validate(r.request());
+      String email = (r.request() != null && r.request().getEmail() != null)
+          ? r.request().getEmail().trim().toLowerCase() : null;
+      if (error == null && !seen.add(email)) error = "E-Mail kommt in der Datei mehrfach vor";
+      if (error != null) {
+        out[i] = result(r.line(), email, "INVALID", null, error);
+      } else {
+        r.request().setEmail(email);
+        candidates.add(i);
+      }
+    }
+
+    // 2) Vorhandene E-Mails mit einer Abfrage finden
+    Set<String> emails = candidates.stream().map(i -> batch.get(i).request().getEmail()).collect(Collectors.toSet());
+    Set<String> existing = emails.isEmpty() ? Set.of()
+        : users.findEmailsIn(emails).stream().map(User::getEmail).collect(Collectors.toSet());
+
+    List<Integer> toCreate = new ArrayList<>();
+    for (int i : candidates) {
+      RegisterRequest req = batch.get(i).request();
+      if (existing.contains(req.getEmail())) {
+        out[i] = result(batch.get(i).line(), req.getEmail(), "EXISTS", null, null);
+      } else {
+        toCreate.add(i);
+      }
+    }
+
+    if (!toCreate.isEmpty()) {
+      // 3) Passwörter parallel hashen
+      List<String> hashes = passwords.hashAll(toCreate.stream().map(i -> batch.get(i).request().getPassword()).toList());
+
+      // Zeilen, deren Hash fehlgeschlagen ist, einzeln als FAILED melden
+      List<Integer> hashed = new ArrayList<>(toCreate.size());
+      List<String> hashedValues = new ArrayList<>(toCreate.size());
+      for (int k = 0; k < toCreate.size(); k++) {
+        int i = toCreate.get(k);
+        if (hashes.get(k) == null) {
+          out[i] = result(batch.get(i).line(), batch.get(i).request().getEmail(), "FAILED", null,
+              "Passwort konnte nicht gehasht werden");
+        } else {
+          hashed.add(i);
+          hashedValues.add(hashes.get(k));
+        }
+      }
+      toCreate = hashed;
+
+      // 4) Ungeordneter Bulk-Insert; IDs vorab vergeben, damit sie im Report stehen
+      Instant now = Instant.now();
+      List<User> docs = new ArrayList<>(toCreate.size());
+      for (int k = 0; k < toCreate.size(); k++) {
+        RegisterRequest req = batch.get(toCreate.get(k)).request();
+        docs.add(User.builder()
+            .id(new ObjectId().toHexString())
+            .name(req.getName().trim())
+            .email(req.getEmail())
+            .passwordHash(hashedValues.get(k))
+            .createdAt(now)
+            .xp(0).level(1).streak(0)
+            .build());
+      }
+
+      Map<Integer, BulkWriteError> failures = new HashMap<>();
+      if (!docs.isEmpty()) {
+        try {
+          mongo.bulkOps(BulkOperations.BulkMode.UNORDERED, User.class).insert(docs).execute();
+        } catch (BulkOperationException e) {
+          // Einzelne Inserts fehlgeschlagen (z. B. E-Mail parallel registriert), der Rest ist gespeichert
+          for (BulkWriteError err : e.getErrors()) failures.put(err.getIndex(), err);
+        }
+      }
+
+      for (int k = 0; k < toCreate.size(); k++) {
+        int i = toCreate.get(k);
+        User u = docs.get(k);
+        BulkWriteError err = failures.get(k);
+        if (err == null) {
+          out[i] = result(batch.get(i).line(), u.getEmail(), "CREATED", u.getId(), null);
+        } else if (err.getCode() == DUPLICATE_KEY) {
+          out[i] = result(batch.get(i).line(), u.getEmail(), "EXISTS", null, null);
+        } else {
+          out[i] = result(batch.get(i).line(), u.getEmail(), "FAILED", null, err.getMessage());
+        }
+      }
+    }
+
+    results.addAll(List.of(out));
+  }
+
+  /** Gleiche Regeln wie POST /auth/register (Bean Validation auf RegisterRequest, BCrypt-Längengrenze). */
+  private String validate(RegisterRequest req) {
+    Set<ConstraintViolation<RegisterRequest>> violations = validator.validate(req);
+    if (violations.isEmpty()) {
+      return PasswordHasher.isTooLong(req.getPassword())
+          ? "password: darf höchstens " + PasswordHasher.MAX_PASSWORD_BYTES + " Bytes (UTF-8) lang sein"
+          : null;
+    }
+    return violations.stream()
+        .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+        .sorted()
+        .collect(Collectors.joining(", "));
+  }
+
+  private Row parseJsonRow(int line, String text) {
+    try {
+      JsonNode node = json.readTree(text);
+      if (node == null || !node.isObject()) return new Row(line, null, "Zeile ist kein JSON-Objekt");
+      return new Row(line, request(node.path("email").asText(null), node.path("name").asText(null),
+          node.path("password").asText(null)), null);
+    } catch (JsonProcessingException e) {
+      return new Row(line, null, "Ungültiges JSON: " + e.getOriginalMessage());
+    }
+  }
+
+  private static Map<String, Integer> parseCsvHeader(String line) {
+    List<String> names = splitCsv(line);
+    Map<String, Integer> columns = new HashMap<>();
+    for (int i = 0; i < names.size(); i++) columns.put(names.get(i).trim().toLowerCase(), i);
+    for (String required : List.of("email", "name", "password")) {
+      if (!columns.containsKey(required)) {
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "CSV-Kopfzeile ohne Spalte '" + required + "'");
+      }
+    }
+    return columns;
+  }
+
+  private static Row parseCsvRow(int line, String text, Map<String, Integer> columns) {
+    List<String> cells = splitCsv(text);
+    return new Row(line, request(cell(cells, columns.get("email")), cell(cells, columns.get("name")),
+        cell(cells, columns.get("password"))), null);
+  }
+
+  private static String cell(List<String> cells, int index) {
+    return index < cells.size() ? cells.get(index) : null;
+  }
+
+  /** Zerlegt eine CSV-Zeile (Komma oder Semikolon, Felder optional in "..." mit "" als Escape). */
+  private static List<String> splitCsv(String line) {
+    List<String> cells = new ArrayList<>();
+    StringBuilder cur = new StringBuilder();
+    boolean quoted = false;
+    for (int i = 0; i < line.length(); i++) {
+      char c = line.charAt(i);
+      if (quoted) {
+        if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+          cur.append('"');
+          i++;
+        } else if (c == '"') {
+          quoted = false;
+        } else {
+          cur.append(c);
+        }
+      } else if (c == '"') {
+        quoted = true;
+      } else if (c == ',' || c == ';') {
+        cells.add(cur.toString());
+        cur.setLength(0);
+      } else {
+        cur.append(c);
+      }
+    }
+    cells.add(cur.toString());
+    return cells;
+  }
+
+  private static RegisterRequest request(String email, String name, String password) {
+    RegisterRequest req = new RegisterRequest();
+    req.setEmail(email);
+    req.setName(name);
+    req.setPassword(password);
+    return req;
+  }
+
+  private static UserImportResult result(int line, String email, String status, String userId, String error) {
+    return UserImportResult.builder().line(line).email(email).status(status).userId(userId).error(error).build();
+  }
+
+  private static int count(List<UserImportResult> results, String status) {
+    return (int) results.stream().filter(r -> status.equals(r.getStatus())).count();
+  }
+}
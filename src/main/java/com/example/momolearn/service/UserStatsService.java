@@ -0,0 +1,229 @@
+package com.example.momolearn.service;
+
+import com.example.momolearn.model.AnswerAttempt;
+import com.example.momolearn.model.Question;
+import com.example.momolearn.model.StudySet;
+import com.example.momolearn.model.UserStats;
+import com.mongodb.client.model.Projections;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Pflegt die Zähler in "user_stats" (siehe {@link UserStats}).
+ *
+ * - {@link #record}: ein $inc-Upsert pro Antwortversuch
+ * - {@link #rebuild}: baut alle Zähler aus answer_attempts neu auf (Erstbefüllung, Reparatur);
+ *   per Cron (stats.rebuild.cron, Standard aus) oder über POST /admin/stats/rebuild
+ *
+ * Der Neuaufbau ersetzt die Dokumente. Antworten, die währenddessen eingehen, können
+ * dabei verloren gehen oder doppelt zählen – er sollte daher in ruhigen Zeiten laufen.
+ */
+@Service
+public class UserStatsService {
+
+  private static final Logger log = LoggerFactory.getLogger(UserStatsService.class);
+
+  private final MongoTemplate mongo;
+  private final int batchSize;
+
+  /**
+   * Konfiguration (application.properties):
+   * - stats.rebuild.batch-size: Dokumente pro Bulk-Schreibvorgang beim Neuaufbau
+   */
+  public UserStatsService(MongoTemplate mongo,
+                          @Value("${stats.rebuild.batch-size:500}") int batchSize) {
+    this.mongo = mongo;
+    this.batchSize = Math.max(1, batchSize);
+  }
+
+  /** Ergebnis eines Neuaufbaus (wird geloggt und vom Admin-Endpunkt zurückgegeben). */
+  public record RebuildReport(long questionsBackfilled, long users, long staleRemoved, long millis) {
+  }
+
+  /** Ein gezählter Versuch: Set und Kurs der Frage (ggf. null) und ob er richtig war. */
+  public record Answer(String studySetId, String courseId, boolean correct) {
+  }
+
+  /**
+   * Zählt einen Antwortversuch (legt das Dokument bei Bedarf an).
+   *
+   * @param userId     ID des Nutzers
+   * @param studySetId Set der Frage
+   * @param courseId   Kurs der Frage (bei älteren Fragen ggf. null → nur Gesamt- und Set-Zähler)
+   * @param correct    ob die Antwort richtig war
+   * @param now        Zeitpunkt des Versuchs
+   */
+  public void record(String userId, String studySetId, String courseId, boolean correct, Instant now) {
+    record(userId, List.of(new Answer(studySetId, courseId, correct)), now);
+  }
+
+  /**
+   * Zählt mehrere Antwortversuche mit einem einzigen $inc-Upsert.
+   *
+   * @param userId  ID des Nutzers
+   * @param answers gezählte Versuche
+   * @param now     Zeitpunkt der Änderung
+   */
+  public void record(String userId, List<Answer> answers, Instant now) {
+    if (answers.isEmpty()) return;
+    // Pro Feld vorab summieren: Update.inc mit demselben Feld überschreibt statt zu addieren
+    Map<String, Long> inc = new HashMap<>();
+    for (Answer a : answers) {
+      int c = a.correct() ? 1 : 0;
+      count(inc, "", c);
+      if (a.studySetId() != null) count(inc, "sets." + a.studySetId() + ".", c);
+      if (a.courseId() != null) count(inc, "courses." + a.courseId() + ".", c);
+    }
+    Update u = new Update().set("updatedAt", now);
+    inc.forEach(u::inc);
+    mongo.upsert(query(where("_id").is(userId)), u, UserStats.class);
+  }
+
+  private static void count(Map<String, Long> inc, String prefix, int correct) {
+    inc.merge(prefix + "total", 1L, Long::sum);
+    inc.merge(prefix + "correct", (long) correct, Long::sum);
+  }
+
+  /** Geplanter Neuaufbau; Zeitplan über stats.rebuild.cron ("-" = aus). */
+  @Scheduled(cron = "${stats.rebuild.cron:-}")
+  public void scheduled() {
+    try {
+      rebuild();
+    } catch (RuntimeException e) {
+      log.error("Neuaufbau der Nutzerstatistiken fehlgeschlagen", e);
+    }
+  }
+
+  /**
+   * Baut alle Zähler aus answer_attempts neu auf:
+   * 1. fehlende Question.courseId aus dem StudySet nachtragen
+   * 2. Versuche pro (Nutzer, Frage) zählen, Set und Kurs der Frage dazuholen und pro
+   *    (Nutzer, Set, Kurs) summieren – alles in einer Aggregation auf dem Server
+   * 3. pro Nutzer ein Dokument ersetzen; Dokumente ohne Versuche entfernen
+   *
+   * @return Zusammenfassung des Laufs
+   */
+  public RebuildReport rebuild() {
+    long start = System.currentTimeMillis();
+    Instant startedAt = Instant.now();
+    long backfilled = backfillCourseIds();
+
+    List<Document> pipeline = List.of(
+        new Document("$group", new Document("_id", new Document("u", "$userId").append("q", "$questionId"))
+            .append("total", new Document("$sum", 1))
+            .append("correct", new Document("$sum", new Document("$cond", List.of("$correct", 1, 0))))),
+        new Document("$lookup", new Document("from", mongo.getCollectionName(Question.class))
+            .append("let", new Document("qid", new Document("$convert", new Document("input", "$_id.q")
+                .append("to", "objectId").append("onError", null).append("onNull", null))))
+            .append("pipeline", List.of(
+                new Document("$match", new Document("$expr", new Document("$eq", Arrays.asList("$_id", "$$qid")))),
+                new Document("$project", new Document("studySetId", 1).append("courseId", 1))))
+            .append("as", "q")),
+        new Document("$unwind", new Document("path", "$q").append("preserveNullAndEmptyArrays", true)),
+        new Document("$group", new Document("_id", new Document("u", "$_id.u")
+                .append("s", "$q.studySetId").append("c", "$q.courseId"))
+            .append("total", new Document("$sum", "$total"))
+            .append("correct", new Document("$sum", "$correct"))),
+        new Document("$sort", new Document("_id.u", 1)));
+
+    BulkOperations bulk = mongo.bulkOps(BulkMode.UNORDERED, UserStats.class);
+    int pending = 0;
+    long users = 0;
+    UserStats current = null;
+
+    for (Document row : mongo.getCollection(mongo.getCollectionName(AnswerAttempt.class))
+        .aggregate(pipeline).allowDiskUse(true)) {
+      Document id = row.get("_id", Document.class);
+      String userId = id.getString("u");
+      if (userId == null) continue;
+      if (current == null || !current.getId().equals(userId)) {
+        if (current != null) {
+          replace(bulk, current);
+          users++;
+          if (++pending >= batchSize) {
+            bulk.execute();
+            bulk = mongo.bulkOps(BulkMode.UNORDERED, UserStats.class);
+            pending = 0;
+          }
+        }
+        current = UserStats.builder().id(userId).courses(new HashMap<>()).sets(new HashMap<>())
+            .updatedAt(startedAt).build();
+      }
+      long total = ((Number) row.get("total")).longValue();
+      long correct = ((Number) row.get("correct")).longValue();
+      current.setTotal(current.getTotal() + total);
+      current.setCorrect(current.getCorrect() + correct);
+      add(current.getSets(), id.getString("s"), total, correct);
+      add(current.getCourses(), id.getString("c"), total, correct);
+    }
+    if (current != null) {
+      replace(bulk, current);
+      users++;
+      pending++;
+    }
+    if (pending > 0) bulk.execute();
+
+    // Nutzer, deren Versuche es nicht mehr gibt (nicht im Lauf geschrieben und seitdem nicht geantwortet)
+    long stale = mongo.remove(query(where("updatedAt").lt(startedAt)), UserStats.class).getDeletedCount();
+
+    RebuildReport r = new RebuildReport(backfilled, users, stale, System.currentTimeMillis() - start);
+    log.info("Nutzerstatistiken neu aufgebaut: {}", r);
+    return r;
+  }
+
+  /**
+   * Trägt bei Fragen ohne courseId den Kurs ihres StudySets nach (Fragen von vor der
+   * Denormalisierung). Ein updateMany pro Set, gebündelt in Bulk-Schreibvorgängen.
+   *
+   * @return Anzahl geänderter Fragen
+   */
+  private long backfillCourseIds() {
+    long modified = 0;
+    BulkOperations bulk = mongo.bulkOps(BulkMode.UNORDERED, Question.class);
+    int pending = 0;
+    for (Document s : mongo.getCollection(mongo.getCollectionName(StudySet.class))
+        .find().projection(Projections.include("courseId"))) {
+      String courseId = s.getString("courseId");
+      if (courseId == null) continue;
+      bulk.updateMulti(
+          query(where("studySetId").is(s.get("_id").toString()).and("courseId").exists(false)),
+          new Update().set("courseId", courseId));
+      if (++pending >= batchSize) {
+        modified += bulk.execute().getModifiedCount();
+        bulk = mongo.bulkOps(BulkMode.UNORDERED, Question.class);
+        pending = 0;
+      }
+    }
+    if (pending > 0) modified += bulk.execute().getModifiedCount();
+    return modified;
+  }
+
+  private void replace(BulkOperations bulk, UserStats stats) {
+    bulk.replaceOne(query(where("_id").is(stats.getId())), stats, FindAndReplaceOptions.options().upsert());
+  }
+
+  private static void add(Map<String, UserStats.Counter> counters, String key, long total, long correct) {
+    if (key == null) return;
+    UserStats.Counter c = counters.computeIfAbsent(key, k -> new UserStats.Counter());
+    c.setTotal(c.getTotal() + total);
+    c.setCorrect(c.getCorrect() + correct);
+  }
+}
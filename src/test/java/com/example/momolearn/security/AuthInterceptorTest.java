@@ -0,0 +1,111 @@
+package com.example.momolearn.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.time.Instant;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class AuthInterceptorTest {
+
+  private static final AuthPrincipal ALICE = new AuthPrincipal("alice", true, Instant.now().plusSeconds(3600));
+
+  private TokenService tokens;
+  private AuthInterceptor interceptor;
+
+  @BeforeEach
+  void setUp() {
+    tokens = mock(TokenService.class);
+    when(tokens.resolve("good")).thenReturn(ALICE);
+    interceptor = new AuthInterceptor(tokens);
+  }
+
+  @Test
+  void ownResourceIsAllowedAndPrincipalIsStored() throws Exception {
+    MockHttpServletRequest req = request("GET", "Bearer good", "alice");
+    MockHttpServletResponse res = new MockHttpServletResponse();
+
+    assertTrue(interceptor.preHandle(req, res, null));
+    assertSame(ALICE, req.getAttribute(AuthPrincipal.ATTRIBUTE));
+  }
+
+  @Test
+  void foreignResourceIsForbidden() throws Exception {
+    MockHttpServletRequest req = request("GET", "Bearer good", "bob");
+    MockHttpServletResponse res = new MockHttpServletResponse();
+
+    assertFalse(interceptor.preHandle(req, res, null));
+    assertEquals(403, res.getStatus());
+  }
+
+  @Test
+  void routeWithoutUserIdOnlyNeedsValidToken() throws Exception {
+    MockHttpServletRequest req = request("GET", "Bearer good", null);
+    MockHttpServletResponse res = new MockHttpServletResponse();
+
+    assertTrue(interceptor.preHandle(req, res, null));
+  }
+
+  @Test
+  void missingTokenIsUnauthorized() throws Exception {
+    MockHttpServletRequest req = request("GET", null, "alice");
+    MockHttpServletResponse res = new MockHttpServletResponse();
+
+    assertFalse(interceptor.preHandle(req, res, null));
+    assertEquals(401, res.getStatus());
+    verifyNoInteractions(tokens);
+  }
+
+  @Test
+  void unknownTokenIsUnauthorized() throws Exception {
+    MockHttpServletRequest req = request("GET", "Bearer bad", "alice");
+    MockHttpServletResponse res = new MockHttpServletResponse();
+
+    assertFalse(interceptor.preHandle(req, res, null));
+    assertEquals(401, res.getStatus());
+  }
+
+  @Test
+  void tokenIsResolvedOnlyOncePerRequest() throws Exception {
+    MockHttpServletRequest req = request("GET", "Bearer good", "alice");
+
+    assertTrue(interceptor.preHandle(req, new MockHttpServletResponse(), null));
+    // erneuter Durchlauf (z. B. asynchroner Dispatch) nutzt den abgelegten Principal
+    assertTrue(interceptor.preHandle(req, new MockHttpServletResponse(), null));
+    verify(tokens, times(1)).resolve("good");
+  }
+
+  @Test
+  void storedPrincipalStillGetsOwnershipCheck() throws Exception {
+    MockHttpServletRequest req = request("GET", null, "bob");
+    req.setAttribute(AuthPrincipal.ATTRIBUTE, ALICE);
+    MockHttpServletResponse res = new MockHttpServletResponse();
+
+    assertFalse(interceptor.preHandle(req, res, null));
+    assertEquals(403, res.getStatus());
+  }
+
+  @Test
+  void preflightIsNotChecked() throws Exception {
+    MockHttpServletRequest req = request("OPTIONS", null, "bob");
+
+    assertTrue(interceptor.preHandle(req, new MockHttpServletResponse(), null));
+    verifyNoInteractions(tokens);
+  }
+
+  /** Request wie nach dem Handler-Mapping: URI-Template-Variablen sind bereits gesetzt. */
+  private static MockHttpServletRequest request(String method, String authorization, String pathUserId) {
+    MockHttpServletRequest req = new MockHttpServletRequest(method, "/users/" + pathUserId + "/courses");
+    if (authorization != null) req.addHeader("Authorization", authorization);
+    if (pathUserId != null) {
+      req.setAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE, Map.of("userId", pathUserId));
+    }
+    return req;
+  }
+}
@@ -0,0 +1,45 @@
+package com.example.momolearn.security;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuthPrincipalTest {
+
+  @Test
+  void parsesBearerToken() {
+    assertEquals("abc.def", AuthPrincipal.parseBearer("Bearer abc.def"));
+  }
+
+  @Test
+  void schemeIsCaseInsensitive() {
+    assertEquals("tok", AuthPrincipal.parseBearer("bearer tok"));
+    assertEquals("tok", AuthPrincipal.parseBearer("BEARER tok"));
+  }
+
+  @Test
+  void trimsWhitespaceAroundSchemeAndToken() {
+    assertEquals("tok", AuthPrincipal.parseBearer("  Bearer    tok \t"));
+  }
+
+  @Test
+  void keepsTokenCaseAndInnerCharacters() {
+    assertEquals("AbC-123_x.Y=", AuthPrincipal.parseBearer("Bearer AbC-123_x.Y="));
+  }
+
+  @Test
+  void returnsNullForMissingOrEmptyToken() {
+    assertNull(AuthPrincipal.parseBearer(null));
+    assertNull(AuthPrincipal.parseBearer(""));
+    assertNull(AuthPrincipal.parseBearer("Bearer"));
+    assertNull(AuthPrincipal.parseBearer("Bearer "));
+    assertNull(AuthPrincipal.parseBearer("Bearer    "));
+  }
+
+  @Test
+  void returnsNullForOtherSchemes() {
+    assertNull(AuthPrincipal.parseBearer("Basic dXNlcjpwdw=="));
+    assertNull(AuthPrincipal.parseBearer("Bearertok"));
+    assertNull(AuthPrincipal.parseBearer("tok"));
+  }
+}
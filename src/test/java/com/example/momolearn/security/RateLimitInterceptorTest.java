@@ -0,0 +1,71 @@
+package com.example.momolearn.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimitInterceptorTest {
+
+  private static final AuthPrincipal ALICE = new AuthPrincipal("alice", true, Instant.now().plusSeconds(3600));
+  private static final Duration HOUR = Duration.ofHours(1);
+
+  private RateLimitInterceptor interceptor;
+
+  @BeforeEach
+  void setUp() {
+    // Upload-Limit 1, alles andere großzügig
+    RateLimiter limiter = new RateLimiter(true, 1000, HOUR, 1000, HOUR, 1, HOUR, 1000, HOUR);
+    interceptor = new RateLimitInterceptor(limiter);
+  }
+
+  @Test
+  void sessionChunksDoNotCountAsUploads() throws Exception {
+    assertTrue(allowed("POST", "/users/{userId}/uploads/sessions"));
+    // viele Chunks und Statusabfragen derselben Session dürfen nicht am Upload-Limit scheitern
+    for (int i = 0; i < 20; i++) {
+      assertTrue(allowed("PATCH", "/users/{userId}/uploads/sessions/{sessionId}"));
+      assertTrue(allowed("HEAD", "/users/{userId}/uploads/sessions/{sessionId}"));
+    }
+    assertTrue(allowed("DELETE", "/users/{userId}/uploads/sessions/{sessionId}"));
+    // ein weiterer Upload überschreitet das Limit
+    assertFalse(allowed("POST", "/users/{userId}/uploads/stream"));
+  }
+
+  @Test
+  void everyUploadCreationCountsAsUpload() throws Exception {
+    for (String pattern : new String[] {
+        "/users/{userId}/uploads", "/users/{userId}/uploads/stream", "/users/{userId}/uploads/sessions" }) {
+      setUp();
+      assertTrue(allowed("POST", pattern), pattern);
+      assertFalse(allowed("POST", pattern), pattern);
+    }
+  }
+
+  @Test
+  void rejectionCarriesRetryAfter() throws Exception {
+    allowed("POST", "/users/{userId}/uploads");
+    MockHttpServletResponse res = new MockHttpServletResponse();
+    assertFalse(interceptor.preHandle(request("POST", "/users/{userId}/uploads"), res, null));
+    assertEquals(429, res.getStatus());
+    assertEquals("0", res.getHeader("RateLimit-Remaining"));
+    assertNotNull(res.getHeader("Retry-After"));
+  }
+
+  private boolean allowed(String method, String pattern) throws Exception {
+    return interceptor.preHandle(request(method, pattern), new MockHttpServletResponse(), null);
+  }
+
+  private static MockHttpServletRequest request(String method, String pattern) {
+    MockHttpServletRequest req = new MockHttpServletRequest(method, pattern.replace("{userId}", "alice"));
+    req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, pattern);
+    req.setAttribute(AuthPrincipal.ATTRIBUTE, ALICE);
+    return req;
+  }
+}
@@ -0,0 +1,140 @@
+package com.example.momolearn.security;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.momolearn.security.RateLimiter.Decision;
+import com.example.momolearn.security.RateLimiter.RouteClass;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimiterTest {
+
+  private static final long SECOND = 1_000_000_000L;
+  private static final long HOUR = 3600 * SECOND;
+
+  /** 10 Requests pro 10 s (ein Token pro Sekunde) für READ, 2 pro Stunde für UPLOADS. */
+  private static RateLimiter limiter() {
+    return new RateLimiter(true, 10, Duration.ofSeconds(10), 100, Duration.ofMinutes(1),
+        2, Duration.ofHours(1), 10, Duration.ofHours(1));
+  }
+
+  @Test
+  void fullBucketAllowsBurstUpToLimit() {
+    RateLimiter rl = limiter();
+    long now = SECOND;
+
+    Decision first = rl.acquire("alice", RouteClass.READ, 1, now);
+    assertTrue(first.allowed());
+    assertEquals(10, first.limit());
+    assertEquals(9, first.remaining());
+    assertEquals(1, first.resetSeconds());
+    assertEquals(0, first.retryAfterSeconds());
+    assertEquals(10, first.windowSeconds());
+
+    for (int i = 2; i <= 10; i++) {
+      Decision d = rl.acquire("alice", RouteClass.READ, 1, now);
+      assertTrue(d.allowed(), "Request " + i);
+      assertEquals(10 - i, d.remaining());
+      assertEquals(i, d.resetSeconds());
+    }
+  }
+
+  @Test
+  void rejectionReportsRetryAfterAndRefillsOneTokenPerInterval() {
+    RateLimiter rl = limiter();
+    long now = SECOND;
+    for (int i = 0; i < 10; i++) rl.acquire("alice", RouteClass.READ, 1, now);
+
+    Decision rejected = rl.acquire("alice", RouteClass.READ, 1, now);
+    assertFalse(rejected.allowed());
+    assertEquals(0, rejected.remaining());
+    assertEquals(1, rejected.retryAfterSeconds());
+    assertEquals(10, rejected.resetSeconds());
+
+    // Ablehnung verbraucht nichts; nach einer halben Sekunde noch nicht, nach einer ganzen wieder frei
+    assertFalse(rl.acquire("alice", RouteClass.READ, 1, now + SECOND / 2).allowed());
+    Decision later = rl.acquire("alice", RouteClass.READ, 1, now + SECOND);
+    assertTrue(later.allowed());
+    assertEquals(0, later.remaining());
+
+    // nach einem ganzen Fenster ist der Bucket wieder voll
+    Decision refilled = rl.acquire("alice", RouteClass.READ, 1, now + 12 * SECOND);
+    assertTrue(refilled.allowed());
+    assertEquals(9, refilled.remaining());
+  }
+
+  @Test
+  void costIsAllOrNothingAndClampedToLimit() {
+    RateLimiter rl = limiter();
+    long now = SECOND;
+
+    Decision batch = rl.acquire("alice", RouteClass.READ, 8, now);
+    assertTrue(batch.allowed());
+    assertEquals(2, batch.remaining());
+
+    Decision tooMuch = rl.acquire("alice", RouteClass.READ, 3, now);
+    assertFalse(tooMuch.allowed());
+    assertEquals(2, tooMuch.remaining()); // nichts abgezogen
+    assertEquals(1, tooMuch.retryAfterSeconds());
+    assertTrue(rl.acquire("alice", RouteClass.READ, 2, now).allowed());
+
+    // Kosten über der Kapazität zählen wie ein voller Bucket
+    Decision huge = rl.acquire("bob", RouteClass.READ, 50, now);
+    assertTrue(huge.allowed());
+    assertEquals(0, huge.remaining());
+  }
+
+  @Test
+  void usersAndRouteClassesHaveSeparateBuckets() {
+    RateLimiter rl = limiter();
+    long now = SECOND;
+    assertTrue(rl.acquire("alice", RouteClass.UPLOADS, 2, now).allowed());
+    assertFalse(rl.acquire("alice", RouteClass.UPLOADS, 1, now).allowed());
+
+    assertTrue(rl.acquire("bob", RouteClass.UPLOADS, 1, now).allowed());
+    assertEquals(9, rl.acquire("alice", RouteClass.READ, 1, now).remaining());
+  }
+
+  @Test
+  void rebuildKeepsActiveBucketsAndGrows() {
+    RateLimiter rl = limiter();
+    long now = SECOND;
+    int initial = rl.capacity();
+    assertTrue(rl.acquire("keeper", RouteClass.UPLOADS, 2, now).allowed());
+
+    // viele aktive Nutzer → Segmente wachsen, Einträge überleben jeden Neuaufbau
+    for (int i = 0; i < 40_000; i++) rl.acquire("user" + i, RouteClass.UPLOADS, 1, now);
+    assertTrue(rl.capacity() > initial);
+
+    assertFalse(rl.acquire("keeper", RouteClass.UPLOADS, 1, now).allowed());
+    Decision d = rl.acquire("user123", RouteClass.UPLOADS, 1, now);
+    assertTrue(d.allowed());
+    assertEquals(0, d.remaining());
+  }
+
+  @Test
+  void rebuildDropsIdleEntriesAndShrinks() {
+    RateLimiter rl = limiter();
+    long now = SECOND;
+    int initial = rl.capacity();
+    for (int i = 0; i < 40_000; i++) rl.acquire("user" + i, RouteClass.UPLOADS, 1, now);
+    int grown = rl.capacity();
+    assertTrue(grown > initial);
+
+    // Eine Stunde später sind alle Buckets wieder voll; neue, jeweils nur kurz aktive
+    // Nutzer lösen Neuaufbauten aus, die die leeren Einträge verwerfen und halbieren
+    now += 2 * HOUR;
+    for (int i = 0; i < 200_000 && rl.capacity() > initial; i++) {
+      now += SECOND;
+      rl.acquire("fresh" + i, RouteClass.READ, 1, now);
+    }
+    assertEquals(initial, rl.capacity());
+
+    // verworfene Nutzer starten mit vollem Bucket
+    Decision d = rl.acquire("user123", RouteClass.UPLOADS, 1, now);
+    assertTrue(d.allowed());
+    assertEquals(1, d.remaining());
+  }
+}
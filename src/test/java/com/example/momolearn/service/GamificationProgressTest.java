@@ -0,0 +1,131 @@
+package com.example.momolearn.service;
+
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GamificationProgressTest {
+
+  private static final Instant MONDAY_NOON = Instant.parse("2026-03-02T12:00:00Z");
+
+  /**
+   * Die Stufen der applyAttempt-Pipeline Schritt für Schritt auf einem users-Dokument
+   * nachgebildet ($ifNull-Defaults, $floor/$divide für den UTC-Tag, $switch, $mod).
+   */
+  private static Document pipeline(Document u, boolean correct, Instant now) {
+    long dayMillis = 24L * 60 * 60 * 1000;
+    long today = (long) Math.floor((double) now.toEpochMilli() / dayMillis);
+    Date last = u.getDate("lastAnswerAt");
+    int oldStreak = u.get("streak") instanceof Number n ? n.intValue() : 0;
+
+    // Stufe 1
+    int streak;
+    if (last == null) streak = 1;
+    else {
+      long lastDay = (long) Math.floor((double) last.getTime() / dayMillis);
+      if (lastDay == today) streak = oldStreak;
+      else if (lastDay + 1 == today) streak = oldStreak + 1;
+      else streak = 1;
+    }
+    Document out = new Document(u).append("streak", streak).append("lastAnswerAt", Date.from(now));
+
+    // Stufe 2
+    if (correct) {
+      int total = (u.get("xp") instanceof Number n ? n.intValue() : 0) + 10 + Math.min(streak, 5);
+      int level = u.get("level") instanceof Number n ? n.intValue() : 1;
+      out.append("level", level + (int) Math.floor(total / 100.0)).append("xp", total % 100);
+    }
+    return out;
+  }
+
+  private static Document user(Integer xp, Integer level, Integer streak, Instant last) {
+    Document u = new Document();
+    if (xp != null) u.append("xp", xp);
+    if (level != null) u.append("level", level);
+    if (streak != null) u.append("streak", streak);
+    if (last != null) u.append("lastAnswerAt", Date.from(last));
+    return u;
+  }
+
+  private static void assertMatches(Document u, boolean correct, Instant at) {
+    Document expected = pipeline(u, correct, at);
+    GamificationService.Progress actual = GamificationService.Progress.of(u).answer(correct, at);
+    String where = u.toJson() + " correct=" + correct + " at=" + at;
+    assertEquals(expected.getInteger("streak"), actual.streak(), where);
+    assertEquals(expected.get("xp") instanceof Number n ? n.intValue() : 0, actual.xp(), where);
+    assertEquals(expected.get("level") instanceof Number n ? n.intValue() : 1, actual.level(), where);
+    assertEquals(at, actual.lastAnswerAt(), where);
+  }
+
+  @Test
+  void firstAnswerStartsStreakAtOne() {
+    GamificationService.Progress p = GamificationService.Progress.of(new Document()).answer(true, MONDAY_NOON);
+    assertEquals(1, p.streak());
+    assertEquals(11, p.xp());
+    assertEquals(1, p.level());
+    assertMatches(new Document(), true, MONDAY_NOON);
+    assertMatches(new Document(), false, MONDAY_NOON);
+  }
+
+  @Test
+  void sameUtcDayKeepsStreak() {
+    Instant early = Instant.parse("2026-03-02T00:00:00Z");
+    Instant late = Instant.parse("2026-03-02T23:59:59.999Z");
+    GamificationService.Progress p = GamificationService.Progress.of(user(40, 2, 3, early)).answer(true, late);
+    assertEquals(3, p.streak());
+    assertEquals(53, p.xp());
+    assertMatches(user(40, 2, 3, early), true, late);
+    assertMatches(user(40, 2, 3, late), false, late);
+  }
+
+  @Test
+  void nextUtcDayIncrementsStreak() {
+    Instant lateSunday = Instant.parse("2026-03-01T23:59:59Z");
+    Instant earlyMonday = Instant.parse("2026-03-02T00:00:01Z");
+    GamificationService.Progress p = GamificationService.Progress.of(user(0, 1, 4, lateSunday)).answer(true, earlyMonday);
+    assertEquals(5, p.streak());
+    assertEquals(15, p.xp());
+    assertMatches(user(0, 1, 4, lateSunday), true, earlyMonday);
+    // Bonus ist bei 5 gedeckelt
+    assertMatches(user(0, 1, 9, lateSunday), true, earlyMonday);
+  }
+
+  @Test
+  void gapResetsStreak() {
+    Instant twoDaysAgo = MONDAY_NOON.minusSeconds(2 * 24 * 3600);
+    GamificationService.Progress p = GamificationService.Progress.of(user(10, 1, 7, twoDaysAgo)).answer(false, MONDAY_NOON);
+    assertEquals(1, p.streak());
+    assertEquals(10, p.xp());
+    assertMatches(user(10, 1, 7, twoDaysAgo), false, MONDAY_NOON);
+  }
+
+  @Test
+  void xpRollsOverIntoNextLevel() {
+    Instant yesterday = MONDAY_NOON.minusSeconds(24 * 3600);
+    GamificationService.Progress p = GamificationService.Progress.of(user(95, 3, 5, yesterday)).answer(true, MONDAY_NOON);
+    assertEquals(4, p.level());
+    assertEquals(10, p.xp()); // 95 + 10 + 5 = 110
+    assertMatches(user(95, 3, 5, yesterday), true, MONDAY_NOON);
+    assertMatches(user(89, 3, 0, yesterday), true, MONDAY_NOON); // genau 100 → Level +1, xp 0
+  }
+
+  @Test
+  void matchesPipelineOnRandomStates() {
+    Random rnd = new Random(3);
+    for (int i = 0; i < 10_000; i++) {
+      Instant at = MONDAY_NOON.plusMillis(rnd.nextInt(5 * 24 * 3600 * 1000));
+      Instant last = rnd.nextInt(10) == 0 ? null : at.minusMillis(rnd.nextInt(4 * 24 * 3600 * 1000));
+      Document u = user(
+          rnd.nextInt(10) == 0 ? null : rnd.nextInt(100),
+          rnd.nextInt(10) == 0 ? null : 1 + rnd.nextInt(20),
+          rnd.nextInt(10) == 0 ? null : rnd.nextInt(10),
+          last);
+      assertMatches(u, rnd.nextBoolean(), at);
+    }
+  }
+}
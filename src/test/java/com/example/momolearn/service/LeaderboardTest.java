@@ -0,0 +1,131 @@
+package com.example.momolearn.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LeaderboardTest {
+
+  @Test
+  void tiesShareRankAndNextRankSkips() {
+    Leaderboard lb = new Leaderboard();
+    lb.set("a", 50);
+    lb.set("b", 30);
+    lb.set("c", 30);
+    lb.set("d", 10);
+
+    assertEquals(1, lb.standing("a").rank());
+    assertEquals(2, lb.standing("b").rank());
+    assertEquals(2, lb.standing("c").rank());
+    assertEquals(4, lb.standing("d").rank()); // 1, 2, 2, 4
+    assertEquals(4, lb.standing("d").size());
+
+    // Top-N bei Gleichstand stabil nach userId
+    assertEquals(List.of(new Leaderboard.Entry("a", 50), new Leaderboard.Entry("b", 30),
+        new Leaderboard.Entry("c", 30)), lb.top(3));
+  }
+
+  @Test
+  void growsWhenScoreReachesCapacity() {
+    Leaderboard lb = new Leaderboard();
+    lb.set("low", 5);
+    lb.set("edge", 1023);
+    lb.set("mid", 1024);      // genau die Anfangskapazität → Baum wächst
+    lb.set("high", 5_000);    // mehrfaches Verdoppeln
+    lb.set("tie", 5_000);
+
+    assertEquals(1, lb.standing("high").rank());
+    assertEquals(1, lb.standing("tie").rank());
+    assertEquals(3, lb.standing("mid").rank());
+    assertEquals(4, lb.standing("edge").rank());
+    assertEquals(5, lb.standing("low").rank());
+
+    // Ränge für Punktzahlen über der aktuellen Kapazität
+    assertEquals(1, lb.rankOf(1 << 20));
+    assertEquals(3, lb.rankOf(4_999));
+  }
+
+  @Test
+  void updatesAndRemovalsKeepRanksConsistent() {
+    Leaderboard lb = new Leaderboard();
+    lb.set("a", 10);
+    lb.set("b", 20);
+    assertEquals(2, lb.standing("a").rank());
+
+    assertEquals(2_010, lb.add("a", 2_000)); // Wachstum über add
+    assertEquals(1, lb.standing("a").rank());
+    assertEquals(2, lb.standing("b").rank());
+
+    lb.remove("a");
+    assertNull(lb.standing("a"));
+    assertEquals(1, lb.standing("b").rank());
+    assertEquals(1, lb.size());
+  }
+
+  @Test
+  void scoresAreClampedToZero() {
+    Leaderboard lb = new Leaderboard();
+    assertEquals(0, lb.add("a", -5));
+    lb.set("b", -1);
+    assertEquals(1, lb.standing("a").rank());
+    assertEquals(1, lb.standing("b").rank());
+  }
+
+  @Test
+  void versionChangesOnlyOnRealChanges() {
+    Leaderboard lb = new Leaderboard();
+    lb.set("a", 1);
+    long v = lb.version();
+    lb.set("a", 1);
+    lb.remove("unknown");
+    assertEquals(v, lb.version());
+    lb.set("a", 2);
+    assertTrue(lb.version() > v);
+  }
+
+  @Test
+  void matchesBruteForceRanksOnRandomOperations() {
+    Random rnd = new Random(11);
+    Leaderboard lb = new Leaderboard();
+    Map<String, Integer> ref = new HashMap<>();
+
+    for (int op = 0; op < 20_000; op++) {
+      String user = "u" + rnd.nextInt(200);
+      int kind = rnd.nextInt(100);
+      if (kind < 50) {
+        int s = rnd.nextInt(rnd.nextInt(10) == 0 ? 100_000 : 2_000);
+        lb.set(user, s);
+        ref.put(user, s);
+      } else if (kind < 90) {
+        int d = rnd.nextInt(50);
+        ref.put(user, lb.add(user, d));
+      } else if (kind < 99) {
+        lb.remove(user);
+        ref.remove(user);
+      } else {
+        // Neuaufbau wie aus Snapshot; Kapazität kann dabei wieder schrumpfen
+        Map<String, Integer> all = new HashMap<>(ref);
+        lb.replaceAll(all);
+      }
+
+      if (op % 97 == 0) assertSameRanks(ref, lb);
+    }
+    assertSameRanks(ref, lb);
+  }
+
+  private static void assertSameRanks(Map<String, Integer> ref, Leaderboard lb) {
+    assertEquals(ref.size(), lb.size());
+    for (Map.Entry<String, Integer> e : ref.entrySet()) {
+      int higher = 0;
+      for (int s : ref.values()) if (s > e.getValue()) higher++;
+      Leaderboard.Standing st = lb.standing(e.getKey());
+      assertEquals(e.getValue(), st.score(), e.getKey());
+      assertEquals(higher + 1, st.rank(), e.getKey());
+    }
+  }
+}
@@ -0,0 +1,146 @@
+package com.example.momolearn.service;
+
+import com.example.momolearn.model.UploadTextIndex;
+
+import org.apache.pdfbox.io.RandomAccessBuffer;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PdfTextServiceTest {
+
+  private static final int PAGES = 60;
+
+  @Test
+  void parallelIndexEqualsSequentialIndex() throws IOException {
+    byte[] pdf = samplePdf();
+    PdfTextService.PdfSource source = () -> new RandomAccessBuffer(pdf);
+
+    PdfTextService sequential = new PdfTextService(false, 40, 20, 1, 1, null, null);
+    PdfTextService parallel = new PdfTextService(true, 2, 5, 4, 1, null, null);
+    try {
+      UploadTextIndex expected = sequential.buildIndex(source, pdf.length);
+      UploadTextIndex actual = parallel.buildIndex(source, pdf.length);
+
+      assertEquals(PAGES, expected.getPageCount());
+      assertFalse(expected.getSections().isEmpty());
+      assertSameIndex(expected, actual);
+    } finally {
+      parallel.shutdown();
+    }
+  }
+
+  @Test
+  void textLengthMatchesNormalizedFullText() throws IOException {
+    byte[] pdf = samplePdf();
+    PdfTextService parallel = new PdfTextService(true, 2, 5, 4, 1, null, null);
+    try (PDDocument doc = PDDocument.load(pdf)) {
+      PDFTextStripper stripper = new PDFTextStripper();
+      stripper.setSortByPosition(true);
+      String text = TextNormalizer.normalize(stripper.getText(doc));
+
+      UploadTextIndex idx = parallel.buildIndex(() -> new RandomAccessBuffer(pdf), pdf.length);
+      assertEquals(text.length(), idx.getTextLength());
+    } finally {
+      parallel.shutdown();
+    }
+  }
+
+  @Test
+  void failingReaderSurfacesIoException() throws IOException {
+    byte[] pdf = samplePdf();
+    int[] opened = { 0 };
+    PdfTextService parallel = new PdfTextService(true, 2, 5, 4, 1, null, null);
+    try {
+      // erster Leser funktioniert, alle weiteren (parallele Teilbereiche) schlagen fehl
+      IOException e = assertThrows(IOException.class, () -> parallel.buildIndex(() -> {
+        synchronized (opened) {
+          if (opened[0]++ > 0) throw new IOException("kaputt");
+        }
+        return new RandomAccessBuffer(pdf);
+      }, pdf.length));
+      assertEquals("kaputt", e.getMessage());
+    } finally {
+      parallel.shutdown();
+    }
+  }
+
+  private static void assertSameIndex(UploadTextIndex expected, UploadTextIndex actual) {
+    assertEquals(expected.getPageCount(), actual.getPageCount());
+    assertEquals(expected.getTextLength(), actual.getTextLength());
+
+    List<UploadTextIndex.PageSpan> ep = expected.getPages();
+    List<UploadTextIndex.PageSpan> ap = actual.getPages();
+    assertEquals(ep.size(), ap.size());
+    for (int i = 0; i < ep.size(); i++) {
+      String where = "Seite " + (i + 1);
+      assertEquals(ep.get(i).getPage(), ap.get(i).getPage(), where);
+      assertEquals(ep.get(i).getStart(), ap.get(i).getStart(), where);
+      assertEquals(ep.get(i).getEnd(), ap.get(i).getEnd(), where);
+    }
+
+    List<UploadTextIndex.Section> es = expected.getSections();
+    List<UploadTextIndex.Section> as = actual.getSections();
+    assertEquals(es.size(), as.size());
+    for (int i = 0; i < es.size(); i++) {
+      String where = "Abschnitt " + i;
+      assertEquals(es.get(i).getIndex(), as.get(i).getIndex(), where);
+      assertEquals(es.get(i).getTitle(), as.get(i).getTitle(), where);
+      assertEquals(es.get(i).getLevel(), as.get(i).getLevel(), where);
+      assertEquals(es.get(i).getFromPage(), as.get(i).getFromPage(), where);
+      assertEquals(es.get(i).getToPage(), as.get(i).getToPage(), where);
+      assertEquals(es.get(i).getStart(), as.get(i).getStart(), where);
+      assertEquals(es.get(i).getEnd(), as.get(i).getEnd(), where);
+    }
+  }
+
+  /**
+   * Erzeugt ein PDF mit Überschriften in größerer Schrift, Fließtext und Trennungen
+   * am Zeilen- und Seitenende (auch über die Grenzen der parallelen Teilbereiche).
+   */
+  private static byte[] samplePdf() throws IOException {
+    try (PDDocument doc = new PDDocument(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+      for (int p = 1; p <= PAGES; p++) {
+        PDPage page = new PDPage();
+        doc.addPage(page);
+        try (PDPageContentStream cs = new PDPageContentStream(doc, page)) {
+          float y = 740;
+          if (p % 4 == 1) {
+            line(cs, PDType1Font.HELVETICA_BOLD, 20, y, "Kapitel " + (p / 4 + 1));
+            y -= 30;
+          }
+          if (p % 4 == 3) {
+            line(cs, PDType1Font.HELVETICA_BOLD, 15, y, "Abschnitt " + p);
+            y -= 24;
+          }
+          for (int l = 0; l < 12; l++) {
+            String text = "Seite " + p + " Zeile " + l + " mit etwas Fliesstext zum Lernen";
+            line(cs, PDType1Font.HELVETICA, 11, y, (l % 3 == 2) ? text + " Trenn-" : text);
+            y -= 14;
+          }
+          line(cs, PDType1Font.HELVETICA, 11, y, "Seitenende mit Ab-");
+        }
+      }
+      doc.save(out);
+      return out.toByteArray();
+    }
+  }
+
+  private static void line(PDPageContentStream cs, PDType1Font font, float size, float y, String text)
+      throws IOException {
+    cs.beginText();
+    cs.setFont(font, size);
+    cs.newLineAtOffset(50, y);
+    cs.showText(text);
+    cs.endText();
+  }
+}
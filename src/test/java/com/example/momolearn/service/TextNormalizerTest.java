@@ -0,0 +1,110 @@
+package com.example.momolearn.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.Writer;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TextNormalizerTest {
+
+  // Zeichen, an denen sich die Regeln unterscheiden: Trennstrich, alle \s-Zeichen,
+  // ein Steuerzeichen (trim() entfernt es, \s nicht) und normale Buchstaben
+  private static final char[] ALPHABET = { 'a', 'b', '-', '-', ' ', ' ', '\t', '\n', '\n', '\r', '\f', '\u000B', '\u0001' };
+
+  /** Die frühere Bereinigung aus drei replaceAll-Aufrufen (Referenz). */
+  private static String legacy(String s) {
+    s = s.replaceAll("-\\s*\\r?\\n\\s*", "");
+    s = s.replaceAll("\\r?\\n+", " ");
+    return s.replaceAll("\\s{2,}", " ").trim();
+  }
+
+  @Test
+  void matchesLegacyChainOnFixedInputs() {
+    List<String> inputs = List.of(
+        "",
+        "   ",
+        "Aus-\n  druck",
+        "Aus-\r\ndruck",
+        "Aus- \n\n druck",
+        "Bindestrich-Wort bleibt",
+        "Ende mit Strich-",
+        "Ende mit Strich-\n",
+        "Strich- \t am Zeilenende ohne Umbruch",
+        "a--\nb",
+        "Zeile 1\nZeile 2\r\nZeile 3\n\n\nZeile 4",
+        "einzelner\tTab und\rCR bleiben",
+        "viele    Leer \t\f zeichen",
+        "\n\n  Rand  \n",
+        "\u0001 \n b",
+        "x-\n\u0001y");
+    for (String s : inputs) {
+      assertEquals(legacy(s), TextNormalizer.normalize(s), () -> "Eingabe: " + escape(s));
+    }
+  }
+
+  @Test
+  void matchesLegacyChainOnRandomInputs() {
+    Random rnd = new Random(42);
+    for (int run = 0; run < 20_000; run++) {
+      String s = randomText(rnd, rnd.nextInt(40));
+      assertEquals(legacy(s), TextNormalizer.normalize(s), () -> "Eingabe: " + escape(s));
+    }
+  }
+
+  @Test
+  void chunkedInputGivesSameResultAsWholeText() throws IOException {
+    Random rnd = new Random(7);
+    for (int run = 0; run < 5_000; run++) {
+      String s = randomText(rnd, rnd.nextInt(60));
+      String expected = legacy(s);
+
+      // stückweise über append, mit Grenzen mitten in Trennungen und Whitespace-Blöcken
+      TextNormalizer n = new TextNormalizer(s.length());
+      int pos = 0;
+      while (pos < s.length()) {
+        int end = Math.min(s.length(), pos + 1 + rnd.nextInt(5));
+        n.append(s.subSequence(pos, end));
+        pos = end;
+      }
+      assertEquals(expected, n.finish(), () -> "Eingabe (append): " + escape(s));
+
+      // über den Writer (Weg von PDFTextStripper.writeText)
+      TextNormalizer w = new TextNormalizer(s.length());
+      try (Writer out = w.asWriter()) {
+        out.write(s);
+      }
+      assertEquals(expected, w.finish(), () -> "Eingabe (Writer): " + escape(s));
+
+      // über den Reader
+      assertEquals(expected, TextNormalizer.normalize(new StringReader(s), s.length()),
+          () -> "Eingabe (Reader): " + escape(s));
+    }
+  }
+
+  @Test
+  void lengthCountsOnlyWrittenCharacters() {
+    TextNormalizer n = new TextNormalizer(16);
+    n.append("ab  ");
+    assertEquals(2, n.length()); // offener Whitespace-Block zählt noch nicht
+    n.append("c-");
+    assertEquals(4, n.length()); // offene Trennung zählt noch nicht
+    n.append("\nd");
+    assertEquals("ab cd", n.finish());
+  }
+
+  private static String randomText(Random rnd, int len) {
+    StringBuilder sb = new StringBuilder(len);
+    for (int i = 0; i < len; i++) sb.append(ALPHABET[rnd.nextInt(ALPHABET.length)]);
+    return sb.toString();
+  }
+
+  private static String escape(String s) {
+    return s.replace("\n", "\\n").replace("\r", "\\r").replace("\t", "\\t")
+        .replace("\f", "\\f").replace("\u000B", "\\v").replace("\u0001", "\\u0001");
+  }
+}
@@ -0,0 +1,52 @@
+package com.example.momolearn.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UploadInputStreamTest {
+
+  private static final byte[] PDF = "%PDF-1.7\nsome content\n%%EOF".getBytes(StandardCharsets.US_ASCII);
+
+  @Test
+  void hashIsStableAcrossRepeatedCalls() throws Exception {
+    UploadInputStream in = new UploadInputStream(new ByteArrayInputStream(PDF), 1024, true);
+    in.readAllBytes();
+
+    String expected = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(PDF));
+    assertEquals(expected, in.getSha256Hex());
+    // zweiter Abruf (z. B. Storage-Backend und danach UploadService) muss denselben Hash liefern
+    assertEquals(expected, in.getSha256Hex());
+    assertEquals(PDF.length, in.getSize());
+  }
+
+  @Test
+  void rejectsNonPdf() {
+    UploadInputStream in = new UploadInputStream(
+        new ByteArrayInputStream("hello world".getBytes(StandardCharsets.US_ASCII)), 1024, true);
+    assertThrows(UploadInputStream.RejectedException.class, in::readAllBytes);
+  }
+
+  @Test
+  void rejectsOversizedInput() {
+    UploadInputStream in = new UploadInputStream(new ByteArrayInputStream(PDF), 10, true);
+    UploadInputStream.RejectedException e = assertThrows(UploadInputStream.RejectedException.class, in::readAllBytes);
+    assertEquals(413, e.getStatus().value());
+  }
+
+  @Test
+  void skipStillHashesSkippedBytes() throws IOException {
+    UploadInputStream a = new UploadInputStream(new ByteArrayInputStream(PDF), 1024, true);
+    a.readAllBytes();
+    UploadInputStream b = new UploadInputStream(new ByteArrayInputStream(PDF), 1024, true);
+    assertEquals(5, b.skip(5));
+    b.readAllBytes();
+    assertEquals(a.getSha256Hex(), b.getSha256Hex());
+  }
+}